@@ -0,0 +1,100 @@
+package se.mebe.benchmark;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.sf.ehcache.CacheManager;
+import se.mebe.config.AuthConfig;
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.mebe.filter.CachingTokenVerifier;
+import se.mebe.filter.HmacJwtVerifier;
+import se.mebe.filter.SharedTokenVerifier;
+import se.mebe.filter.TokenVerifier;
+
+/**
+ * {@link AuthorizationRequestFilter#filter} with each verifier
+ * {@link AuthConfig} can choose: the shared token, a JWT checked on every
+ * request, and a JWT answered from the cache of accepted tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationFilterBenchmark {
+
+	private static final byte[] SECRET = "a-benchmark-secret-of-thirty-two-bytes".getBytes(StandardCharsets.UTF_8);
+
+	@Param({ "shared", "jwt", "cached-jwt" })
+	public String verifier;
+
+	private CacheManager cacheManager;
+	private AuthorizationRequestFilter filter;
+	private ContainerRequest request;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		String token;
+		TokenVerifier tokenVerifier;
+		if (verifier.equals("shared")) {
+			token = AuthorizationRequestFilter.AUTH_TOKEN;
+			tokenVerifier = new SharedTokenVerifier(token);
+		} else {
+			token = jwt(System.currentTimeMillis() / 1000 + TimeUnit.DAYS.toSeconds(1));
+			tokenVerifier = new HmacJwtVerifier(SECRET, new ObjectMapper());
+			if (verifier.equals("cached-jwt")) {
+				cacheManager = CacheManager.create();
+				tokenVerifier = new CachingTokenVerifier(tokenVerifier,
+						cacheManager.addCacheIfAbsent(AuthConfig.VERIFIED_TOKENS));
+			}
+		}
+		filter = new AuthorizationRequestFilter(tokenVerifier);
+
+		request = new ContainerRequest(URI.create("http://localhost/"), URI.create("http://localhost/items/team/1"),
+				"GET", null, new MapPropertiesDelegate());
+		request.header("Authorization", "Bearer " + token);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (cacheManager != null) {
+			cacheManager.shutdown();
+		}
+	}
+
+	@Benchmark
+	public ContainerRequest filter() throws Exception {
+		filter.filter(request);
+		return request;
+	}
+
+	private static String jwt(long expires) throws Exception {
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		String signed = encoder.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8))
+				+ "." + encoder.encodeToString(("{\"sub\":\"benchmark\",\"exp\":" + expires + "}")
+						.getBytes(StandardCharsets.UTF_8));
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+		return signed + "." + encoder.encodeToString(mac.doFinal(signed.getBytes(StandardCharsets.US_ASCII)));
+	}
+}
@@ -0,0 +1,144 @@
+package se.mebe.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.mebe.converter.EntityConverter;
+import se.springdata.model.AbstractEntity;
+import se.springdata.model.Status;
+
+/**
+ * Cost of every {@code convertTo*} method of {@link EntityConverter}, one
+ * object at a time; a page of results costs the page size times as much.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityConverterBenchmark {
+
+	private final EntityConverter converter = new EntityConverter();
+
+	private se.mebe.model.User restUser;
+	private se.mebe.model.Team restTeam;
+	private se.mebe.model.WorkItem restWorkItem;
+	private se.mebe.model.Issue restIssue;
+
+	private se.springdata.model.User user;
+	private se.springdata.model.Team team;
+	private se.springdata.model.Workitem workitem;
+	private se.springdata.model.Issue issue;
+
+	private se.springdata.view.UserView userView;
+	private se.springdata.view.TeamView teamView;
+	private se.springdata.view.WorkitemView workitemView;
+	private se.springdata.service.StatusChange statusChange;
+	private se.springdata.service.CacheStatistics cacheStatistics;
+
+	@Setup
+	public void setUp() throws Exception {
+		restUser = new se.mebe.model.User(1L, "Ada", "Lovelace", "adalovelace01", "U-0001", "active");
+		restTeam = new se.mebe.model.Team(2L, "Analytical", "active");
+		restWorkItem = new se.mebe.model.WorkItem(3L, "Bernoulli", "Compute the Bernoulli numbers", Status.STARTED);
+		restIssue = new se.mebe.model.Issue(4L, "Rejected", "Notes are missing");
+
+		user = withId(EntityConverter.convertToJpaUser(restUser), 1L);
+		team = withId(EntityConverter.convertToJpaTeam(restTeam), 2L);
+		workitem = withId(EntityConverter.convertToWorkItemEntity(restWorkItem), 3L);
+		issue = withId(EntityConverter.convertToJpaIssue(restIssue), 4L);
+
+		userView = new se.springdata.view.UserView(1L, "Ada", "Lovelace", "adalovelace01", "active", "U-0001", 0L);
+		teamView = new se.springdata.view.TeamView(2L, "Analytical", "active", 0L);
+		workitemView = new se.springdata.view.WorkitemView(3L, "Bernoulli", "Compute the Bernoulli numbers",
+				Status.STARTED, 0L);
+		statusChange = new se.springdata.service.StatusChange(Status.DONE, Arrays.asList(3L, 5L, 8L),
+				Collections.singletonList(13L), Collections.<Long> emptyList());
+		cacheStatistics = new se.springdata.service.CacheStatistics("user", 900, 100, 1000, 10000, 300);
+	}
+
+	@Benchmark
+	public se.springdata.model.User convertToJpaUser() {
+		return EntityConverter.convertToJpaUser(restUser);
+	}
+
+	@Benchmark
+	public se.mebe.model.User convertToRestUser() {
+		return converter.convertToRestUser(user);
+	}
+
+	@Benchmark
+	public se.mebe.model.User convertToRestUserFromView() {
+		return converter.convertToRestUser(userView);
+	}
+
+	@Benchmark
+	public se.springdata.model.Team convertToJpaTeam() {
+		return EntityConverter.convertToJpaTeam(restTeam);
+	}
+
+	@Benchmark
+	public se.mebe.model.Team convertToRestTeam() {
+		return converter.convertToRestTeam(team);
+	}
+
+	@Benchmark
+	public se.mebe.model.Team convertToRestTeamFromView() {
+		return converter.convertToRestTeam(teamView);
+	}
+
+	@Benchmark
+	public se.springdata.model.Workitem convertToWorkItemEntity() {
+		return EntityConverter.convertToWorkItemEntity(restWorkItem);
+	}
+
+	@Benchmark
+	public se.mebe.model.WorkItem convertToRestWorkItem() {
+		return converter.convertToRestWorkItem(workitem);
+	}
+
+	@Benchmark
+	public se.mebe.model.WorkItem convertToRestWorkItemFromView() {
+		return converter.convertToRestWorkItem(workitemView);
+	}
+
+	@Benchmark
+	public se.mebe.model.StatusChange convertToRestStatusChange() {
+		return converter.convertToRestStatusChange(statusChange);
+	}
+
+	@Benchmark
+	public se.mebe.model.CacheStats convertToRestCacheStats() {
+		return converter.convertToRestCacheStats(cacheStatistics);
+	}
+
+	@Benchmark
+	public se.springdata.model.Issue convertToJpaIssue() {
+		return EntityConverter.convertToJpaIssue(restIssue);
+	}
+
+	@Benchmark
+	public se.mebe.model.Issue convertToRestIssue() {
+		return converter.convertToRestIssue(issue);
+	}
+
+	// ids are only ever assigned by Hibernate
+	private static <E extends AbstractEntity> E withId(E entity, long id) throws ReflectiveOperationException {
+		Field field = AbstractEntity.class.getDeclaredField("id");
+		field.setAccessible(true);
+		field.set(entity, id);
+		return entity;
+	}
+}
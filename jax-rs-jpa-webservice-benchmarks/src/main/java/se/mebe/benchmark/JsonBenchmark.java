@@ -0,0 +1,127 @@
+package se.mebe.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import se.mebe.model.Issue;
+import se.mebe.model.Team;
+import se.mebe.model.User;
+import se.mebe.model.WorkItem;
+import se.springdata.model.Status;
+
+/**
+ * Jackson serialization and deserialization of the REST models, with an
+ * {@link ObjectMapper} set up the way Spring Boot sets up the one Jersey uses.
+ * The page benchmark writes a default-sized page of workitems.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+	private static final int PAGE_SIZE = 50;
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private User user;
+	private Team team;
+	private WorkItem workItem;
+	private Issue issue;
+	private List<WorkItem> page;
+
+	private byte[] userJson;
+	private byte[] teamJson;
+	private byte[] workItemJson;
+	private byte[] issueJson;
+
+	private ObjectReader userReader;
+	private ObjectReader teamReader;
+	private ObjectReader workItemReader;
+	private ObjectReader issueReader;
+	private ObjectWriter writer;
+
+	@Setup
+	public void setUp() throws Exception {
+		user = new User(1L, "Ada", "Lovelace", "adalovelace01", "active", "U-0001", 3L);
+		team = new Team(2L, "Analytical", "active", 1L);
+		workItem = new WorkItem(3L, "Bernoulli", "Compute the Bernoulli numbers", Status.STARTED);
+		issue = new Issue(4L, "Rejected", "Notes are missing");
+		page = new ArrayList<>(PAGE_SIZE);
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			page.add(new WorkItem(i, "Workitem " + i, "Description of workitem " + i, Status.STARTED));
+		}
+
+		writer = objectMapper.writer();
+		userJson = writer.writeValueAsBytes(user);
+		teamJson = writer.writeValueAsBytes(team);
+		workItemJson = writer.writeValueAsBytes(workItem);
+		issueJson = writer.writeValueAsBytes(issue);
+
+		userReader = objectMapper.readerFor(User.class);
+		teamReader = objectMapper.readerFor(Team.class);
+		workItemReader = objectMapper.readerFor(WorkItem.class);
+		issueReader = objectMapper.readerFor(Issue.class);
+	}
+
+	@Benchmark
+	public byte[] writeUser() throws Exception {
+		return writer.writeValueAsBytes(user);
+	}
+
+	@Benchmark
+	public User readUser() throws Exception {
+		return userReader.readValue(userJson);
+	}
+
+	@Benchmark
+	public byte[] writeTeam() throws Exception {
+		return writer.writeValueAsBytes(team);
+	}
+
+	@Benchmark
+	public Team readTeam() throws Exception {
+		return teamReader.readValue(teamJson);
+	}
+
+	@Benchmark
+	public byte[] writeWorkItem() throws Exception {
+		return writer.writeValueAsBytes(workItem);
+	}
+
+	@Benchmark
+	public WorkItem readWorkItem() throws Exception {
+		return workItemReader.readValue(workItemJson);
+	}
+
+	@Benchmark
+	public byte[] writeIssue() throws Exception {
+		return writer.writeValueAsBytes(issue);
+	}
+
+	@Benchmark
+	public Issue readIssue() throws Exception {
+		return issueReader.readValue(issueJson);
+	}
+
+	@Benchmark
+	public byte[] writeWorkItemPage() throws Exception {
+		return writer.writeValueAsBytes(page);
+	}
+}
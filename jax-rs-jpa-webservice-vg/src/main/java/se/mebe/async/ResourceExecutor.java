@@ -0,0 +1,170 @@
+package se.mebe.async;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import org.glassfish.jersey.server.ManagedAsyncExecutor;
+import org.glassfish.jersey.spi.ThreadPoolExecutorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import se.mebe.model.ExecutorStats;
+import se.springdata.statistics.QueryCounter;
+
+/**
+ * The executor the {@code @ManagedAsync} resource methods run on, so blocking
+ * JPA work never holds a container thread. It has a fixed number of threads
+ * and a bounded queue: a request that finds the queue full, or that has not
+ * been answered within the timeout, gets a 503 instead of waiting. The
+ * timeout counts from the moment the request was queued, so a request that
+ * waited it out in the queue is answered without running at all, and one
+ * still running when it fires is interrupted, so that a wait for a
+ * connection or a lock gives its thread back instead of finishing work no
+ * one will read.
+ */
+@Component
+@ManagedAsyncExecutor
+public class ResourceExecutor extends ThreadPoolExecutorProvider {
+
+	private static final String RETRY_AFTER_SECONDS = "1";
+	private static final ThreadLocal<Long> QUEUED_AT = new ThreadLocal<>();
+
+	private final int threads;
+	private final int queueCapacity;
+	private final long timeoutMillis;
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong timedOut = new AtomicLong();
+
+	public ResourceExecutor(@Value("${taskmanager.async.threads:16}") int threads,
+			@Value("${taskmanager.async.queue-capacity:200}") int queueCapacity,
+			@Value("${taskmanager.async.timeout-millis:10000}") long timeoutMillis) {
+		super("resource-executor");
+		this.threads = threads;
+		this.queueCapacity = queueCapacity;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Answers the suspended request with what {@code call} returns, or with
+	 * what it throws through the exception mappers, unless the timeout has
+	 * answered it with a 503 first.
+	 */
+	public void complete(AsyncResponse response, Call call) {
+		Long queuedAt = QUEUED_AT.get();
+		long left = timeoutMillis
+				- (queuedAt == null ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt));
+		if (left <= 0) {
+			timedOut.incrementAndGet();
+			response.resume(unavailable("The request timed out, try again later"));
+			return;
+		}
+		Worker worker = new Worker(Thread.currentThread());
+		response.setTimeoutHandler(timedOutResponse -> {
+			timedOut.incrementAndGet();
+			timedOutResponse.resume(unavailable("The request timed out, try again later"));
+			worker.interrupt();
+		});
+		response.setTimeout(left, TimeUnit.MILLISECONDS);
+		try {
+			response.resume(call.call());
+		} catch (Exception e) {
+			response.resume(e);
+		} finally {
+			worker.done();
+		}
+	}
+
+	public ExecutorStats getStatistics() {
+		ThreadPoolExecutor executor = getExecutor();
+		return new ExecutorStats(threads, executor.getActiveCount(), executor.getQueue().size(), queueCapacity,
+				executor.getCompletedTaskCount(), rejected.get(), timedOut.get());
+	}
+
+	@Override
+	protected int getCorePoolSize() {
+		return threads;
+	}
+
+	@Override
+	protected int getMaximumPoolSize() {
+		return threads;
+	}
+
+	@Override
+	protected BlockingQueue<Runnable> getWorkQueue() {
+		return new ArrayBlockingQueue<>(queueCapacity);
+	}
+
+	// stamps every task with the time it was queued, for complete() to read
+	@Override
+	protected ThreadPoolExecutor createExecutor(int corePoolSize, int maxPoolSize, long keepAliveTime,
+			BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+		return new ThreadPoolExecutor(corePoolSize, maxPoolSize, keepAliveTime, TimeUnit.SECONDS, workQueue,
+				threadFactory, handler) {
+			@Override
+			public void execute(Runnable task) {
+				long queuedAt = System.nanoTime();
+				super.execute(() -> {
+					QUEUED_AT.set(queuedAt);
+					try {
+						task.run();
+					} finally {
+						QUEUED_AT.remove();
+						QueryCounter.detach();
+					}
+				});
+			}
+		};
+	}
+
+	@Override
+	protected RejectedExecutionHandler getRejectedExecutionHandler() {
+		return (task, executor) -> {
+			rejected.incrementAndGet();
+			throw new ServiceUnavailableException(unavailable("The server is busy, try again later"));
+		};
+	}
+
+	private static Response unavailable(String message) {
+		return Response.status(Status.SERVICE_UNAVAILABLE).header("Retry-After", RETRY_AFTER_SECONDS)
+				.entity(message).type(MediaType.TEXT_PLAIN).build();
+	}
+
+	// the thread running one call, until it is done; interrupting and finishing
+	// exclude each other so an interrupt never reaches the next task
+	private static final class Worker {
+
+		private Thread thread;
+
+		Worker(Thread thread) {
+			this.thread = thread;
+		}
+
+		synchronized void interrupt() {
+			if (thread != null) {
+				thread.interrupt();
+				thread = null;
+			}
+		}
+
+		synchronized void done() {
+			if (thread == null) {
+				Thread.interrupted();
+			}
+			thread = null;
+		}
+	}
+
+	@FunctionalInterface
+	public static interface Call {
+		Response call() throws Exception;
+	}
+}
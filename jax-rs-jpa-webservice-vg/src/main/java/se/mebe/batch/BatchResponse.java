@@ -0,0 +1,58 @@
+package se.mebe.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriBuilder;
+import se.mebe.exception.BadMessageException;
+import se.mebe.model.BatchItemResult;
+import se.springdata.service.BatchResult;
+
+/**
+ * Builds the 207 Multi-Status answer of the batch create endpoints: one entry
+ * per submitted element, in order, with 201 and a location for created
+ * elements, 409 for duplicates and 400 for invalid ones.
+ */
+public final class BatchResponse {
+
+	public static final int MULTI_STATUS = 207;
+	public static final int MAX_SIZE = 5000;
+
+	private BatchResponse() {
+	}
+
+	public static <T> List<T> checkSize(List<T> elements) throws BadMessageException {
+		if (elements == null || elements.isEmpty()) {
+			throw new BadMessageException("The batch is empty");
+		}
+		if (elements.size() > MAX_SIZE) {
+			throw new BadMessageException("A batch can hold at most " + MAX_SIZE + " elements");
+		}
+		return elements;
+	}
+
+	public static <T> Response of(List<BatchResult<T>> results, ToLongFunction<T> idOf, UriBuilder location) {
+		List<BatchItemResult> items = new ArrayList<>(results.size());
+		for (int index = 0; index < results.size(); index++) {
+			BatchResult<T> result = results.get(index);
+			switch (result.getOutcome()) {
+			case CREATED:
+				long id = idOf.applyAsLong(result.getEntity());
+				items.add(new BatchItemResult(index, Status.CREATED.getStatusCode(), id,
+						location.clone().path(Long.toString(id)).build().toString(), null));
+				break;
+			case DUPLICATE:
+				items.add(new BatchItemResult(index, Status.CONFLICT.getStatusCode(), null, null,
+						result.getMessage()));
+				break;
+			default:
+				items.add(new BatchItemResult(index, Status.BAD_REQUEST.getStatusCode(), null, null,
+						result.getMessage()));
+			}
+		}
+		return Response.status(MULTI_STATUS).entity(items).type(MediaType.APPLICATION_JSON).build();
+	}
+}
@@ -0,0 +1,41 @@
+package se.mebe.conditional;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import se.mebe.exception.BadMessageException;
+
+/**
+ * Optimistic concurrency for the update endpoints. The entity tag of a team,
+ * user, workitem or issue is its version, the {@code version} property of
+ * the list responses; a client sends it back in {@code If-Match} and the
+ * update then only applies to that version.
+ */
+public final class IfMatch {
+
+	private IfMatch() {
+	}
+
+	/**
+	 * The version in the {@code If-Match} header, or null when the request
+	 * has none or matches any version with {@code *}.
+	 */
+	public static Long version(HttpHeaders headers) throws BadMessageException {
+		String value = headers.getHeaderString(HttpHeaders.IF_MATCH);
+		if (value == null || value.trim().equals("*")) {
+			return null;
+		}
+		try {
+			EntityTag tag = EntityTag.valueOf(value.trim());
+			if (tag.isWeak()) {
+				throw new BadMessageException("If-Match needs a strong entity tag: " + value);
+			}
+			return Long.parseLong(tag.getValue());
+		} catch (IllegalArgumentException e) {
+			throw new BadMessageException("The entity tag is not valid: " + value);
+		}
+	}
+
+	public static EntityTag tag(long version) {
+		return new EntityTag(Long.toString(version));
+	}
+}
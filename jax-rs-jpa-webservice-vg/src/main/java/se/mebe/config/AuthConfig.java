@@ -0,0 +1,42 @@
+package se.mebe.config;
+
+import java.nio.charset.StandardCharsets;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.sf.ehcache.CacheManager;
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.mebe.filter.CachingTokenVerifier;
+import se.mebe.filter.HmacJwtVerifier;
+import se.mebe.filter.SharedTokenVerifier;
+import se.mebe.filter.TokenVerifier;
+
+/**
+ * Picks the {@link TokenVerifier} of the authorization filter. With
+ * {@code taskmanager.auth.jwt-secret} set, requests carry HMAC-signed JWTs
+ * and accepted tokens are cached in the {@code auth-tokens} region; otherwise
+ * every client sends the shared {@code taskmanager.auth.token}.
+ */
+@Configuration
+public class AuthConfig {
+
+	public static final String VERIFIED_TOKENS = "auth-tokens";
+
+	private final Environment environment;
+
+	public AuthConfig(Environment environment) {
+		this.environment = environment;
+	}
+
+	@Bean
+	TokenVerifier tokenVerifier(ObjectMapper objectMapper, CacheManager cacheManager) {
+		String secret = environment.getProperty("taskmanager.auth.jwt-secret", "");
+		if (secret.isEmpty()) {
+			return new SharedTokenVerifier(
+					environment.getProperty("taskmanager.auth.token", AuthorizationRequestFilter.AUTH_TOKEN));
+		}
+		return new CachingTokenVerifier(new HmacJwtVerifier(secret.getBytes(StandardCharsets.UTF_8), objectMapper),
+				cacheManager.addCacheIfAbsent(VERIFIED_TOKENS));
+	}
+}
@@ -3,9 +3,14 @@ package se.mebe.config;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.springframework.stereotype.Component;
 
+import se.mebe.async.ResourceExecutor;
 import se.mebe.converter.EntityConverter;
+import se.mebe.exception.StaleVersionExceptionMapper;
 import se.mebe.filter.AuthorizationRequestFilter;
+import se.mebe.metrics.QueryCountListener;
+import se.mebe.metrics.RequestMetricsListener;
 import se.mebe.resource.IssueResource;
+import se.mebe.resource.StatsResource;
 import se.mebe.resource.TeamResource;
 import se.mebe.resource.UserResource;
 import se.mebe.resource.WorkItemResource;
@@ -17,7 +22,7 @@ import se.springdata.service.WorkitemService;
 
 @Component
 public final class JerseyConfig extends ResourceConfig {
-	public JerseyConfig() {
+	public JerseyConfig(ResourceExecutor resourceExecutor) {
 		register(UserResource.class);
 		register(UserService.class);
 		register(EntityConverter.class);
@@ -27,8 +32,13 @@ public final class JerseyConfig extends ResourceConfig {
 		register(WorkitemService.class);
 		register(IssueResource.class);
 		register(IssueService.class);
+		register(StatsResource.class);
 		register(IssueRepository.class);
 		register(AuthorizationRequestFilter.class);
+		register(StaleVersionExceptionMapper.class);
+		register(RequestMetricsListener.class);
+		register(QueryCountListener.class);
+		register(resourceExecutor);
 
 	}
 
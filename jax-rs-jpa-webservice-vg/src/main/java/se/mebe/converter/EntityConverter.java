@@ -13,10 +13,15 @@ public final class EntityConverter {
 
 	public se.mebe.model.User convertToRestUser(se.springdata.model.User user) {
 		se.mebe.model.User newUser = new se.mebe.model.User(user.getId(), user.getFirstName(), user.getLastName(),
-				user.getUserName(), user.getUserStatus(), user.getUserNumber());
+				user.getUserName(), user.getUserNumber(), user.getUserStatus());
 		return newUser;
 	}
 
+	public se.mebe.model.User convertToRestUser(se.springdata.view.UserView user) {
+		return new se.mebe.model.User(user.getId(), user.getFirstName(), user.getLastName(), user.getUserName(),
+				user.getUserNumber(), user.getUserStatus(), user.getVersion());
+	}
+
 	public static se.springdata.model.Team convertToJpaTeam(se.mebe.model.Team team) {
 		se.springdata.model.Team newTeam = new se.springdata.model.Team(team.getTeamName(), team.getTeamStatus());
 		return newTeam;
@@ -27,6 +32,10 @@ public final class EntityConverter {
 		return newTeam;
 	}
 
+	public se.mebe.model.Team convertToRestTeam(se.springdata.view.TeamView team) {
+		return new se.mebe.model.Team(team.getId(), team.getTeamName(), team.getTeamStatus(), team.getVersion());
+	}
+
 	public static se.springdata.model.Workitem convertToWorkItemEntity(se.mebe.model.WorkItem workItem) {
 		se.springdata.model.Workitem newWorkItem = new se.springdata.model.Workitem(workItem.getTitle(),
 				workItem.getDescription(), workItem.getStatus());
@@ -35,10 +44,31 @@ public final class EntityConverter {
 
 	public se.mebe.model.WorkItem convertToRestWorkItem(se.springdata.model.Workitem workItem) {
 		se.mebe.model.WorkItem newWorkItem = new se.mebe.model.WorkItem(workItem.getId(), workItem.getTitle(),
-				workItem.getDescription(), workItem.getStatus());
+				workItem.getDescription(), workItem.getStatus(), workItem.getVersion());
 		return newWorkItem;
 	}
 
+	public se.mebe.model.WorkItem convertToRestWorkItem(se.springdata.view.WorkitemView workItem) {
+		return new se.mebe.model.WorkItem(workItem.getId(), workItem.getTitle(), workItem.getDescription(),
+				workItem.getStatus(), workItem.getVersion());
+	}
+
+	public se.mebe.model.StatusChange convertToRestStatusChange(se.springdata.service.StatusChange change) {
+		return new se.mebe.model.StatusChange(change.getStatus(), change.getChanged(), change.getUnchanged(),
+				change.getMissing());
+	}
+
+	public se.mebe.model.CacheStats convertToRestCacheStats(se.springdata.service.CacheStatistics region) {
+		return new se.mebe.model.CacheStats(region.getRegion(), region.getHits(), region.getMisses(),
+				region.getHitRatio(), region.getSize(), region.getMaxEntries(), region.getTimeToLiveSeconds());
+	}
+
+	public se.mebe.model.PoolStats convertToRestPoolStats(se.springdata.statistics.PoolStatistics pool) {
+		return new se.mebe.model.PoolStats(pool.getPool(), pool.getMaximumPoolSize(), pool.getMinimumIdle(),
+				pool.getTotal(), pool.getActive(), pool.getIdle(), pool.getPendingThreads(), pool.getAcquisitions(),
+				pool.getMeanAcquireMicros(), pool.getMaxAcquireMicros(), pool.getTimeouts());
+	}
+
 	public static se.springdata.model.Issue convertToJpaIssue(se.mebe.model.Issue issue) {
 		se.springdata.model.Issue newIssue = new se.springdata.model.Issue(issue.getAnswer(), issue.getIssueReason());
 		return newIssue;
@@ -0,0 +1,21 @@
+package se.mebe.exception;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import se.mebe.conditional.IfMatch;
+import se.springdata.exception.StaleVersionException;
+
+@Provider
+public final class StaleVersionExceptionMapper implements ExceptionMapper<StaleVersionException> {
+
+	@Override
+	public Response toResponse(StaleVersionException exception) {
+		return Response.status(Status.PRECONDITION_FAILED).tag(IfMatch.tag(exception.getCurrentVersion()))
+				.entity(exception.getMessage()).type(MediaType.TEXT_PLAIN).build();
+	}
+
+}
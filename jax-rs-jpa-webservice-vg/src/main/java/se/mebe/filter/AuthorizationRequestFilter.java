@@ -4,6 +4,7 @@ import java.io.IOException;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.ext.Provider;
 import org.springframework.stereotype.Component;
@@ -13,16 +14,28 @@ import org.springframework.stereotype.Component;
 public final class AuthorizationRequestFilter implements ContainerRequestFilter {
 
 	public static final String AUTH_TOKEN = "DarkSwan";
-	private String authHeader;
+
+	private static final String BEARER = "Bearer ";
+
+	private final TokenVerifier tokenVerifier;
+
+	public AuthorizationRequestFilter(TokenVerifier tokenVerifier) {
+		this.tokenVerifier = tokenVerifier;
+	}
 
 	@Override
 	public void filter(ContainerRequestContext requestContext) throws IOException {
 
-	        authHeader = requestContext.getHeaderString("Authorization");
+		String authHeader = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
 
-		if (authHeader == null || !authHeader.equalsIgnoreCase(AUTH_TOKEN)) {
+		if (authHeader == null || tokenVerifier.verify(token(authHeader)) == TokenVerifier.REJECTED) {
 			throw new WebApplicationException(Status.UNAUTHORIZED);
 		}
 
 	}
+
+	private static String token(String authHeader) {
+		return authHeader.regionMatches(true, 0, BEARER, 0, BEARER.length())
+				? authHeader.substring(BEARER.length()).trim() : authHeader;
+	}
 }
@@ -0,0 +1,62 @@
+package se.mebe.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+
+/**
+ * Remembers the tokens another verifier has accepted, in a bounded cache
+ * region, so a client repeating its token skips the signature check. Entries
+ * are keyed by the SHA-256 of the token, never the token itself, and live no
+ * longer than the token or the region time to live. Rejections are not
+ * cached, so a flood of bad tokens cannot push out the good ones.
+ */
+public final class CachingTokenVerifier implements TokenVerifier {
+
+	private final TokenVerifier verifier;
+	private final Ehcache verified;
+	private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(CachingTokenVerifier::sha256);
+
+	public CachingTokenVerifier(TokenVerifier verifier, Ehcache verified) {
+		this.verifier = verifier;
+		this.verified = verified;
+	}
+
+	@Override
+	public long verify(String token) {
+		String key = Base64.getEncoder().encodeToString(digests.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+		long now = System.currentTimeMillis();
+
+		Element element = verified.get(key);
+		if (element != null) {
+			long expires = (Long) element.getObjectValue();
+			if (expires > now) {
+				return expires;
+			}
+			verified.remove(key);
+		}
+
+		long expires = verifier.verify(token);
+		if (expires - now >= 1000) {
+			Element accepted = new Element(key, expires);
+			long regionSeconds = verified.getCacheConfiguration().getTimeToLiveSeconds();
+			long tokenSeconds = (expires - now) / 1000;
+			if (regionSeconds == 0 || tokenSeconds < regionSeconds) {
+				accepted.setTimeToLive((int) Math.min(tokenSeconds, Integer.MAX_VALUE));
+			}
+			verified.put(accepted);
+		}
+		return expires;
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package se.mebe.filter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Accepts JSON Web Tokens signed with HMAC-SHA256 and the shared secret. The
+ * header must name {@code HS256}, so an unsigned token ({@code "alg": "none"})
+ * is never accepted, and the signature is compared in constant time. The
+ * optional {@code exp} and {@code nbf} claims are honoured; other claims are
+ * not looked at.
+ */
+public final class HmacJwtVerifier implements TokenVerifier {
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private final SecretKeySpec key;
+	private final ObjectMapper objectMapper;
+	private final ThreadLocal<Mac> macs;
+
+	public HmacJwtVerifier(byte[] secret, ObjectMapper objectMapper) {
+		this.key = new SecretKeySpec(secret, ALGORITHM);
+		this.objectMapper = objectMapper;
+		this.macs = ThreadLocal.withInitial(this::newMac);
+	}
+
+	@Override
+	public long verify(String token) {
+		int headerEnd = token.indexOf('.');
+		int payloadEnd = token.indexOf('.', headerEnd + 1);
+		if (headerEnd <= 0 || payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+			return REJECTED;
+		}
+		try {
+			Base64.Decoder decoder = Base64.getUrlDecoder();
+			byte[] signature = decoder.decode(token.substring(payloadEnd + 1));
+			byte[] expected = macs.get().doFinal(token.substring(0, payloadEnd).getBytes(StandardCharsets.US_ASCII));
+			if (!MessageDigest.isEqual(expected, signature)) {
+				return REJECTED;
+			}
+
+			JsonNode header = objectMapper.readTree(decoder.decode(token.substring(0, headerEnd)));
+			if (!"HS256".equals(header.path("alg").asText())) {
+				return REJECTED;
+			}
+			return expiry(objectMapper.readTree(decoder.decode(token.substring(headerEnd + 1, payloadEnd))));
+
+		} catch (IllegalArgumentException | IOException e) {
+			return REJECTED;
+		}
+	}
+
+	private static long expiry(JsonNode claims) {
+		long now = System.currentTimeMillis();
+		JsonNode notBefore = claims.get("nbf");
+		if (notBefore != null && (!notBefore.canConvertToLong() || notBefore.asLong() * 1000 > now)) {
+			return REJECTED;
+		}
+		JsonNode expires = claims.get("exp");
+		if (expires == null) {
+			return Long.MAX_VALUE;
+		}
+		if (!expires.canConvertToLong() || expires.asLong() * 1000 <= now) {
+			return REJECTED;
+		}
+		return expires.asLong() * 1000;
+	}
+
+	private Mac newMac() {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+			return mac;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot sign with " + ALGORITHM, e);
+		}
+	}
+}
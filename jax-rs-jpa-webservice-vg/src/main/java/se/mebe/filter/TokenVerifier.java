@@ -0,0 +1,21 @@
+package se.mebe.filter;
+
+/**
+ * Decides whether the token of a request is accepted.
+ * {@link AuthorizationRequestFilter} asks the verifier configured in
+ * {@link se.mebe.config.AuthConfig}; implementations are called concurrently
+ * and must not keep per-request state.
+ */
+@FunctionalInterface
+public interface TokenVerifier {
+
+	/** Returned by {@link #verify(String)} for a token that is not accepted. */
+	long REJECTED = -1L;
+
+	/**
+	 * Returns the time, in epoch milliseconds, until which {@code token} stays
+	 * valid, {@link Long#MAX_VALUE} if it does not expire, or
+	 * {@link #REJECTED}.
+	 */
+	long verify(String token);
+}
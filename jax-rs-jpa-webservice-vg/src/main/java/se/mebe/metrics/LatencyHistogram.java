@@ -0,0 +1,109 @@
+package se.mebe.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in microseconds. Every power of two is
+ * split into eight buckets, so a reported quantile is at most an eighth
+ * above the true value, whatever its magnitude, in a few kilobytes per
+ * histogram. It counts everything since startup; rates and windows are left
+ * to the scraper, which gets the cumulative counts of {@link #BOUNDS} for that.
+ */
+public final class LatencyHistogram {
+
+	/** Upper bounds, in microseconds, of the buckets exposed to the scraper. */
+	static final long[] BOUNDS = { 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+			1_000_000, 2_500_000, 5_000_000, 10_000_000 };
+
+	private static final int LINEAR = 16;
+	private static final int SUB_BUCKETS = 8;
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKETS = LINEAR + (MAX_EXPONENT - 4) * SUB_BUCKETS + 1;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLongArray bounded = new AtomicLongArray(BOUNDS.length);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public void record(long micros) {
+		long value = Math.max(micros, 0);
+		buckets.incrementAndGet(index(value));
+		for (int i = 0; i < BOUNDS.length; i++) {
+			if (value <= BOUNDS[i]) {
+				bounded.incrementAndGet(i);
+				break;
+			}
+		}
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * The smallest recorded duration at least {@code quantile} of all
+	 * durations are not above, within the bucket precision; 0 when empty.
+	 */
+	public long quantile(double quantile) {
+		long total = 0;
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/** Number of durations not above each of {@link #BOUNDS}. */
+	long[] cumulativeCounts() {
+		long[] cumulative = new long[BOUNDS.length];
+		long seen = 0;
+		for (int i = 0; i < BOUNDS.length; i++) {
+			seen += bounded.get(i);
+			cumulative[i] = seen;
+		}
+		return cumulative;
+	}
+
+	private static int index(long value) {
+		if (value < LINEAR) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if (exponent >= MAX_EXPONENT) {
+			return BUCKETS - 1;
+		}
+		int mantissa = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+		return LINEAR + (exponent - 4) * SUB_BUCKETS + mantissa;
+	}
+
+	private static long upperBound(int index) {
+		if (index < LINEAR) {
+			return index;
+		}
+		int exponent = (index - LINEAR) / SUB_BUCKETS + 4;
+		int mantissa = (index - LINEAR) % SUB_BUCKETS;
+		return ((SUB_BUCKETS + mantissa + 1L) << (exponent - 3)) - 1;
+	}
+}
@@ -0,0 +1,99 @@
+package se.mebe.metrics;
+
+import java.util.List;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import se.springdata.statistics.QueryCount;
+import se.springdata.statistics.QueryCounter;
+
+/**
+ * Counts the JDBC statements, entity loads and collection initializations of
+ * every request from the moment its resource method starts, on whichever
+ * thread it runs, until the response is written. A request over the
+ * statement budget is logged; with {@code taskmanager.query-count.headers}
+ * on, the counts so far are also sent as response headers.
+ */
+@Component
+@Provider
+public final class QueryCountListener implements ApplicationEventListener {
+
+	public static final String STATEMENTS = "X-Query-Statements";
+	public static final String ENTITIES = "X-Query-Entities";
+	public static final String COLLECTIONS = "X-Query-Collections";
+
+	private static final Logger LOG = LoggerFactory.getLogger(QueryCountListener.class);
+
+	private final boolean headers;
+	private final int statementBudget;
+
+	public QueryCountListener(@Value("${taskmanager.query-count.headers:false}") boolean headers,
+			@Value("${taskmanager.query-count.statement-budget:10}") int statementBudget) {
+		this.headers = headers;
+		this.statementBudget = statementBudget;
+	}
+
+	@Override
+	public void onEvent(ApplicationEvent event) {
+	}
+
+	@Override
+	public RequestEventListener onRequest(RequestEvent requestEvent) {
+		return new Counter();
+	}
+
+	/** {@code GET /items/team/{teamId}}, the way the resource declares it. */
+	static String name(RequestEvent event) {
+		List<UriTemplate> templates = event.getUriInfo().getMatchedTemplates();
+		StringBuilder path = new StringBuilder();
+		for (int i = templates.size() - 1; i >= 0; i--) {
+			String template = templates.get(i).getTemplate();
+			if (!template.isEmpty() && !template.equals("/")) {
+				path.append(template.startsWith("/") ? "" : "/").append(template);
+			}
+		}
+		return event.getContainerRequest().getMethod() + ' ' + path;
+	}
+
+	private final class Counter implements RequestEventListener {
+
+		private QueryCount count;
+
+		@Override
+		public void onEvent(RequestEvent event) {
+			switch (event.getType()) {
+			case RESOURCE_METHOD_START:
+				count = QueryCounter.start(name(event));
+				break;
+			case RESP_FILTERS_START:
+				if (headers && count != null) {
+					MultivaluedMap<String, Object> response = event.getContainerResponse().getHeaders();
+					response.putSingle(STATEMENTS, count.getStatements());
+					response.putSingle(ENTITIES, count.getEntities());
+					response.putSingle(COLLECTIONS, count.getCollections());
+				}
+				break;
+			case FINISHED:
+				if (count != null) {
+					QueryCounter.finish(count);
+					if (count.getStatements() > statementBudget) {
+						LOG.warn("{} ran {} statements, over the budget of {}: {} entities loaded, {} collections "
+								+ "initialized", count.getName(), count.getStatements(), statementBudget,
+								count.getEntities(), count.getCollections());
+					}
+				}
+				break;
+			default:
+				break;
+			}
+		}
+	}
+}
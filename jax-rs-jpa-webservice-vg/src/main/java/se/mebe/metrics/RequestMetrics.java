@@ -0,0 +1,128 @@
+package se.mebe.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency, in-flight and error figures of every resource method, filled in by
+ * {@link RequestMetricsListener} and written in the Prometheus text format
+ * for {@code GET /stats/metrics}. A method appears once it has been called.
+ */
+@Component
+public class RequestMetrics {
+
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4";
+
+	private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+
+	private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+	public Endpoint endpoint(Class<?> resource, String name) {
+		return endpoints.computeIfAbsent(resource.getSimpleName() + '.' + name,
+				key -> new Endpoint(resource.getSimpleName(), name));
+	}
+
+	public String scrape() {
+		Map<String, Endpoint> sorted = new TreeMap<>(endpoints);
+		StringBuilder out = new StringBuilder(256 + sorted.size() * 1536);
+
+		out.append("# HELP taskmanager_request_duration_seconds Time from request to response per resource method.\n");
+		out.append("# TYPE taskmanager_request_duration_seconds histogram\n");
+		for (Endpoint endpoint : sorted.values()) {
+			long[] cumulative = endpoint.latency.cumulativeCounts();
+			for (int i = 0; i < cumulative.length; i++) {
+				sample(out, "taskmanager_request_duration_seconds_bucket", endpoint, "le",
+						seconds(LatencyHistogram.BOUNDS[i]), cumulative[i]);
+			}
+			sample(out, "taskmanager_request_duration_seconds_bucket", endpoint, "le", "+Inf",
+					endpoint.latency.getCount());
+			sample(out, "taskmanager_request_duration_seconds_sum", endpoint, endpoint.latency.getSum() / 1e6);
+			sample(out, "taskmanager_request_duration_seconds_count", endpoint, endpoint.latency.getCount());
+		}
+
+		out.append("# HELP taskmanager_request_duration_quantile_seconds Latency quantiles since startup.\n");
+		out.append("# TYPE taskmanager_request_duration_quantile_seconds gauge\n");
+		for (Endpoint endpoint : sorted.values()) {
+			for (double quantile : QUANTILES) {
+				sample(out, "taskmanager_request_duration_quantile_seconds", endpoint, "quantile",
+						Double.toString(quantile), endpoint.latency.quantile(quantile) / 1e6);
+			}
+		}
+
+		out.append("# HELP taskmanager_requests_in_flight Requests being handled per resource method.\n");
+		out.append("# TYPE taskmanager_requests_in_flight gauge\n");
+		for (Endpoint endpoint : sorted.values()) {
+			sample(out, "taskmanager_requests_in_flight", endpoint, endpoint.inFlight.get());
+		}
+
+		out.append("# HELP taskmanager_request_errors_total Failed requests by mapper or exception.\n");
+		out.append("# TYPE taskmanager_request_errors_total counter\n");
+		for (Endpoint endpoint : sorted.values()) {
+			new TreeMap<>(endpoint.errors).forEach((exception, errors) -> sample(out,
+					"taskmanager_request_errors_total", endpoint, "exception", exception, errors.sum()));
+		}
+		return out.toString();
+	}
+
+	private static void sample(StringBuilder out, String name, Endpoint endpoint, Number value) {
+		sample(out, name, endpoint, null, null, value);
+	}
+
+	private static void sample(StringBuilder out, String name, Endpoint endpoint, String label, String labelValue,
+			Number value) {
+		out.append(name).append("{resource=\"").append(endpoint.resource).append("\",method=\"").append(endpoint.name);
+		if (label != null) {
+			out.append("\",").append(label).append("=\"").append(labelValue);
+		}
+		out.append("\"} ").append(value).append('\n');
+	}
+
+	private static String seconds(long micros) {
+		return Double.toString(micros / 1e6);
+	}
+
+	/** Figures of one resource method. */
+	public static final class Endpoint {
+
+		private final String resource;
+		private final String name;
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+		private Endpoint(String resource, String name) {
+			this.resource = resource;
+			this.name = name;
+		}
+
+		public void started() {
+			inFlight.incrementAndGet();
+		}
+
+		public void finished(long micros, String error) {
+			inFlight.decrementAndGet();
+			latency.record(micros);
+			if (error != null) {
+				errors.computeIfAbsent(error, key -> new LongAdder()).increment();
+			}
+		}
+
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		public int getInFlight() {
+			return inFlight.get();
+		}
+
+		public long getErrors(String error) {
+			LongAdder count = errors.get(error);
+			return count == null ? 0 : count.sum();
+		}
+	}
+}
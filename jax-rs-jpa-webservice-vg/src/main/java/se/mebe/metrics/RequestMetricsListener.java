@@ -0,0 +1,90 @@
+package se.mebe.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.ext.Provider;
+import org.glassfish.jersey.server.internal.process.MappableException;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.springframework.stereotype.Component;
+import se.mebe.resource.UserResource;
+
+/**
+ * Times every request that matched a method of a resource in
+ * {@code se.mebe.resource}, from the moment Jersey sees it until the response
+ * is written, so time queued for the resource executor is included. A
+ * request that fails is counted under the exception mapper that answered it,
+ * or under the exception itself when Jersey answered it without a mapper.
+ */
+@Component
+@Provider
+public final class RequestMetricsListener implements ApplicationEventListener {
+
+	private static final String RESOURCE_PACKAGE = UserResource.class.getPackage().getName();
+
+	private final RequestMetrics metrics;
+
+	public RequestMetricsListener(RequestMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void onEvent(ApplicationEvent event) {
+	}
+
+	@Override
+	public RequestEventListener onRequest(RequestEvent requestEvent) {
+		return new Timer(System.nanoTime());
+	}
+
+	private static Throwable cause(Throwable exception) {
+		Throwable cause = exception;
+		while (cause instanceof MappableException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause;
+	}
+
+	private final class Timer implements RequestEventListener {
+
+		private final long start;
+		private RequestMetrics.Endpoint endpoint;
+		private String error;
+
+		private Timer(long start) {
+			this.start = start;
+		}
+
+		@Override
+		public void onEvent(RequestEvent event) {
+			switch (event.getType()) {
+			case REQUEST_MATCHED:
+				ResourceMethod matched = event.getUriInfo().getMatchedResourceMethod();
+				Method handler = matched == null ? null : matched.getInvocable().getDefinitionMethod();
+				if (handler != null && handler.getDeclaringClass().getPackage().getName().equals(RESOURCE_PACKAGE)) {
+					endpoint = metrics.endpoint(handler.getDeclaringClass(), handler.getName());
+					endpoint.started();
+				}
+				break;
+			case ON_EXCEPTION:
+				if (error == null) {
+					error = cause(event.getException()).getClass().getSimpleName();
+				}
+				break;
+			case EXCEPTION_MAPPER_FOUND:
+				error = event.getExceptionMapper().getClass().getSimpleName();
+				break;
+			case FINISHED:
+				if (endpoint != null) {
+					endpoint.finished(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), error);
+				}
+				break;
+			default:
+				break;
+			}
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package se.mebe.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(Include.NON_NULL)
+public final class BatchItemResult {
+
+	private final int index;
+	private final int status;
+	private final Long id;
+	private final String location;
+	private final String message;
+
+	public BatchItemResult(@JsonProperty("index") int index, @JsonProperty("status") int status,
+			@JsonProperty("id") Long id, @JsonProperty("location") String location,
+			@JsonProperty("message") String message) {
+		this.index = index;
+		this.status = status;
+		this.id = id;
+		this.location = location;
+		this.message = message;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchItemResult [index=" + index + ", status=" + status + ", id=" + id + ", location=" + location
+				+ ", message=" + message + "]";
+	}
+
+}
@@ -0,0 +1,61 @@
+package se.mebe.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public final class CacheStats {
+
+	private final String region;
+	private final long hits;
+	private final long misses;
+	private final double hitRatio;
+	private final long size;
+	private final long maxEntries;
+	private final long timeToLiveSeconds;
+
+	public CacheStats(@JsonProperty("region") String region, @JsonProperty("hits") long hits,
+			@JsonProperty("misses") long misses, @JsonProperty("hitRatio") double hitRatio,
+			@JsonProperty("size") long size, @JsonProperty("maxEntries") long maxEntries,
+			@JsonProperty("timeToLiveSeconds") long timeToLiveSeconds) {
+		this.region = region;
+		this.hits = hits;
+		this.misses = misses;
+		this.hitRatio = hitRatio;
+		this.size = size;
+		this.maxEntries = maxEntries;
+		this.timeToLiveSeconds = timeToLiveSeconds;
+	}
+
+	public String getRegion() {
+		return region;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public double getHitRatio() {
+		return hitRatio;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getTimeToLiveSeconds() {
+		return timeToLiveSeconds;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats [region=" + region + ", hits=" + hits + ", misses=" + misses + ", hitRatio=" + hitRatio
+				+ ", size=" + size + ", maxEntries=" + maxEntries + ", timeToLiveSeconds=" + timeToLiveSeconds + "]";
+	}
+}
@@ -0,0 +1,62 @@
+package se.mebe.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public final class ExecutorStats {
+
+	private final int threads;
+	private final int active;
+	private final int queued;
+	private final int queueCapacity;
+	private final long completed;
+	private final long rejected;
+	private final long timedOut;
+
+	public ExecutorStats(@JsonProperty("threads") int threads, @JsonProperty("active") int active,
+			@JsonProperty("queued") int queued, @JsonProperty("queueCapacity") int queueCapacity,
+			@JsonProperty("completed") long completed, @JsonProperty("rejected") long rejected,
+			@JsonProperty("timedOut") long timedOut) {
+		this.threads = threads;
+		this.active = active;
+		this.queued = queued;
+		this.queueCapacity = queueCapacity;
+		this.completed = completed;
+		this.rejected = rejected;
+		this.timedOut = timedOut;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getActive() {
+		return active;
+	}
+
+	public int getQueued() {
+		return queued;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public long getCompleted() {
+		return completed;
+	}
+
+	public long getRejected() {
+		return rejected;
+	}
+
+	public long getTimedOut() {
+		return timedOut;
+	}
+
+	@Override
+	public String toString() {
+		return "ExecutorStats [threads=" + threads + ", active=" + active + ", queued=" + queued + ", queueCapacity="
+				+ queueCapacity + ", completed=" + completed + ", rejected=" + rejected + ", timedOut=" + timedOut
+				+ "]";
+	}
+}
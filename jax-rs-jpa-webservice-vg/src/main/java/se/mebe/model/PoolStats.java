@@ -0,0 +1,89 @@
+package se.mebe.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public final class PoolStats {
+
+	private final String pool;
+	private final int maximumPoolSize;
+	private final int minimumIdle;
+	private final int total;
+	private final int active;
+	private final int idle;
+	private final int pendingThreads;
+	private final long acquisitions;
+	private final long meanAcquireMicros;
+	private final long maxAcquireMicros;
+	private final long timeouts;
+
+	public PoolStats(@JsonProperty("pool") String pool, @JsonProperty("maximumPoolSize") int maximumPoolSize,
+			@JsonProperty("minimumIdle") int minimumIdle, @JsonProperty("total") int total,
+			@JsonProperty("active") int active, @JsonProperty("idle") int idle,
+			@JsonProperty("pendingThreads") int pendingThreads, @JsonProperty("acquisitions") long acquisitions,
+			@JsonProperty("meanAcquireMicros") long meanAcquireMicros,
+			@JsonProperty("maxAcquireMicros") long maxAcquireMicros, @JsonProperty("timeouts") long timeouts) {
+		this.pool = pool;
+		this.maximumPoolSize = maximumPoolSize;
+		this.minimumIdle = minimumIdle;
+		this.total = total;
+		this.active = active;
+		this.idle = idle;
+		this.pendingThreads = pendingThreads;
+		this.acquisitions = acquisitions;
+		this.meanAcquireMicros = meanAcquireMicros;
+		this.maxAcquireMicros = maxAcquireMicros;
+		this.timeouts = timeouts;
+	}
+
+	public String getPool() {
+		return pool;
+	}
+
+	public int getMaximumPoolSize() {
+		return maximumPoolSize;
+	}
+
+	public int getMinimumIdle() {
+		return minimumIdle;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public int getActive() {
+		return active;
+	}
+
+	public int getIdle() {
+		return idle;
+	}
+
+	public int getPendingThreads() {
+		return pendingThreads;
+	}
+
+	public long getAcquisitions() {
+		return acquisitions;
+	}
+
+	public long getMeanAcquireMicros() {
+		return meanAcquireMicros;
+	}
+
+	public long getMaxAcquireMicros() {
+		return maxAcquireMicros;
+	}
+
+	public long getTimeouts() {
+		return timeouts;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolStats [pool=" + pool + ", maximumPoolSize=" + maximumPoolSize + ", minimumIdle=" + minimumIdle
+				+ ", total=" + total + ", active=" + active + ", idle=" + idle + ", pendingThreads=" + pendingThreads
+				+ ", acquisitions=" + acquisitions + ", meanAcquireMicros=" + meanAcquireMicros
+				+ ", maxAcquireMicros=" + maxAcquireMicros + ", timeouts=" + timeouts + "]";
+	}
+}
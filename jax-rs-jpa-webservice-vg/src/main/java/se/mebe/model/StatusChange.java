@@ -0,0 +1,45 @@
+package se.mebe.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import se.springdata.model.Status;
+
+public final class StatusChange {
+
+	private final Status status;
+	private final List<Long> changed;
+	private final List<Long> unchanged;
+	private final List<Long> missing;
+
+	public StatusChange(@JsonProperty("status") Status status, @JsonProperty("changed") List<Long> changed,
+			@JsonProperty("unchanged") List<Long> unchanged, @JsonProperty("missing") List<Long> missing) {
+		this.status = status;
+		this.changed = changed;
+		this.unchanged = unchanged;
+		this.missing = missing;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public List<Long> getChanged() {
+		return changed;
+	}
+
+	public List<Long> getUnchanged() {
+		return unchanged;
+	}
+
+	public List<Long> getMissing() {
+		return missing;
+	}
+
+	@Override
+	public String toString() {
+		return "StatusChange [status=" + status + ", changed=" + changed + ", unchanged=" + unchanged + ", missing="
+				+ missing + "]";
+	}
+}
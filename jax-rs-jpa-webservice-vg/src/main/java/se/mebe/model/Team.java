@@ -7,12 +7,18 @@ public final class Team {
 	private long id;
 	private final String teamName;
 	private final String teamStatus;
+	private final Long version;
+
+	public Team(long id, String teamName, String teamStatus) {
+		this(id, teamName, teamStatus, null);
+	}
 
 	public Team(@JsonProperty("id") long id, @JsonProperty("teamName") String teamName,
-			@JsonProperty("teamStatus") String teamStatus) {
+			@JsonProperty("teamStatus") String teamStatus, @JsonProperty("version") Long version) {
 		this.id = id;
 		this.teamName = teamName;
 		this.teamStatus = teamStatus;
+		this.version = version;
 	}
 
 	public String getTeamName() {
@@ -27,6 +33,10 @@ public final class Team {
 		return id;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
 	@Override
 	public String toString() {
 		return "Team [id=" + id + ", teamName=" + teamName + ", teamStatus=" + teamStatus + "]";
@@ -10,10 +10,15 @@ public final class User {
 	private final String lastName;
 	private final String userName;
 	private final String userState;
+	private final Long version;
+
+	public User(long id, String firstName, String lastName, String userName, String userNumber, String userState) {
+		this(id, firstName, lastName, userName, userNumber, userState, null);
+	}
 
 	public User(@JsonProperty("id") long id, @JsonProperty("firstName") String firstName, @JsonProperty("lastName") String lastName,
 			@JsonProperty("userName") String userName, @JsonProperty("userNumber") String userNumber,
-			@JsonProperty("userState") String userState) {
+			@JsonProperty("userState") String userState, @JsonProperty("version") Long version) {
 
 		this.id = id;
 		this.userNumber = userNumber;
@@ -21,6 +26,7 @@ public final class User {
 		this.lastName = lastName;
 		this.userName = userName;
 		this.userState = userState;
+		this.version = version;
 	}
 
 	public Long getId() {
@@ -47,6 +53,10 @@ public final class User {
 		return userState;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
 	@Override
 	public String toString() {
 		return "User [id=" + id + ", firstName=" + firstName + ", lastName=" + lastName + ", userName=" + userName
@@ -10,13 +10,20 @@ public final class WorkItem {
 	private final String title;
 	private final String description;
 	private final Status status;
+	private final Long version;
+
+	public WorkItem(long id, String title, String description, Status status) {
+		this(id, title, description, status, null);
+	}
 
 	public WorkItem(@JsonProperty("id") long id, @JsonProperty("title") String title,
-			@JsonProperty("description") String description, @JsonProperty("status") Status status) {
+			@JsonProperty("description") String description, @JsonProperty("status") Status status,
+			@JsonProperty("version") Long version) {
 		this.id = id;
 		this.title = title;
 		this.description = description;
 		this.status = status;
+		this.version = version;
 	}
 
 	public String getTitle() {
@@ -35,6 +42,10 @@ public final class WorkItem {
 		return id;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
 	@Override
 	public String toString() {
 		return "WorkItem [id=" + id + ", title=" + title + ", description=" + description + ", status=" + status + "]";
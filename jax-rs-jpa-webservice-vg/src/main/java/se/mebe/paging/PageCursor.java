@@ -0,0 +1,85 @@
+package se.mebe.paging;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import se.mebe.exception.BadMessageException;
+
+/**
+ * Keyset pagination for the list endpoints. The {@code after} token is an
+ * opaque encoding of the last id on the previous page, and every page is read
+ * with {@code where id > ? order by id} limited to {@code limit + 1} rows so
+ * the extra row tells whether a {@code Link: rel=next} header is needed.
+ */
+public final class PageCursor {
+
+	public static final String DEFAULT_LIMIT = "50";
+	public static final int MAX_LIMIT = 500;
+
+	private static final String PREFIX = "id:";
+
+	private PageCursor() {
+	}
+
+	public static long decode(String after) throws BadMessageException {
+		if (after == null || after.isEmpty()) {
+			return 0L;
+		}
+		try {
+			String token = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+			if (!token.startsWith(PREFIX)) {
+				throw new BadMessageException("The page token is not valid: " + after);
+			}
+			return Long.parseLong(token.substring(PREFIX.length()));
+		} catch (IllegalArgumentException e) {
+			throw new BadMessageException("The page token is not valid: " + after);
+		}
+	}
+
+	public static String encode(long lastId) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static int checkLimit(int limit) throws BadMessageException {
+		if (limit < 1 || limit > MAX_LIMIT) {
+			throw new BadMessageException("The limit must be between 1 and " + MAX_LIMIT);
+		}
+		return limit;
+	}
+
+	/**
+	 * The number of rows to ask the repository for, one more than the page
+	 * size.
+	 */
+	public static int fetchSize(int limit) {
+		return limit + 1;
+	}
+
+	public static <T> Response page(List<T> rows, int limit, ToLongFunction<T> idOf, UriInfo uriInfo,
+			MediaType mediaType) {
+		return page(rows, limit, idOf, uriInfo, mediaType, null);
+	}
+
+	/**
+	 * Same as {@link #page(List, int, ToLongFunction, UriInfo, MediaType)},
+	 * sending {@code tag} as the ETag of the page when it is not null.
+	 */
+	public static <T> Response page(List<T> rows, int limit, ToLongFunction<T> idOf, UriInfo uriInfo,
+			MediaType mediaType, EntityTag tag) {
+		if (rows.size() <= limit) {
+			return Response.ok(rows, mediaType).tag(tag).build();
+		}
+		List<T> page = rows.subList(0, limit);
+		URI next = uriInfo.getRequestUriBuilder()
+				.replaceQueryParam("after", encode(idOf.applyAsLong(page.get(limit - 1))))
+				.replaceQueryParam("limit", limit).build();
+		return Response.ok(page, mediaType).tag(tag).link(next, "next").build();
+	}
+}
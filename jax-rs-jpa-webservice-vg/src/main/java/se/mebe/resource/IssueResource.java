@@ -2,7 +2,6 @@ package se.mebe.resource;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
@@ -11,17 +10,21 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import org.glassfish.jersey.server.ManagedAsync;
 import org.springframework.stereotype.Component;
+import se.mebe.async.ResourceExecutor;
+import se.mebe.conditional.IfMatch;
 import se.mebe.converter.EntityConverter;
 import se.mebe.exception.BadMessageException;
 import se.springdata.exception.ServiceException;
 import se.springdata.repository.IssueRepository;
-import se.springdata.repository.WorkitemRepository;
 import se.springdata.service.IssueService;
 
 @Component
@@ -34,12 +37,7 @@ public final class IssueResource {
 	private final IssueService issueService;
 	private final EntityConverter entityConverter;
 	private final IssueRepository issueRepository;
-	private final WorkitemRepository workitemRepository;
-	private se.springdata.model.Issue newIssue;
-	private Collection<se.springdata.model.Workitem> items;
-	private se.mebe.model.WorkItem newItems;
-	private List<se.mebe.model.WorkItem> allItems;
-	private URI location;
+	private final ResourceExecutor executor;
 
 	@Context
 	private UriInfo uriIfno;
@@ -47,62 +45,68 @@ public final class IssueResource {
 	private HttpHeaders headers;
 
 	public IssueResource(IssueService issueService, EntityConverter entityConverter, IssueRepository issueRepository,
-			WorkitemRepository workitemRepository) {
+			ResourceExecutor executor) {
 		this.issueService = issueService;
 		this.entityConverter = entityConverter;
 		this.issueRepository = issueRepository;
-		this.workitemRepository = workitemRepository;
-		this.allItems = new ArrayList<>();
+		this.executor = executor;
 	}
 
 	@POST
+	@ManagedAsync
 	@Path("post/{id}")
-	public Response addIssue(se.mebe.model.Issue issue, @PathParam("id") long id)
-			throws ServiceException, BadMessageException {
-
-		if (!workitemRepository.findAllWorkitemsId().contains(id)) {
-			throw new BadMessageException("This work item id dosnt exist !!");
-
-		} else if (!issueRepository.findWorkitemStatusById(id).contains("DONE")) {
-			throw new BadMessageException("This workitem can't be assigned an issue because it is not done yet!");
-
-		} else {
-			newIssue = issueService.addAndAssignIssue(EntityConverter.convertToJpaIssue(issue), id);
-			location = uriIfno.getAbsolutePathBuilder().path(newIssue.getId().toString()).build();
-
-			return Response.created(location).build();
-		}
+	public void addIssue(@Suspended AsyncResponse response, se.mebe.model.Issue issue, @PathParam("id") long id) {
+		executor.complete(response, () -> {
+			se.springdata.model.Issue newIssue;
+			try {
+				newIssue = issueService.addAndAssignIssue(EntityConverter.convertToJpaIssue(issue), id);
+			} catch (ServiceException e) {
+				throw new BadMessageException(e.getMessage());
+			}
+			URI location = uriIfno.getAbsolutePathBuilder().path(newIssue.getId().toString()).build();
+
+			return Response.created(location).tag(IfMatch.tag(newIssue.getVersion())).build();
+		});
 	}
 
 	@PUT
+	@ManagedAsync
 	@Path("/update/{issueId}/{answer}/{newReason}")
-	public Response updateIssue(@PathParam("issueId") long issueId, @PathParam("answer") String answer,
-			@PathParam("newReason") String newReason) throws ServiceException, BadMessageException {
-
-		if (!issueRepository.exists(issueId)) {
-			throw new BadMessageException("This issues dosnt exist for update");
-
-		} else {
-			issueService.updateIssue(issueId, answer, newReason);
-			return Response.noContent().build();
-
-		}
+	public void updateIssue(@Suspended AsyncResponse response, @PathParam("issueId") long issueId,
+			@PathParam("answer") String answer, @PathParam("newReason") String newReason) {
+		executor.complete(response, () -> {
+			Long version = IfMatch.version(headers);
+			if (version != null) {
+				issueService.updateIssue(issueId, answer, newReason, version);
+				return Response.noContent().tag(IfMatch.tag(version + 1)).build();
+
+			} else if (!issueRepository.exists(issueId)) {
+				throw new BadMessageException("This issues dosnt exist for update");
+
+			} else {
+				issueService.updateIssue(issueId, answer, newReason);
+				return Response.noContent().build();
+
+			}
+		});
 	}
 
 	@GET
+	@ManagedAsync
 	@Path("all/items")
-	public Response findAllWorkItemsByIssue() throws ServiceException, BadMessageException {
-		if (issueRepository.findAllWorkitemFromIssue().isEmpty()) {
-			throw new BadMessageException("This issues has not work items !!");
-
-		} else {
-			items = issueService.getAllWorkItemByIssue();
-			items.forEach(item -> {
-				newItems = entityConverter.convertToRestWorkItem(item);
-				allItems.add(newItems);
-			});
-			return Response.ok(allItems, headers.getMediaType()).build();
-		}
+	public void findAllWorkItemsByIssue(@Suspended AsyncResponse response) {
+		executor.complete(response, () -> {
+			List<se.springdata.view.WorkitemView> items = issueService.getAllWorkItemByIssue();
+
+			if (items.isEmpty()) {
+				throw new BadMessageException("This issues has not work items !!");
+
+			} else {
+				List<se.mebe.model.WorkItem> allItems = new ArrayList<>(items.size());
+				items.forEach(item -> allItems.add(entityConverter.convertToRestWorkItem(item)));
+				return Response.ok(allItems, headers.getMediaType()).build();
+			}
+		});
 	}
 
 }
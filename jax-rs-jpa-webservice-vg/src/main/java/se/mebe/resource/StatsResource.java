@@ -0,0 +1,79 @@
+package se.mebe.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.springframework.stereotype.Component;
+import se.mebe.async.ResourceExecutor;
+import se.mebe.converter.EntityConverter;
+import se.mebe.metrics.RequestMetrics;
+import se.springdata.service.CacheStatistics;
+import se.springdata.service.CacheStatisticsService;
+import se.springdata.statistics.PoolMetrics;
+
+@Component
+@Path("/stats")
+@Produces({ MediaType.APPLICATION_JSON })
+
+public final class StatsResource {
+
+	private final CacheStatisticsService cacheStatisticsService;
+	private final EntityConverter entityConverter;
+	private final ResourceExecutor resourceExecutor;
+	private final RequestMetrics requestMetrics;
+	private final PoolMetrics poolMetrics;
+
+	public StatsResource(CacheStatisticsService cacheStatisticsService, EntityConverter entityConverter,
+			ResourceExecutor resourceExecutor, RequestMetrics requestMetrics, PoolMetrics poolMetrics) {
+		this.cacheStatisticsService = cacheStatisticsService;
+		this.entityConverter = entityConverter;
+		this.resourceExecutor = resourceExecutor;
+		this.requestMetrics = requestMetrics;
+		this.poolMetrics = poolMetrics;
+	}
+
+	@GET
+	@Path("/cache")
+	public Response getCacheStatistics() {
+		List<CacheStatistics> regions = cacheStatisticsService.getRegionStatistics();
+		List<se.mebe.model.CacheStats> stats = new ArrayList<>(regions.size());
+		regions.forEach(region -> stats.add(entityConverter.convertToRestCacheStats(region)));
+		return Response.ok(stats, MediaType.APPLICATION_JSON).build();
+	}
+
+	/**
+	 * Load of the executor the resources run on; answered on the container
+	 * thread, so it stays available when the executor is saturated.
+	 */
+	@GET
+	@Path("/executor")
+	public Response getExecutorStatistics() {
+		return Response.ok(resourceExecutor.getStatistics(), MediaType.APPLICATION_JSON).build();
+	}
+
+	/**
+	 * Connections of the database pool in use, idle and waited for, and the
+	 * time it took to borrow one.
+	 */
+	@GET
+	@Path("/pool")
+	public Response getPoolStatistics() {
+		return Response.ok(entityConverter.convertToRestPoolStats(poolMetrics.getStatistics()),
+				MediaType.APPLICATION_JSON).build();
+	}
+
+	/**
+	 * Latency histograms, in-flight requests and errors of every resource
+	 * method, in the Prometheus text format.
+	 */
+	@GET
+	@Path("/metrics")
+	@Produces(RequestMetrics.CONTENT_TYPE)
+	public Response getRequestMetrics() {
+		return Response.ok(requestMetrics.scrape(), RequestMetrics.CONTENT_TYPE).build();
+	}
+}
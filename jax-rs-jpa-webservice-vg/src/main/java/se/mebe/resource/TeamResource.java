@@ -2,27 +2,37 @@ package se.mebe.resource;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import org.glassfish.jersey.server.ManagedAsync;
 import org.springframework.stereotype.Component;
+import se.mebe.async.ResourceExecutor;
+import se.mebe.batch.BatchResponse;
+import se.mebe.conditional.IfMatch;
 import se.mebe.converter.EntityConverter;
 import se.mebe.exception.BadMessageException;
 import se.mebe.exception.ResourceException;
+import se.mebe.paging.PageCursor;
+import se.springdata.cache.CollectionVersions;
 import se.springdata.exception.ServiceException;
 import se.springdata.repository.TeamRepository;
-import se.springdata.repository.UserRepository;
 import se.springdata.service.TeamService;
 
 @Component
@@ -35,106 +45,151 @@ public final class TeamResource {
 	private final TeamService teamService;
 	private final EntityConverter entityConverter;
 	private final TeamRepository teamRepository;
-	private final UserRepository userRepository;
-	private Collection<se.springdata.model.Team> teams;
-	private List<se.mebe.model.Team> teamsJson;
-	private se.springdata.model.Team newTeam;
-	private se.mebe.model.Team allTeams;
-	private URI location;
+	private final CollectionVersions versions;
+	private final ResourceExecutor executor;
 
 	@Context
 	private UriInfo uriInfo;
 	@Context
 	private HttpHeaders headers;
+	@Context
+	private Request request;
 
 	public TeamResource(TeamService teamService, EntityConverter entityConverter, TeamRepository teamRepository,
-			UserRepository userRepository) {
+			CollectionVersions versions, ResourceExecutor executor) {
 		this.teamService = teamService;
 		this.entityConverter = entityConverter;
 		this.teamRepository = teamRepository;
-		this.userRepository = userRepository;
-		this.teamsJson = new ArrayList<>();
+		this.versions = versions;
+		this.executor = executor;
 	}
 
 	@POST
-	public Response addTeam(se.mebe.model.Team team) throws ServiceException {
-
-		newTeam = teamService.addTeam(EntityConverter.convertToJpaTeam(team));
-		location = uriInfo.getAbsolutePathBuilder().path(newTeam.getId().toString()).build();
+	@ManagedAsync
+	public void addTeam(@Suspended AsyncResponse response, se.mebe.model.Team team) {
+		executor.complete(response, () -> {
+			se.springdata.model.Team newTeam = teamService.addTeam(EntityConverter.convertToJpaTeam(team));
+			URI location = uriInfo.getAbsolutePathBuilder().path(newTeam.getId().toString()).build();
+
+			return Response.created(location).tag(IfMatch.tag(newTeam.getVersion())).build();
+		});
+	}
 
-		return Response.created(location).build();
+	@POST
+	@ManagedAsync
+	@Path("/batch")
+	public void addTeams(@Suspended AsyncResponse response, List<se.mebe.model.Team> teams) {
+		executor.complete(response, () -> {
+			List<se.springdata.model.Team> entities = new ArrayList<>(BatchResponse.checkSize(teams).size());
+			teams.forEach(team -> entities.add(EntityConverter.convertToJpaTeam(team)));
+
+			return BatchResponse.of(teamService.addTeams(entities), se.springdata.model.Team::getId,
+					uriInfo.getBaseUriBuilder().path(TeamResource.class));
+		});
 	}
 
 	@PUT
+	@ManagedAsync
 	@Path("update/{teamName}/{teamId}")
-	public Response updateTeam(@PathParam("teamName") String teamName, @PathParam("teamId") long teamId)
-			throws ServiceException, BadMessageException {
-
-		if (!teamRepository.exists(teamId)) {
-			throw new ResourceException("This team dosnt exist for update");
-
-		} else {
-			teamService.updateTeam(teamName, teamId);
-			return Response.noContent().build();
-		}
+	public void updateTeam(@Suspended AsyncResponse response, @PathParam("teamName") String teamName,
+			@PathParam("teamId") long teamId) {
+		executor.complete(response, () -> {
+			Long version = IfMatch.version(headers);
+			if (version != null) {
+				teamService.updateTeam(teamName, teamId, version);
+				return Response.noContent().tag(IfMatch.tag(version + 1)).build();
+
+			} else if (!teamRepository.exists(teamId)) {
+				throw new ResourceException("This team dosnt exist for update");
+
+			} else {
+				teamService.updateTeam(teamName, teamId);
+				return Response.noContent().build();
+			}
+		});
 	}
 
 	@PUT
+	@ManagedAsync
 	@Path("state/{id}/{status}")
-	public Response inactiveTeam(@PathParam("id") long teamId, @PathParam("status") String status)
-			throws ServiceException, BadMessageException {
-		if (!teamRepository.exists(teamId)) {
-			throw new BadMessageException("This team dosnt exist for update");
-
-		} else if (teamRepository.findTeamStatusById(teamId).equals(status)) {
-			throw new BadMessageException("This team is already have this status");
-
-		} else {
-
-			teamService.setTeamStatus(teamId, status);
-			return Response.noContent().build();
-		}
+	public void inactiveTeam(@Suspended AsyncResponse response, @PathParam("id") long teamId,
+			@PathParam("status") String status) {
+		executor.complete(response, () -> {
+			Long version = IfMatch.version(headers);
+			if (version != null) {
+				teamService.setTeamStatus(teamId, status, version);
+				return Response.noContent().tag(IfMatch.tag(version + 1)).build();
+
+			} else if (!teamRepository.exists(teamId)) {
+				throw new BadMessageException("This team dosnt exist for update");
+
+			} else if (teamRepository.findTeamStatusById(teamId).equals(status)) {
+				throw new BadMessageException("This team is already have this status");
+
+			} else {
+
+				teamService.setTeamStatus(teamId, status);
+				return Response.noContent().build();
+			}
+		});
 	}
 
 	@GET
+	@ManagedAsync
 	@Path("/all")
-	public Response findAllTeams() throws ServiceException, BadMessageException {
-		if (teamRepository.findAllTeams().isEmpty()) {
-			throw new BadMessageException("There is not any team in your table");
-
-		} else {
-
-			teams = teamService.getAllTeams();
-			teams.forEach(team -> {
-
-				allTeams = entityConverter.convertToRestTeam(team);
-				teamsJson.add(allTeams);
+	public void findAllTeams(@Suspended AsyncResponse response, @QueryParam("after") String after,
+			@QueryParam("limit") @DefaultValue(PageCursor.DEFAULT_LIMIT) int limit) {
+		executor.complete(response, () -> {
+			long afterId = PageCursor.decode(after);
+			PageCursor.checkLimit(limit);
+
+			return versions.readTeams(version -> {
+				EntityTag tag = new EntityTag(version);
+				Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+				if (notModified != null) {
+					return notModified.build();
+				}
+
+				List<se.springdata.view.TeamView> teams = teamService.getAllTeams(afterId, PageCursor.fetchSize(limit));
+
+				if (teams.isEmpty() && afterId == 0) {
+					throw new BadMessageException("There is not any team in your table");
+
+				} else {
+					List<se.mebe.model.Team> page = new ArrayList<>(teams.size());
+					teams.forEach(team -> page.add(entityConverter.convertToRestTeam(team)));
+
+					return PageCursor.page(page, limit, se.mebe.model.Team::getId, uriInfo, headers.getMediaType(),
+							tag);
+				}
 			});
-
-			return Response.ok(teamsJson, headers.getMediaType()).build();
-		}
+		});
 	}
 
 	@PUT
+	@ManagedAsync
 	@Path("/asign/{teamId}/{userId}")
-	public Response asignUserToTeam(@PathParam("teamId") long teamId, @PathParam("userId") long userId)
-			throws ServiceException, BadMessageException {
-		if (!userRepository.exists(userId)) {
-			throw new ResourceException("This user dosnt exist to assign it to team");
-
-		} else if (!teamRepository.exists(teamId)) {
-			throw new ResourceException("This team do not exist to assign user to !!");
-
-		} else if (teamRepository.findAllUserForTeamById(teamId).size() == 10) {
-			throw new BadMessageException("This team has 10 member no more member allwoed");
-
-		} else if (userRepository.findTeamIdByUserId(userId) != null) {
-			throw new BadMessageException("This user is already a member !!");
-
-		} else {
-
-			teamService.addUserToTeam(teamId, userId);
-			return Response.noContent().build();
-		}
+	public void asignUserToTeam(@Suspended AsyncResponse response, @PathParam("teamId") long teamId,
+			@PathParam("userId") long userId) {
+		executor.complete(response, () -> {
+			try {
+				teamService.addUserToTeam(teamId, userId);
+				return Response.noContent().build();
+			} catch (ServiceException e) {
+				// the join checks all four itself, with conditional updates
+				switch (e.getMessage()) {
+				case TeamService.NO_SUCH_USER:
+					throw new ResourceException("This user dosnt exist to assign it to team");
+				case TeamService.NO_SUCH_TEAM:
+					throw new ResourceException("This team do not exist to assign user to !!");
+				case TeamService.TEAM_FULL:
+					throw new BadMessageException("This team has 10 member no more member allwoed");
+				case TeamService.ALREADY_MEMBER:
+					throw new BadMessageException("This user is already a member !!");
+				default:
+					throw e;
+				}
+			}
+		});
 	}
 }
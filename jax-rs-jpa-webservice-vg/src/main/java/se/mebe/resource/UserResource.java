@@ -2,26 +2,35 @@ package se.mebe.resource;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import org.glassfish.jersey.server.ManagedAsync;
 import org.springframework.stereotype.Component;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import se.mebe.async.ResourceExecutor;
+import se.mebe.batch.BatchResponse;
+import se.mebe.conditional.IfMatch;
 import se.mebe.converter.EntityConverter;
 import se.mebe.exception.BadMessageException;
 import se.mebe.exception.ResourceException;
-import se.springdata.exception.ServiceException;
+import se.mebe.paging.PageCursor;
+import se.springdata.cache.CollectionVersions;
 import se.springdata.repository.UserRepository;
 import se.springdata.service.UserService;
 
@@ -36,13 +45,8 @@ public final class UserResource {
 	private final UserService userService;
 	private final UserRepository userRepository;
 	private final EntityConverter entityConverter;
-	private final List<se.mebe.model.User> usersJson;
-	private final List<se.mebe.model.User> infoJson;
-	private Collection<se.springdata.model.User> users;
-	private URI location;
-	private se.springdata.model.User newUser;
-	private se.springdata.model.User user;
-	private se.mebe.model.User userToRest;
+	private final CollectionVersions versions;
+	private final ResourceExecutor executor;
 
 	@Context
 	private UriInfo uriInfo;
@@ -50,117 +54,163 @@ public final class UserResource {
 	@Context
 	private HttpHeaders headers;
 
-	public UserResource(UserService userService, EntityConverter entityConverter, UserRepository userRepository) {
+	@Context
+	private Request request;
+
+	public UserResource(UserService userService, EntityConverter entityConverter, UserRepository userRepository,
+			CollectionVersions versions, ResourceExecutor executor) {
 		this.userService = userService;
 		this.entityConverter = entityConverter;
 		this.userRepository = userRepository;
-		this.usersJson = new ArrayList<>();
-		this.infoJson = new ArrayList<>();
+		this.versions = versions;
+		this.executor = executor;
 
 	}
 
 	@POST
-	public Response addUser(se.mebe.model.User user) throws ServiceException {
-		if (user.getUserName().length() < 10) {
-			throw new ResourceException("Username is to short must have atleast 10 character!");
-
-		} else {
-			newUser = userService.addUser(EntityConverter.convertToJpaUser(user));
-			location = uriInfo.getAbsolutePathBuilder().path(newUser.getId().toString()).build();
+	@ManagedAsync
+	public void addUser(@Suspended AsyncResponse response, se.mebe.model.User user) {
+		executor.complete(response, () -> {
+			if (user.getUserName().length() < 10) {
+				throw new ResourceException("Username is to short must have atleast 10 character!");
+
+			} else {
+				se.springdata.model.User newUser = userService.addUser(EntityConverter.convertToJpaUser(user));
+				URI location = uriInfo.getAbsolutePathBuilder().path(newUser.getId().toString()).build();
+
+				return Response.created(location).tag(IfMatch.tag(newUser.getVersion())).build();
+			}
+		});
+	}
 
-			return Response.created(location).build();
-		}
+	@POST
+	@ManagedAsync
+	@Path("batch")
+	public void addUsers(@Suspended AsyncResponse response, List<se.mebe.model.User> users) {
+		executor.complete(response, () -> {
+			List<se.springdata.model.User> entities = new ArrayList<>(BatchResponse.checkSize(users).size());
+			users.forEach(user -> entities.add(EntityConverter.convertToJpaUser(user)));
+
+			return BatchResponse.of(userService.addUsers(entities), se.springdata.model.User::getId,
+					uriInfo.getBaseUriBuilder().path(UserResource.class));
+		});
 	}
 
 	@PUT
+	@ManagedAsync
 	@Path("{userId}/{column}/{newValue}")
-	public Response updateUser(@PathParam("userId") long userId, @PathParam("column") String column,
-			@PathParam("newValue") String newValue) throws ServiceException, BadMessageException {
-
-		if (!userRepository.exists(userId)) {
-			throw new BadMessageException("This user dosnt exist for update user values !!");
-
-		} else {
-			userService.updateUser(userId, column, newValue);
-			return Response.noContent().build();
-		}
-
+	public void updateUser(@Suspended AsyncResponse response, @PathParam("userId") long userId,
+			@PathParam("column") String column, @PathParam("newValue") String newValue) {
+		executor.complete(response, () -> {
+			Long version = IfMatch.version(headers);
+			if (version != null) {
+				if (userService.updateUser(userId, column, newValue, version) == 0) {
+					throw new ResourceException("This user dosnt exist for update user values !!");
+				}
+				return Response.noContent().tag(IfMatch.tag(version + 1)).build();
+
+			} else if (!userRepository.exists(userId)) {
+				throw new BadMessageException("This user dosnt exist for update user values !!");
+
+			} else {
+				userService.updateUser(userId, column, newValue);
+				return Response.noContent().build();
+			}
+		});
 	}
 
 	@PUT
+	@ManagedAsync
 	@Path("{id}/{status}")
-	public Response inactiveUser(@PathParam("id") long userId, @PathParam("status") String status)
-			throws ServiceException, BadMessageException {
-
-		if (!userRepository.exists(userId)) {
-			throw new BadMessageException("This user dosnt exist for update users values !!");
-
-		} else if (userRepository.findUserStatusById(userId).equals(status)) {
-			throw new BadMessageException("This user state is alredy same !!");
-
-		} else {
-			userService.setUserStatus(userId, status);
-			return Response.noContent().build();
-		}
+	public void inactiveUser(@Suspended AsyncResponse response, @PathParam("id") long userId,
+			@PathParam("status") String status) {
+		executor.complete(response, () -> {
+			Long version = IfMatch.version(headers);
+			if (version != null) {
+				userService.setUserStatus(userId, status, version);
+				return Response.noContent().tag(IfMatch.tag(version + 1)).build();
+
+			} else if (!userRepository.exists(userId)) {
+				throw new BadMessageException("This user dosnt exist for update users values !!");
+
+			} else if (userRepository.findUserStatusById(userId).equals(status)) {
+				throw new BadMessageException("This user state is alredy same !!");
+
+			} else {
+				userService.setUserStatus(userId, status);
+				return Response.noContent().build();
+			}
+		});
 	}
 
 	@GET
+	@ManagedAsync
 	@Path("{userNumber}")
-	public Response findUserByUserNumber(@PathParam("userNumber") String userNumber)
-			throws ServiceException, JsonProcessingException, BadMessageException {
-
-		if (userRepository.findByUserNumber(userNumber).isEmpty()) {
-			throw new ResourceException("This user dosnt exist by this user number or user number is worng !!");
+	public void findUserByUserNumber(@Suspended AsyncResponse response, @PathParam("userNumber") String userNumber) {
+		executor.complete(response, () -> {
+			List<se.springdata.view.UserView> found = userService.findByUserNumber(userNumber);
 
-		} else {
-			user = userService.findByUserNumber(userNumber).iterator().next();
-			userToRest = entityConverter.convertToRestUser(user);
+			if (found.isEmpty()) {
+				throw new ResourceException("This user dosnt exist by this user number or user number is worng !!");
 
-			return Response.ok(userToRest, headers.getMediaType()).build();
-		}
+			} else {
+				return Response.ok(entityConverter.convertToRestUser(found.get(0)), headers.getMediaType()).build();
+			}
+		});
 	}
 
 	@GET
+	@ManagedAsync
 	@Path("{findNameTyp}/{name}")
-	public Response findUserByManyInformation(@PathParam("findNameTyp") String findNameTyp,
-			@PathParam("name") String name) throws ServiceException, JsonProcessingException, BadMessageException {
+	public void findUserByManyInformation(@Suspended AsyncResponse response,
+			@PathParam("findNameTyp") String findNameTyp, @PathParam("name") String name) {
+		executor.complete(response, () -> {
+			List<se.springdata.view.UserView> found = userService.findByName(findNameTyp, name);
 
-		if (userRepository.findByFirstName(name).isEmpty() && userRepository.findByLastName(name).isEmpty()
-				&& userRepository.findByUserName(name).isEmpty()) {
-			throw new BadMessageException("This user values dosnt exist");
+			if (found.isEmpty()) {
+				throw new BadMessageException("This user values dosnt exist");
 
-		} else {
-			users = userService.findByName(findNameTyp, name);
-			users.forEach(userInfo -> {
+			} else {
+				List<se.mebe.model.User> usersInfo = new ArrayList<>(found.size());
+				found.forEach(userInfo -> usersInfo.add(entityConverter.convertToRestUser(userInfo)));
 
-				userToRest = entityConverter.convertToRestUser(userInfo);
-				infoJson.add(userToRest);
-			});
+				return Response.ok(usersInfo, headers.getMediaType()).build();
 
-			return Response.ok(infoJson, headers.getMediaType()).build();
-
-		}
+			}
+		});
 	}
 
 	@GET
+	@ManagedAsync
 	@Path("team/{teamId}")
-	public Response findUserByTeam(@PathParam("teamId") long teamId)
-			throws ServiceException, JsonProcessingException, BadMessageException {
-
-		if (!userRepository.findTeamIdInUser().contains(teamId)) {
-			throw new BadMessageException("This user have not team !!, make sure that team id is correct");
-
-		} else {
-			users = userService.getAllUserForATeam(teamId);
-			users.forEach(user -> {
-
-				userToRest = entityConverter.convertToRestUser(user);
-				usersJson.add(userToRest);
-
+	public void findUserByTeam(@Suspended AsyncResponse response, @PathParam("teamId") long teamId,
+			@QueryParam("after") String after, @QueryParam("limit") @DefaultValue(PageCursor.DEFAULT_LIMIT) int limit) {
+		executor.complete(response, () -> {
+			long afterId = PageCursor.decode(after);
+			PageCursor.checkLimit(limit);
+
+			return versions.readMembers(teamId, version -> {
+				EntityTag tag = new EntityTag(version);
+				Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+				if (notModified != null) {
+					return notModified.build();
+				}
+
+				List<se.springdata.view.UserView> members = userService.getAllUserForATeam(teamId, afterId,
+						PageCursor.fetchSize(limit));
+
+				if (members.isEmpty() && afterId == 0) {
+					throw new BadMessageException("This user have not team !!, make sure that team id is correct");
+
+				} else {
+					List<se.mebe.model.User> page = new ArrayList<>(members.size());
+					members.forEach(member -> page.add(entityConverter.convertToRestUser(member)));
+
+					return PageCursor.page(page, limit, se.mebe.model.User::getId, uriInfo, headers.getMediaType(),
+							tag);
+				}
 			});
-
-			return Response.ok(usersJson, headers.getMediaType()).build();
-		}
+		});
 	}
 
 }
@@ -2,30 +2,42 @@ package se.mebe.resource;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import org.glassfish.jersey.server.ManagedAsync;
 import org.springframework.stereotype.Component;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import se.mebe.async.ResourceExecutor;
+import se.mebe.batch.BatchResponse;
+import se.mebe.conditional.IfMatch;
 import se.mebe.converter.EntityConverter;
 import se.mebe.exception.BadMessageException;
 import se.mebe.exception.ResourceException;
+import se.mebe.paging.PageCursor;
+import se.mebe.streaming.JsonArrayOutput;
+import se.springdata.cache.CollectionVersions;
 import se.springdata.exception.ServiceException;
-//import se.springdata.model.Status;
 import se.springdata.repository.IssueRepository;
-import se.springdata.repository.UserRepository;
 import se.springdata.repository.WorkitemRepository;
+import se.springdata.search.WorkitemSearchIndex;
 import se.springdata.service.WorkitemService;
 
 @Component
@@ -35,167 +47,249 @@ import se.springdata.service.WorkitemService;
 
 public final class WorkItemResource {
 
+	private static final String SEARCH_LIMIT = "20";
+
 	private final WorkitemService workItemService;
 	private final EntityConverter entityConverter;
 	private final WorkitemRepository workitemRepository;
 	private final IssueRepository issueRepository;
-	private final UserRepository userRepository;
-	private se.springdata.model.Workitem newWorkItem;
-	private Collection<se.springdata.model.Workitem> workItems;
-	private se.mebe.model.WorkItem jsonWorkItem;
-	private List<se.mebe.model.WorkItem> putWorkitems;
-	private URI location;
+	private final CollectionVersions versions;
+	private final ObjectMapper objectMapper;
+	private final ResourceExecutor executor;
 
 	@Context
 	private UriInfo uriInfo;
 	@Context
 	private HttpHeaders headers;
+	@Context
+	private Request request;
 
 	public WorkItemResource(WorkitemService workItemService, EntityConverter entityConverter,
-			WorkitemRepository workitemRepository, IssueRepository issueRepository, UserRepository userRepository) {
+			WorkitemRepository workitemRepository, IssueRepository issueRepository, CollectionVersions versions,
+			ObjectMapper objectMapper, ResourceExecutor executor) {
 
 		this.workitemRepository = workitemRepository;
 		this.issueRepository = issueRepository;
 		this.workItemService = workItemService;
 		this.entityConverter = entityConverter;
-		this.userRepository = userRepository;
-		this.putWorkitems = new ArrayList<>();
+		this.versions = versions;
+		this.objectMapper = objectMapper;
+		this.executor = executor;
 	}
 
 	@POST
-	public Response addWorkItem(se.mebe.model.WorkItem workItem) throws ServiceException {
+	@ManagedAsync
+	public void addWorkItem(@Suspended AsyncResponse response, se.mebe.model.WorkItem workItem) {
+		executor.complete(response, () -> {
+			se.springdata.model.Workitem newWorkItem = workItemService
+					.addWorkItem(EntityConverter.convertToWorkItemEntity(workItem));
+			URI location = uriInfo.getAbsolutePathBuilder().path(newWorkItem.getId().toString()).build();
+			return Response.created(location).build();
+		});
+	}
 
-		newWorkItem = workItemService.addWorkItem(EntityConverter.convertToWorkItemEntity(workItem));
-		location = uriInfo.getAbsolutePathBuilder().path(newWorkItem.getId().toString()).build();
-		return Response.created(location).build();
+	@POST
+	@ManagedAsync
+	@Path("/batch")
+	public void addWorkItems(@Suspended AsyncResponse response, List<se.mebe.model.WorkItem> workItems) {
+		executor.complete(response, () -> {
+			List<se.springdata.model.Workitem> entities = new ArrayList<>(BatchResponse.checkSize(workItems).size());
+			workItems.forEach(workItem -> entities.add(EntityConverter.convertToWorkItemEntity(workItem)));
+
+			return BatchResponse.of(workItemService.addWorkItems(entities), se.springdata.model.Workitem::getId,
+					uriInfo.getBaseUriBuilder().path(WorkItemResource.class));
+		});
 	}
 
 	@PUT
+	@ManagedAsync
 	@Path("/state/{workItemId}/{status}")
-	public Response updateWorkItem(@PathParam("workItemId") long workItemId,
-			@PathParam("status") se.springdata.model.Status status) throws ServiceException, BadMessageException {
-
-		if (!workitemRepository.exists(workItemId)) {
-			throw new BadMessageException("You are trying with not existing workitem");
-
-		} else if (workitemRepository.findWorkitemStatusById(workItemId).iterator().next().equals(status)) {
-			throw new BadMessageException("You are trying to update to same information");
+	public void updateWorkItem(@Suspended AsyncResponse response, @PathParam("workItemId") long workItemId,
+			@PathParam("status") se.springdata.model.Status status) {
+		executor.complete(response, () -> {
+			Long version = IfMatch.version(headers);
+			if (version != null) {
+				workItemService.setStatus(workItemId, status, version);
+				return Response.noContent().tag(IfMatch.tag(version + 1)).build();
+
+			} else if (!workitemRepository.exists(workItemId)) {
+				throw new BadMessageException("You are trying with not existing workitem");
+
+			} else if (workitemRepository.findWorkitemStatusById(workItemId).iterator().next().equals(status)) {
+				throw new BadMessageException("You are trying to update to same information");
+
+			} else {
+				workItemService.setStatus(workItemId, status);
+				return Response.noContent().build();
+			}
+		});
+	}
 
-		} else {
-			workItemService.setStatus(workItemId, status);
-			return Response.noContent().build();
-		}
+	@PUT
+	@ManagedAsync
+	@Path("/state/{status}")
+	public void updateWorkItems(@Suspended AsyncResponse response,
+			@PathParam("status") se.springdata.model.Status status, List<Long> workItemIds) {
+		executor.complete(response, () -> {
+			se.springdata.service.StatusChange change = workItemService.setStatus(BatchResponse.checkSize(workItemIds),
+					status);
+			return Response.ok(entityConverter.convertToRestStatusChange(change), headers.getMediaType()).build();
+		});
 	}
 
 	@DELETE
+	@ManagedAsync
 	@Path("/remove/{issueId}/{id}")
-	public Response removeWorkItem(@PathParam("issueId") long issueId, @PathParam("id") long workItemId)
-			throws ServiceException, BadMessageException {
-		if (!workitemRepository.exists(workItemId)) {
-			throw new BadMessageException("This work item dosnt exist to delete");
-
-		} else if (!issueRepository.exists(issueId)) {
-			throw new BadMessageException("This work item dosnt have issue to delete");
-
-		} else {
-			workItemService.deleteWorkitem(issueId, workItemId);
-			return Response.noContent().build();
-		}
+	public void removeWorkItem(@Suspended AsyncResponse response, @PathParam("issueId") long issueId,
+			@PathParam("id") long workItemId) {
+		executor.complete(response, () -> {
+			if (!workitemRepository.exists(workItemId)) {
+				throw new BadMessageException("This work item dosnt exist to delete");
+
+			} else if (!issueRepository.exists(issueId)) {
+				throw new BadMessageException("This work item dosnt have issue to delete");
+
+			} else {
+				workItemService.deleteWorkitem(issueId, workItemId);
+				return Response.noContent().build();
+			}
+		});
 	}
 
 	@PUT
+	@ManagedAsync
 	@Path("/assign/{userId}/{workItemId}")
-	public Response assignWorkItemToUser(@PathParam("userId") long userId, @PathParam("workItemId") long workItemId)
-			throws ServiceException, BadMessageException {
-
-		if (!workitemRepository.exists(workItemId)) {
-			throw new BadMessageException("This work item dosnt exist to assign to user");
-
-		} else if (!userRepository.exists(userId)) {
-			throw new BadMessageException("This user dosnt exist to assign work item to it");
-
-		} else if (userRepository.findUserStatusById(userId).equals("inactive")) {
-			throw new BadMessageException("The user is inactive and can therefore not be assigned a workitem !!!");
-
-		} else if (workitemRepository.findAllWorkitemByUser(userId).size() == 5) {
-			throw new BadMessageException("The user can't be assigned any more task, since 5 is the limit!");
-
-		} else {
-			workItemService.assignsWorkitemToUser(userId, workItemId);
+	public void assignWorkItemToUser(@Suspended AsyncResponse response, @PathParam("userId") long userId,
+			@PathParam("workItemId") long workItemId) {
+		executor.complete(response, () -> {
+			try {
+				workItemService.assignsWorkitemToUser(userId, workItemId);
+			} catch (ServiceException e) {
+				throw new BadMessageException(e.getMessage());
+			}
 			return Response.noContent().build();
-		}
+		});
 	}
 
 	@GET
+	@ManagedAsync
 	@Path("/state/{status}")
-	public Response findAllWorkItemsByState(@PathParam("status") se.springdata.model.Status status)
-			throws ServiceException {
-
-		if (workitemRepository.findWorkitemStatusByStatus(status).isEmpty()) {
-			throw new ResourceException("There is no such status in work item");
-
-		} else {
-			workItems = workItemService.getAllWorkitemsByStatus(status);
-			workItems.forEach(workItem -> {
-				jsonWorkItem = entityConverter.convertToRestWorkItem(workItem);
-				putWorkitems.add(jsonWorkItem);
-
-			});
-
-			return Response.ok(putWorkitems, headers.getMediaType()).build();
-		}
+	public void findAllWorkItemsByState(@Suspended AsyncResponse response,
+			@PathParam("status") se.springdata.model.Status status,
+			@QueryParam("after") String after, @QueryParam("limit") @DefaultValue(PageCursor.DEFAULT_LIMIT) int limit) {
+		executor.complete(response, () -> {
+			long afterId = PageCursor.decode(after);
+			PageCursor.checkLimit(limit);
+
+			List<se.springdata.view.WorkitemView> workItems = workItemService.getAllWorkitemsByStatus(status, afterId,
+					PageCursor.fetchSize(limit));
+
+			if (workItems.isEmpty() && afterId == 0) {
+				throw new ResourceException("There is no such status in work item");
+
+			} else {
+				return toPage(workItems, limit);
+			}
+		});
 	}
 
 	@GET
+	@ManagedAsync
 	@Path("/team/{teamId}")
-	public Response findAllWorkItemsByTeam(@PathParam("teamId") long teamId) throws ServiceException {
-
-		if (workitemRepository.findTeamIdFromWorkitem().isEmpty()) {
-			throw new ResourceException("There is no such team in work item");
-
-		} else {
-			workItems = workItemService.getAllWorkitemsByTeam(teamId);
-			workItems.forEach(workItem -> {
-				jsonWorkItem = entityConverter.convertToRestWorkItem(workItem);
-				putWorkitems.add(jsonWorkItem);
+	public void findAllWorkItemsByTeam(@Suspended AsyncResponse response, @PathParam("teamId") long teamId,
+			@QueryParam("after") String after, @QueryParam("limit") @DefaultValue(PageCursor.DEFAULT_LIMIT) int limit) {
+		executor.complete(response, () -> {
+			long afterId = PageCursor.decode(after);
+			PageCursor.checkLimit(limit);
+
+			return versions.readWorkitems(teamId, version -> {
+				EntityTag tag = new EntityTag(version);
+				Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+				if (notModified != null) {
+					return notModified.build();
+				}
+
+				List<se.springdata.view.WorkitemView> workItems = workItemService.getAllWorkitemsByTeam(teamId, afterId,
+						PageCursor.fetchSize(limit));
+
+				if (workItems.isEmpty() && afterId == 0) {
+					throw new ResourceException("There is no such team in work item");
+
+				} else {
+					return toPage(workItems, limit, tag);
+				}
 			});
+		});
+	}
 
-			return Response.ok(putWorkitems, headers.getMediaType()).build();
-		}
+	/**
+	 * Every workitem of the team in one response, written while the rows are
+	 * read; a team without workitems gives an empty array.
+	 */
+	@GET
+	@ManagedAsync
+	@Path("/team/{teamId}/export")
+	public void exportWorkItemsByTeam(@Suspended AsyncResponse response, @PathParam("teamId") long teamId) {
+		executor.complete(response, () -> {
+			JsonArrayOutput.Source<se.springdata.view.WorkitemView> workItems = row -> workItemService
+					.exportWorkitemsByTeam(teamId, row);
+			return Response.ok(JsonArrayOutput.of(objectMapper, workItems, entityConverter::convertToRestWorkItem),
+					MediaType.APPLICATION_JSON).build();
+		});
 	}
 
 	@GET
+	@ManagedAsync
 	@Path("/user/{userId}")
-	public Response findAllWorkItemsByUser(@PathParam("userId") long userId) throws ServiceException {
-
-		if (workitemRepository.findUserIdFromWorkitem().isEmpty()) {
-			throw new ResourceException("There is no such user in work item");
-
-		} else {
-			workItems = workItemService.getAllWorkitemsByUser(userId);
-			workItems.forEach(workItem -> {
-				jsonWorkItem = entityConverter.convertToRestWorkItem(workItem);
-				putWorkitems.add(jsonWorkItem);
-			});
-			return Response.ok(putWorkitems, headers.getMediaType()).build();
-		}
+	public void findAllWorkItemsByUser(@Suspended AsyncResponse response, @PathParam("userId") long userId,
+			@QueryParam("after") String after, @QueryParam("limit") @DefaultValue(PageCursor.DEFAULT_LIMIT) int limit) {
+		executor.complete(response, () -> {
+			long afterId = PageCursor.decode(after);
+			PageCursor.checkLimit(limit);
+
+			List<se.springdata.view.WorkitemView> workItems = workItemService.getAllWorkitemsByUser(userId, afterId,
+					PageCursor.fetchSize(limit));
+
+			if (workItems.isEmpty() && afterId == 0) {
+				throw new ResourceException("There is no such user in work item");
+
+			} else {
+				return toPage(workItems, limit);
+			}
+		});
 	}
 
 	@GET
+	@ManagedAsync
 	@Path("/search/{searchValue}")
-	public Response findWorkItemByDescription(@PathParam("searchValue") String searchValue) throws ServiceException {
-
-		if (workitemRepository.findAllByCertainDescription(searchValue).isEmpty()) {
-			throw new ResourceException("There is no such description in work item");
+	public void findWorkItemByDescription(@Suspended AsyncResponse response,
+			@PathParam("searchValue") String searchValue, @QueryParam("limit") @DefaultValue(SEARCH_LIMIT) int limit) {
+		executor.complete(response, () -> {
+			PageCursor.checkLimit(limit);
+			if (searchValue.length() < WorkitemSearchIndex.MIN_QUERY_LENGTH) {
+				throw new BadMessageException(
+						"The search value must have at least " + WorkitemSearchIndex.MIN_QUERY_LENGTH + " characters");
+			}
+			List<se.springdata.view.WorkitemView> hits = workItemService.searchByDescription(searchValue, limit);
+
+			if (hits.isEmpty()) {
+				throw new ResourceException("There is no such description in work item");
+
+			} else {
+				List<se.mebe.model.WorkItem> found = new ArrayList<>(hits.size());
+				hits.forEach(workItem -> found.add(entityConverter.convertToRestWorkItem(workItem)));
+				return Response.ok(found, headers.getMediaType()).build();
+			}
+		});
+	}
 
-		} else {
-			workItems = workItemService.searchByDescription(searchValue);
-			workItems.forEach(workItem -> {
-				jsonWorkItem = entityConverter.convertToRestWorkItem(workItem);
-				putWorkitems.add(jsonWorkItem);
-			});
-			return Response.ok(putWorkitems, headers.getMediaType()).build();
-		}
+	private Response toPage(List<se.springdata.view.WorkitemView> workItems, int limit) {
+		return toPage(workItems, limit, null);
+	}
 
+	private Response toPage(List<se.springdata.view.WorkitemView> workItems, int limit, EntityTag tag) {
+		List<se.mebe.model.WorkItem> page = new ArrayList<>(workItems.size());
+		workItems.forEach(workItem -> page.add(entityConverter.convertToRestWorkItem(workItem)));
+		return PageCursor.page(page, limit, se.mebe.model.WorkItem::getId, uriInfo, headers.getMediaType(), tag);
 	}
 }
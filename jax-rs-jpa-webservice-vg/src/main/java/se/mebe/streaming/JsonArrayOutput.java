@@ -0,0 +1,75 @@
+package se.mebe.streaming;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.ws.rs.core.StreamingOutput;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import se.springdata.exception.ServiceException;
+
+/**
+ * Writes a JSON array element by element while the rows are still being
+ * read, instead of collecting them into a list for Jersey first. The heap
+ * use is one row plus the output buffer, whatever the number of rows. The
+ * rows are written without a flush each, so the output goes out whenever the
+ * buffer is full rather than one chunk per row.
+ * <p>
+ * A read that fails while everything written still fits in the response
+ * buffer ends as a 500. Past that, the 200 status and the first rows are
+ * already sent, so the array is left unterminated and the write fails with
+ * an {@link IOException}; the container aborts the response without ending
+ * the chunked body and the client sees a broken transfer. It never sees a
+ * shorter but well-formed array.
+ */
+public final class JsonArrayOutput<R, T> implements StreamingOutput {
+
+	private final ObjectMapper mapper;
+	private final ObjectWriter writer;
+	private final Source<R> source;
+	private final Function<R, T> converter;
+
+	private JsonArrayOutput(ObjectMapper mapper, Source<R> source, Function<R, T> converter) {
+		this.mapper = mapper;
+		this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		this.source = source;
+		this.converter = converter;
+	}
+
+	public static <R, T> JsonArrayOutput<R, T> of(ObjectMapper mapper, Source<R> source, Function<R, T> converter) {
+		return new JsonArrayOutput<>(mapper, source, converter);
+	}
+
+	@Override
+	public void write(OutputStream output) throws IOException {
+		JsonGenerator generator = mapper.getFactory().createGenerator(output);
+		try {
+			generator.writeStartArray();
+			source.forEach(row -> {
+				try {
+					writer.writeValue(generator, converter.apply(row));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			generator.writeEndArray();
+			generator.close();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} catch (ServiceException e) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+			generator.flush();
+			throw new IOException("The export failed after " + generator.getOutputContext().getEntryCount()
+					+ " rows: " + e.getMessage(), e);
+		}
+	}
+
+	@FunctionalInterface
+	public static interface Source<R> {
+		void forEach(Consumer<R> row) throws ServiceException;
+	}
+}
@@ -0,0 +1,287 @@
+package se.mebe.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import se.mebe.JaxRsJpaWebserviceVgApplication;
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.mebe.metrics.LatencyHistogram;
+import se.springdata.model.Status;
+import se.springdata.model.Team;
+import se.springdata.model.User;
+import se.springdata.model.Workitem;
+import se.springdata.service.BatchResult;
+import se.springdata.service.TeamService;
+import se.springdata.service.UserService;
+import se.springdata.service.WorkitemService;
+
+/**
+ * Boots the whole application on an in-memory H2 database in MySQL mode,
+ * seeds it with teams, members and their workitems, and has a number of
+ * client threads send a weighted mix of reads and writes over HTTP. It then
+ * prints the throughput and latency percentiles of every endpoint. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dstart-class=se.mebe.load.LoadHarness}, adding any of
+ * {@code -Dload.concurrency=16}, {@code -Dload.seconds=30},
+ * {@code -Dload.warmup-seconds=5}, {@code -Dload.teams=50},
+ * {@code -Dload.members=10}, {@code -Dload.workitems=4} (per member) and
+ * {@code -Dload.write-percent=10}. Other system properties, such as
+ * {@code taskmanager.async.threads}, reach the application as usual.
+ */
+public final class LoadHarness {
+
+	private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+	private static final int SECONDS = Integer.getInteger("load.seconds", 30);
+	private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+	private static final int TEAMS = Integer.getInteger("load.teams", 50);
+	private static final int MEMBERS = Integer.getInteger("load.members", 10);
+	private static final int WORKITEMS = Integer.getInteger("load.workitems", 4);
+	private static final int WRITE_PERCENT = Integer.getInteger("load.write-percent", 10);
+
+	private static final String DATABASE_URL = "jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1";
+	private static final String[] WORDS = { "invoice", "deploy", "migrate", "review", "refactor", "release",
+			"database", "customer", "report", "security" };
+
+	private final RestTemplate client;
+	private final String baseUrl;
+	private final List<Long> teamIds = new ArrayList<>();
+	private final List<Long> userIds = new ArrayList<>();
+	private final List<String> userNumbers = new ArrayList<>();
+	private final List<Long> workitemIds = new ArrayList<>();
+	private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+	private final AtomicLong created = new AtomicLong();
+
+	private volatile boolean recording;
+
+	private LoadHarness(String baseUrl) {
+		HttpComponentsClientHttpRequestFactory requests = new HttpComponentsClientHttpRequestFactory(
+				HttpClients.custom().setMaxConnTotal(CONCURRENCY).setMaxConnPerRoute(CONCURRENCY).build());
+		this.client = new RestTemplate(requests);
+		this.client.setErrorHandler(new DefaultResponseErrorHandler() {
+			@Override
+			public boolean hasError(ClientHttpResponse response) throws IOException {
+				return false;
+			}
+		});
+		this.baseUrl = baseUrl;
+	}
+
+	public static void main(String[] args) throws Exception {
+		try (EmbeddedWebApplicationContext context = (EmbeddedWebApplicationContext) new SpringApplicationBuilder(
+				JaxRsJpaWebserviceVgApplication.class).profiles("h2")
+						.properties("server.port=0", "spring.datasource.url=" + DATABASE_URL).run(args)) {
+			LoadHarness harness = new LoadHarness(
+					"http://localhost:" + context.getEmbeddedServletContainer().getPort());
+			harness.seed(context.getBean(TeamService.class), context.getBean(UserService.class),
+					context.getBean(WorkitemService.class));
+			harness.run();
+		}
+	}
+
+	private void seed(TeamService teamService, UserService userService, WorkitemService workitemService)
+			throws Exception {
+		long start = System.nanoTime();
+		List<Team> teams = new ArrayList<>(TEAMS);
+		for (int t = 0; t < TEAMS; t++) {
+			teams.add(new Team("Load team " + t, "active"));
+		}
+		for (BatchResult<Team> team : teamService.addTeams(teams)) {
+			teamIds.add(team.getEntity().getId());
+		}
+
+		List<User> users = new ArrayList<>(TEAMS * MEMBERS);
+		for (int u = 0; u < TEAMS * MEMBERS; u++) {
+			users.add(new User("First" + u, "Last" + u, "loaduser" + String.format("%06d", u), "active",
+					"LOAD-" + u));
+		}
+		for (BatchResult<User> user : userService.addUsers(users)) {
+			userIds.add(user.getEntity().getId());
+			userNumbers.add(user.getEntity().getUserNumber());
+		}
+
+		List<Workitem> workitems = new ArrayList<>(userIds.size() * WORKITEMS);
+		for (int w = 0; w < userIds.size() * WORKITEMS; w++) {
+			workitems.add(new Workitem("Workitem " + w, description(w), Status.values()[w % 2]));
+		}
+		for (BatchResult<Workitem> workitem : workitemService.addWorkItems(workitems)) {
+			workitemIds.add(workitem.getEntity().getId());
+		}
+
+		for (int u = 0; u < userIds.size(); u++) {
+			teamService.addUserToTeam(teamIds.get(u % TEAMS), userIds.get(u));
+			for (int w = 0; w < WORKITEMS; w++) {
+				workitemService.assignsWorkitemToUser(userIds.get(u), workitemIds.get(u * WORKITEMS + w));
+			}
+		}
+		System.out.printf("seeded %d teams, %d users and %d workitems in %d ms%n", teamIds.size(), userIds.size(),
+				workitemIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	private void run() throws Exception {
+		List<Scenario> scenarios = scenarios();
+		ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+		try {
+			drive(clients, scenarios, WARMUP_SECONDS);
+			recording = true;
+			long start = System.nanoTime();
+			drive(clients, scenarios, SECONDS);
+			report((System.nanoTime() - start) / 1e9);
+		} finally {
+			clients.shutdownNow();
+		}
+	}
+
+	private List<Scenario> scenarios() {
+		int reads = 100 - WRITE_PERCENT;
+		List<Scenario> scenarios = new ArrayList<>();
+		scenarios.add(new Scenario("GET /teams/all", reads * 10 / 100, random -> get("/teams/all")));
+		scenarios.add(new Scenario("GET /users/team/{teamId}", reads * 20 / 100,
+				random -> get("/users/team/" + pick(teamIds, random))));
+		scenarios.add(new Scenario("GET /items/team/{teamId}", reads * 20 / 100,
+				random -> get("/items/team/" + pick(teamIds, random))));
+		scenarios.add(new Scenario("GET /items/user/{userId}", reads * 25 / 100,
+				random -> get("/items/user/" + pick(userIds, random))));
+		scenarios.add(new Scenario("GET /users/{userNumber}", reads * 15 / 100,
+				random -> get("/users/" + pick(userNumbers, random))));
+		scenarios.add(new Scenario("GET /items/search/{searchValue}", reads * 10 / 100,
+				random -> get("/items/search/" + WORDS[random.nextInt(WORDS.length)])));
+		scenarios.add(new Scenario("PUT /items/state/{status}", WRITE_PERCENT * 50 / 100,
+				random -> request(HttpMethod.PUT, "/items/state/" + Status.values()[random.nextInt(2)],
+						"[" + pick(workitemIds, random) + "," + pick(workitemIds, random) + "]")));
+		scenarios.add(new Scenario("PUT /users/{userId}/{column}/{newValue}", WRITE_PERCENT * 30 / 100,
+				random -> request(HttpMethod.PUT,
+						"/users/" + pick(userIds, random) + "/lastName/Last" + random.nextInt(1000), null)));
+		scenarios.add(new Scenario("POST /items", WRITE_PERCENT * 20 / 100,
+				random -> request(HttpMethod.POST, "/items", "{\"id\":0,\"title\":\"Load item "
+						+ created.incrementAndGet() + "\",\"description\":\""
+						+ description(random.nextInt(1000)) + "\",\"status\":\"UNSTARTED\"}")));
+		return scenarios;
+	}
+
+	private void drive(ExecutorService clients, List<Scenario> scenarios, int seconds) throws Exception {
+		int totalWeight = scenarios.stream().mapToInt(scenario -> scenario.weight).sum();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		List<Future<?>> running = new ArrayList<>(CONCURRENCY);
+		for (int c = 0; c < CONCURRENCY; c++) {
+			running.add(clients.submit(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				while (System.nanoTime() < deadline) {
+					send(choose(scenarios, random.nextInt(totalWeight)), random);
+				}
+			}));
+		}
+		for (Future<?> client : running) {
+			client.get();
+		}
+	}
+
+	private void send(Scenario scenario, ThreadLocalRandom random) {
+		RequestEntity<String> request = scenario.request.apply(random);
+		long start = System.nanoTime();
+		int status;
+		try {
+			status = client.exchange(request, String.class).getStatusCodeValue();
+		} catch (RuntimeException e) {
+			status = 0;
+		}
+		long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+		if (recording) {
+			endpoints.computeIfAbsent(scenario.name, name -> new Endpoint()).record(micros, status);
+		}
+	}
+
+	private void report(double seconds) {
+		System.out.printf("%d clients for %.1f s, %d%% writes%n", CONCURRENCY, seconds, WRITE_PERCENT);
+		System.out.printf("%-42s %9s %7s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms",
+				"p95 ms", "p99 ms");
+		long total = 0;
+		for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+			LatencyHistogram latency = entry.getValue().latency;
+			total += latency.getCount();
+			System.out.printf("%-42s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", entry.getKey(), latency.getCount(),
+					entry.getValue().errors.sum(), latency.getCount() / seconds, latency.quantile(0.5) / 1e3,
+					latency.quantile(0.95) / 1e3, latency.quantile(0.99) / 1e3);
+		}
+		System.out.printf("%-42s %9d %7s %9.1f%n", "total", total, "", total / seconds);
+	}
+
+	private RequestEntity<String> get(String path) {
+		return request(HttpMethod.GET, path, null);
+	}
+
+	private RequestEntity<String> request(HttpMethod method, String path, String body) {
+		return RequestEntity.method(method, URI.create(baseUrl + path))
+				.header("Authorization", AuthorizationRequestFilter.AUTH_TOKEN).contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON).body(body);
+	}
+
+	private static Scenario choose(List<Scenario> scenarios, int point) {
+		int seen = 0;
+		for (Scenario scenario : scenarios) {
+			seen += scenario.weight;
+			if (point < seen) {
+				return scenario;
+			}
+		}
+		return scenarios.get(scenarios.size() - 1);
+	}
+
+	private static <T> T pick(List<T> values, ThreadLocalRandom random) {
+		return values.get(random.nextInt(values.size()));
+	}
+
+	private static String description(int seed) {
+		return "Please " + WORDS[seed % WORDS.length] + " the " + WORDS[(seed / WORDS.length) % WORDS.length]
+				+ " for case " + seed;
+	}
+
+	private static final class Scenario {
+
+		private final String name;
+		private final int weight;
+		private final Function<ThreadLocalRandom, RequestEntity<String>> request;
+
+		private Scenario(String name, int weight, Function<ThreadLocalRandom, RequestEntity<String>> request) {
+			this.name = name;
+			this.weight = weight;
+			this.request = request;
+		}
+	}
+
+	private static final class Endpoint {
+
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LongAdder errors = new LongAdder();
+
+		private void record(long micros, int status) {
+			latency.record(micros);
+			if (status < 200 || status >= 400) {
+				errors.increment();
+			}
+		}
+	}
+}
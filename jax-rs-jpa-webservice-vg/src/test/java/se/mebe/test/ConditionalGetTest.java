@@ -0,0 +1,172 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.springdata.model.Status;
+import se.springdata.model.Team;
+import se.springdata.model.Workitem;
+import se.springdata.service.TeamService;
+import se.springdata.service.UserService;
+import se.springdata.service.WorkitemService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class ConditionalGetTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private TeamFixtures fixtures;
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private WorkitemService workitemService;
+
+	private Statistics statistics;
+	private TeamFixtures.Fixture fixture;
+
+	@Before
+	public void setUp() throws Exception {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		fixture = fixtures.get("Conditional", "CG-01", 1);
+	}
+
+	@Test
+	public void unchangedTeamsAreNotModified() throws Exception {
+		String tag = assertNotModified("/teams/all");
+
+		teamService.addTeam(new Team("ConditionalTeam2", "active"));
+		assertNotEquals(tag, get("/teams/all", tag).getHeaders().getETag());
+	}
+
+	@Test
+	public void writesThroughAnotherNodeChangeTheTag() throws Exception {
+		String tag = assertNotModified("/teams/all");
+
+		// another node shares nothing with this one but the database
+		new JdbcTemplate(dataSource).update("update TEAM set VERSION = VERSION + 1 where ID = ?", fixture.team.getId());
+		assertEquals(200, get("/teams/all", tag).getStatusCodeValue());
+	}
+
+	@Test
+	public void unchangedTeamMembersAreNotModified() throws Exception {
+		String tag = assertNotModified("/users/team/" + fixture.team.getId());
+
+		userService.updateUser(fixture.user.getId(), "firstName", "Conditionally");
+		assertEquals(200, get("/users/team/" + fixture.team.getId(), tag).getStatusCodeValue());
+	}
+
+	@Test
+	public void unchangedTeamWorkItemsAreNotModified() throws Exception {
+		String tag = assertNotModified("/items/team/" + fixture.team.getId());
+
+		long workitemId = workitemService.addWorkItem(new Workitem("Conditional 2", "Conditional get", Status.STARTED))
+				.getId();
+		workitemService.assignsWorkitemToUser(fixture.user.getId(), workitemId);
+		assertEquals(200, get("/items/team/" + fixture.team.getId(), tag).getStatusCodeValue());
+	}
+
+	@Test
+	public void everyWriteToTheTeamWorkItemsChangesTheTag() throws Exception {
+		TeamFixtures.Fixture writes = fixtures.get("ConditionalWrites", "CG-03", 2);
+		TeamFixtures.Fixture other = fixtures.get("ConditionalElsewhere", "CG-04", 0);
+		String path = "/items/team/" + writes.team.getId();
+		List<Long> workitemIds = new JdbcTemplate(dataSource).queryForList(
+				"select ID from WORKITEM where TEAM_ID = ? order by ID", Long.class, writes.team.getId());
+
+		String tag = assertNotModified(path);
+		workitemService.setStatus(workitemIds.get(0), Status.DONE);
+		tag = assertChanged(path, tag);
+
+		// leaves the team for another one
+		workitemService.assignsWorkitemToUser(other.user.getId(), workitemIds.get(1));
+		tag = assertChanged(path, tag);
+
+		// puts the workitems of the user back to unstarted
+		userService.setUserStatus(writes.user.getId(), "disable");
+		assertChanged(path, tag);
+	}
+
+	@Test
+	public void writesToOtherTeamsKeepTheTag() throws Exception {
+		String workItems = assertNotModified("/items/team/" + fixture.team.getId());
+		String members = assertNotModified("/users/team/" + fixture.team.getId());
+
+		TeamFixtures.Fixture other = fixtures.get("ConditionalOther", "CG-02", 0);
+		long workitemId = workitemService
+				.addWorkItem(new Workitem("Conditional other", "Conditional get", Status.STARTED)).getId();
+		workitemService.assignsWorkitemToUser(other.user.getId(), workitemId);
+		userService.updateUser(other.user.getId(), "lastName", "Elsewhere");
+		assertEquals(304, get("/items/team/" + fixture.team.getId(), workItems).getStatusCodeValue());
+		assertEquals(304, get("/users/team/" + fixture.team.getId(), members).getStatusCodeValue());
+	}
+
+	private String assertNotModified(String path) {
+		ResponseEntity<String> first = get(path, null);
+		assertEquals(path, 200, first.getStatusCodeValue());
+		String tag = first.getHeaders().getETag();
+		assertNotNull(path, tag);
+
+		statistics.clear();
+		ResponseEntity<String> second = get(path, tag);
+		assertEquals(path, 304, second.getStatusCodeValue());
+		// only the version is read
+		assertEquals(path, 1, statistics.getPrepareStatementCount());
+		return tag;
+	}
+
+	private String assertChanged(String path, String tag) {
+		ResponseEntity<String> changed = get(path, tag);
+		assertEquals(path, 200, changed.getStatusCodeValue());
+		assertNotEquals(path, tag, changed.getHeaders().getETag());
+		return changed.getHeaders().getETag();
+	}
+
+	private ResponseEntity<String> get(String path, String ifNoneMatch) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		if (ifNoneMatch != null) {
+			headers.setIfNoneMatch(ifNoneMatch);
+		}
+		return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+	}
+}
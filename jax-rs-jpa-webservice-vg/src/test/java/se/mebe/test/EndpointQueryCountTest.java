@@ -0,0 +1,195 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.springdata.model.Issue;
+import se.springdata.model.Status;
+import se.springdata.model.Team;
+import se.springdata.model.User;
+import se.springdata.model.Workitem;
+import se.springdata.service.IssueService;
+import se.springdata.service.TeamService;
+import se.springdata.service.UserService;
+import se.springdata.service.WorkitemService;
+
+/**
+ * Boots the whole application on an embedded H2 database and holds every read
+ * endpoint, and the writes that used to probe first, to a statement budget,
+ * so an existence probe that runs before the real fetch or update, or an
+ * association loaded row by row, shows up as a failing test. Reads are
+ * projected into views, so no entity is loaded either.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class EndpointQueryCountTest {
+
+	@Rule
+	public final QueryBudget queries = new QueryBudget().withoutEntityLoads();
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private TeamFixtures fixtures;
+
+	@Autowired
+	private WorkitemService workitemService;
+
+	@Autowired
+	private IssueService issueService;
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private UserService userService;
+
+	private TeamFixtures.Fixture fixture;
+
+	@Before
+	public void setUp() throws Exception {
+		fixture = fixtures.get("QueryCount", "QC-01", 3);
+	}
+
+	@Test
+	public void workItemsByStateRunOneQuery() {
+		queries.atMost(1, "GET /items/state/{status}");
+
+		request("/items/state/STARTED", 200);
+		request("/items/state/DONE", 404);
+	}
+
+	@Test
+	public void workItemsByTeamRunTwoQueries() {
+		// the version of the collection, and the page
+		queries.atMost(2, "GET /items/team/{teamId}");
+
+		request("/items/team/" + fixture.team.getId(), 200);
+	}
+
+	@Test
+	public void workItemsByUserRunOneQuery() {
+		queries.atMost(1, "GET /items/user/{userId}");
+
+		request("/items/user/" + fixture.user.getId(), 200);
+		request("/items/user/" + Long.MAX_VALUE, 404);
+	}
+
+	@Test
+	public void usersByUserNumberRunOneQuery() {
+		queries.atMost(1, "GET /users/{userNumber}");
+
+		request("/users/QC-01", 200);
+		request("/users/QC-404", 404);
+	}
+
+	@Test
+	public void usersByNameRunOneQuery() {
+		queries.atMost(1, "GET /users/{findNameTyp}/{name}");
+
+		request("/users/firstname/QueryCount", 200);
+	}
+
+	@Test
+	public void usersByTeamRunTwoQueries() {
+		// the version of the collection, and the page
+		queries.atMost(2, "GET /users/team/{teamId}");
+
+		request("/users/team/" + fixture.team.getId(), 200);
+	}
+
+	@Test
+	public void allTeamsRunTwoQueries() {
+		// the version of the collection, and the page
+		queries.atMost(2, "GET /teams/all");
+
+		request("/teams/all", 200);
+	}
+
+	@Test
+	public void workItemsWithIssueRunOneQuery() throws Exception {
+		Workitem done = workitemService.addWorkItem(new Workitem("QueryCount issue", "Counting issues", Status.DONE));
+		issueService.addAndAssignIssue(new Issue("Counted", "Counting queries"), done.getId());
+		queries.atMost(1, "GET /issues/all/items");
+
+		request("/issues/all/items", 200);
+	}
+
+	@Test
+	public void searchRunsOneQuery() {
+		// a miss is answered by the index alone
+		queries.atMost(1, "GET /items/search/{searchValue}");
+
+		request("/items/search/querycount", 200);
+		request("/items/search/nothing-matches-this", 404);
+	}
+
+	@Test
+	public void assigningAWorkItemRunsNoProbes() throws Exception {
+		long workitemId = workitemService.addWorkItem(new Workitem("QueryCount assign", "Counting", Status.STARTED))
+				.getId();
+		// the user's team, the current assignee, the counter with the status, the assignment, the workitems version
+		// of both teams and the team of the workitem; a missing workitem ends with the assignment that matches no
+		// row and the read back of the workitem instead
+		queries.atMost(6, "PUT /items/assign/{userId}/{workItemId}");
+
+		request(HttpMethod.PUT, "/items/assign/" + fixture.user.getId() + "/" + workitemId, null, 204);
+		request(HttpMethod.PUT, "/items/assign/" + fixture.user.getId() + "/" + Long.MAX_VALUE, null, 500);
+	}
+
+	@Test
+	public void joiningATeamRunsNoProbes() throws Exception {
+		long teamId = teamService.addTeam(new Team("QueryCountJoinTeam", "active")).getId();
+		long userId = userService.addUser(new User("QueryCount", "Joiner", "querycountjoiner", "active", "QC-02"))
+				.getId();
+		// the member counter with the members version, the join and the joined user for the eviction; a second
+		// join ends with the join that matches no row and the read back of the user instead
+		queries.atMost(3, "PUT /teams/asign/{teamId}/{userId}");
+
+		request(HttpMethod.PUT, "/teams/asign/" + teamId + "/" + userId, null, 204);
+		request(HttpMethod.PUT, "/teams/asign/" + teamId + "/" + userId, null, 500);
+	}
+
+	@Test
+	public void addingAnIssueRunsNoProbes() throws Exception {
+		long workitemId = workitemService
+				.addWorkItem(new Workitem("QueryCount new issue", "Counting", Status.DONE)).getId();
+		String issue = "{\"answer\":\"Counted\",\"issueReason\":\"Counting\"}";
+		// the workitem's status, the insert, the workitem back to unstarted and the workitems version of its team
+		queries.atMost(4, "POST /issues/post/{id}");
+
+		request(HttpMethod.POST, "/issues/post/" + workitemId, issue, 201);
+		request(HttpMethod.POST, "/issues/post/" + Long.MAX_VALUE, issue, 500);
+	}
+
+	private void request(String path, int expectedStatus) {
+		request(HttpMethod.GET, path, null, expectedStatus);
+	}
+
+	private void request(HttpMethod method, String path, String body, int expectedStatus) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		ResponseEntity<String> response = restTemplate.exchange(path, method, new HttpEntity<>(body, headers),
+				String.class);
+		assertEquals(path, expectedStatus, response.getStatusCodeValue());
+	}
+}
@@ -0,0 +1,22 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import se.mebe.converter.EntityConverter;
+import se.mebe.model.User;
+import se.springdata.view.UserView;
+
+public final class EntityConverterTest {
+
+	private final EntityConverter converter = new EntityConverter();
+
+	@Test
+	public void userNumberAndStateKeepTheirPlaces() {
+		User user = converter.convertToRestUser(
+				new UserView(1L, "Ada", "Lovelace", "adalovelace01", "active", "U-0001", 0L));
+		assertEquals("U-0001", user.getUserNumber());
+		assertEquals("active", user.getUserState());
+	}
+}
@@ -0,0 +1,156 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.springdata.model.Status;
+import se.springdata.model.Team;
+import se.springdata.model.User;
+import se.springdata.model.Workitem;
+import se.springdata.repository.TeamRepository;
+import se.springdata.repository.UserRepository;
+import se.springdata.repository.WorkitemRepository;
+import se.springdata.service.TeamService;
+import se.springdata.service.UserService;
+import se.springdata.service.WorkitemService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class OptimisticUpdateTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private TeamRepository teamRepository;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private WorkitemService workitemService;
+
+	@Autowired
+	private WorkitemRepository workitemRepository;
+
+	private Statistics statistics;
+
+	@Before
+	public void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	@Test
+	public void teamUpdateWithCurrentVersionIsOneStatement() throws Exception {
+		long teamId = teamService.addTeam(new Team("OptimisticTeam", "active")).getId();
+		long version = teamRepository.findVersionById(teamId);
+
+		statistics.clear();
+		ResponseEntity<String> renamed = put("/teams/update/OptimisticTeam2/" + teamId, version);
+		assertEquals(204, renamed.getStatusCodeValue());
+		assertEquals("\"" + (version + 1) + "\"", renamed.getHeaders().getETag());
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		ResponseEntity<String> stale = put("/teams/update/OptimisticTeam3/" + teamId, version);
+		assertEquals(412, stale.getStatusCodeValue());
+		assertEquals("\"" + (version + 1) + "\"", stale.getHeaders().getETag());
+		assertEquals("OptimisticTeam2", teamRepository.findTeamNameById(teamId));
+
+		assertEquals(412, put("/teams/state/" + teamId + "/disable", version).getStatusCodeValue());
+		assertEquals(204, put("/teams/state/" + teamId + "/disable", version + 1).getStatusCodeValue());
+		assertEquals("inactive", teamRepository.findTeamStatusById(teamId));
+	}
+
+	@Test
+	public void userUpdateWithStaleVersionIsRejected() throws Exception {
+		long userId = userService.addUser(new User("Optimistic", "User", "optimistic01", "active", "OU-01")).getId();
+		long version = userRepository.findVersionById(userId);
+
+		userService.updateUser(userId, "lastName", "Writer");
+		statistics.clear();
+		assertEquals(412, put("/users/" + userId + "/firstName/Lost", version).getStatusCodeValue());
+		// the update, and the read of the current version
+		assertEquals(2, statistics.getPrepareStatementCount());
+
+		statistics.clear();
+		assertEquals(204, put("/users/" + userId + "/firstName/Kept", version + 1).getStatusCodeValue());
+		// the update, the members version of its team, and the read of the keys to evict
+		assertEquals(3, statistics.getPrepareStatementCount());
+		assertEquals("Kept", userRepository.findUserViewById(userId).getFirstName());
+		assertEquals("Writer", userRepository.findUserViewById(userId).getLastName());
+
+		assertEquals(412, put("/users/" + userId + "/disable", version + 1).getStatusCodeValue());
+		assertEquals(204, put("/users/" + userId + "/disable", version + 2).getStatusCodeValue());
+		assertEquals("inactive", userRepository.findUserStatusById(userId));
+	}
+
+	@Test
+	public void workitemStatusChangeHonoursIfMatch() throws Exception {
+		long workitemId = workitemService.addWorkItem(new Workitem("Optimistic item", "Versioned", Status.UNSTARTED))
+				.getId();
+		long version = workitemRepository.findVersionById(workitemId);
+
+		workitemService.setStatus(workitemId, Status.STARTED);
+		assertEquals(412, put("/items/state/" + workitemId + "/DONE", version).getStatusCodeValue());
+		ResponseEntity<String> done = put("/items/state/" + workitemId + "/DONE", version + 1);
+		assertEquals(204, done.getStatusCodeValue());
+		assertEquals("\"" + (version + 2) + "\"", done.getHeaders().getETag());
+		assertEquals(Status.DONE, workitemRepository.findWorkitemStatusById(workitemId).iterator().next());
+	}
+
+	@Test
+	public void issueCanBeUpdatedWithTheTagItWasCreatedWith() throws Exception {
+		long workitemId = workitemService.addWorkItem(new Workitem("Optimistic issue", "Versioned", Status.DONE))
+				.getId();
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		ResponseEntity<String> created = restTemplate.exchange("/issues/post/" + workitemId, HttpMethod.POST,
+				new HttpEntity<>("{\"answer\":\"Open\",\"issueReason\":\"Versioned\"}", headers), String.class);
+		assertEquals(201, created.getStatusCodeValue());
+		String tag = created.getHeaders().getETag();
+		String location = created.getHeaders().getLocation().getPath();
+		long issueId = Long.parseLong(location.substring(location.lastIndexOf('/') + 1));
+
+		ResponseEntity<String> updated = put("/issues/update/" + issueId + "/Closed/Versioned",
+				Long.parseLong(tag.substring(1, tag.length() - 1)));
+		assertEquals(204, updated.getStatusCodeValue());
+	}
+
+	private ResponseEntity<String> put(String path, long version) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		headers.setIfMatch("\"" + version + "\"");
+		return restTemplate.exchange(path, HttpMethod.PUT, new HttpEntity<>(headers), String.class);
+	}
+}
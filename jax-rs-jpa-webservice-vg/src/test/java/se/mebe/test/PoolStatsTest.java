@@ -0,0 +1,53 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.mebe.model.PoolStats;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class PoolStatsTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	public void borrowedConnectionsAreCounted() {
+		long before = get().getAcquisitions();
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		restTemplate.exchange("/teams/all", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+		PoolStats stats = get();
+		assertEquals("taskmanager", stats.getPool());
+		assertEquals(10, stats.getMaximumPoolSize());
+		assertTrue(stats.getTotal() > 0);
+		assertTrue(stats.getAcquisitions() > before);
+		assertEquals(0, stats.getTimeouts());
+	}
+
+	private PoolStats get() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		ResponseEntity<PoolStats> response = restTemplate.exchange("/stats/pool", HttpMethod.GET,
+				new HttpEntity<>(headers), PoolStats.class);
+		assertEquals(200, response.getStatusCodeValue());
+		return response.getBody();
+	}
+}
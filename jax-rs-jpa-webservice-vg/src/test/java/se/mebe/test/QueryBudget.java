@@ -0,0 +1,116 @@
+package se.mebe.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import se.springdata.statistics.QueryCount;
+import se.springdata.statistics.QueryCounter;
+
+/**
+ * Fails a test when a request made during it runs more JDBC statements than
+ * allowed for its endpoint:
+ *
+ * <pre>
+ * &#64;Rule
+ * public final QueryBudget queries = new QueryBudget();
+ *
+ * queries.atMost(2, "GET /items/team/{teamId}");
+ * </pre>
+ *
+ * Endpoints are named by HTTP method and the path template of the resource.
+ * With {@link #withoutEntityLoads()}, a budgeted endpoint that loads an entity
+ * fails the test too.
+ * The budgets are checked once the test has passed and every request it made
+ * has finished.
+ */
+public final class QueryBudget implements TestRule, QueryCounter.Observer {
+
+	private static final long FINISH_TIMEOUT_MILLIS = 5000;
+
+	private final Map<String, Integer> budgets = new ConcurrentHashMap<>();
+	private final Set<QueryCount> running = ConcurrentHashMap.newKeySet();
+	private final List<QueryCount> finished = new CopyOnWriteArrayList<>();
+	private volatile boolean entityLoadsAllowed = true;
+
+	public QueryBudget atMost(int statements, String endpoint) {
+		budgets.put(endpoint, statements);
+		return this;
+	}
+
+	public QueryBudget withoutEntityLoads() {
+		entityLoadsAllowed = false;
+		return this;
+	}
+
+	/** The counts of the finished requests to {@code endpoint}, oldest first. */
+	public List<QueryCount> counts(String endpoint) {
+		List<QueryCount> counts = new ArrayList<>();
+		finished.stream().filter(count -> count.getName().equals(endpoint)).forEach(counts::add);
+		return counts;
+	}
+
+	@Override
+	public Statement apply(Statement base, Description description) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				QueryCounter.addObserver(QueryBudget.this);
+				try {
+					base.evaluate();
+					awaitFinished();
+				} finally {
+					QueryCounter.removeObserver(QueryBudget.this);
+				}
+				verify();
+			}
+		};
+	}
+
+	@Override
+	public void started(QueryCount count) {
+		running.add(count);
+	}
+
+	@Override
+	public void finished(QueryCount count) {
+		finished.add(count);
+		running.remove(count);
+	}
+
+	// the client has its response just before the server reports the request finished
+	private void awaitFinished() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + FINISH_TIMEOUT_MILLIS;
+		while (!running.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private void verify() {
+		List<String> overBudget = new ArrayList<>();
+		for (QueryCount count : finished) {
+			Integer budget = budgets.get(count.getName());
+			if (budget != null && count.getStatements() > budget) {
+				overBudget.add(count + " exceeds " + budget);
+			}
+			if (budget != null && !entityLoadsAllowed && count.getEntities() > 0) {
+				overBudget.add(count + " loads entities");
+			}
+		}
+		for (String endpoint : budgets.keySet()) {
+			if (counts(endpoint).isEmpty()) {
+				overBudget.add(endpoint + " was never called");
+			}
+		}
+		if (!overBudget.isEmpty()) {
+			throw new AssertionError("Statement budget exceeded:\n" + String.join("\n", overBudget));
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.mebe.metrics.QueryCountListener;
+
+/**
+ * Checks the {@link QueryBudget} rule itself: the counts are kept per request,
+ * so they also hold while other requests run.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class QueryBudgetTest {
+
+	@Rule
+	public final QueryBudget queries = new QueryBudget();
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private TeamFixtures fixtures;
+
+	private TeamFixtures.Fixture fixture;
+
+	@Before
+	public void setUp() throws Exception {
+		fixture = fixtures.get("QueryBudget", "QB-01", 3);
+	}
+
+	@Test
+	public void readsStayWithinTheirBudget() {
+		queries.atMost(3, "GET /items/team/{teamId}").atMost(2, "GET /users/team/{teamId}").atMost(1,
+				"GET /items/user/{userId}");
+
+		get("/items/team/" + fixture.team.getId());
+		get("/users/team/" + fixture.team.getId());
+		get("/items/user/" + fixture.user.getId());
+	}
+
+	@Test
+	public void countsAreSentAsHeaders() {
+		ResponseEntity<String> response = get("/items/user/" + fixture.user.getId());
+
+		assertEquals(200, response.getStatusCodeValue());
+		assertEquals("1", response.getHeaders().getFirst(QueryCountListener.STATEMENTS));
+		assertEquals("0", response.getHeaders().getFirst(QueryCountListener.ENTITIES));
+		assertEquals("0", response.getHeaders().getFirst(QueryCountListener.COLLECTIONS));
+	}
+
+	@Test
+	public void writesAreCountedToo() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		ResponseEntity<String> response = restTemplate.exchange("/users/" + fixture.user.getId() + "/lastName/Budgeted",
+				HttpMethod.PUT, new HttpEntity<>(headers), String.class);
+
+		assertEquals(204, response.getStatusCodeValue());
+		assertTrue(Integer.parseInt(response.getHeaders().getFirst(QueryCountListener.STATEMENTS)) > 0);
+	}
+
+	private ResponseEntity<String> get(String path) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		ResponseEntity<String> response = restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers),
+				String.class);
+		assertEquals(path, 200, response.getStatusCodeValue());
+		return response;
+	}
+}
@@ -0,0 +1,111 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.mebe.metrics.LatencyHistogram;
+import se.mebe.metrics.RequestMetrics;
+import se.mebe.resource.TeamResource;
+import se.mebe.resource.UserResource;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class RequestMetricsTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private RequestMetrics requestMetrics;
+
+	@Test
+	public void quantilesStayWithinAnEighth() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long micros = 1; micros <= 10_000; micros++) {
+			histogram.record(micros);
+		}
+
+		assertEquals(10_000, histogram.getCount());
+		assertWithin(5_000, histogram.quantile(0.5));
+		assertWithin(9_500, histogram.quantile(0.95));
+		assertWithin(9_900, histogram.quantile(0.99));
+		assertEquals(10_000, histogram.quantile(1.0));
+		assertEquals(0, new LatencyHistogram().quantile(0.5));
+	}
+
+	@Test
+	public void errorsAreCountedPerMethod() throws Exception {
+		RequestMetrics.Endpoint byUserNumber = requestMetrics.endpoint(UserResource.class, "findUserByUserNumber");
+		RequestMetrics.Endpoint updateUser = requestMetrics.endpoint(UserResource.class, "updateUser");
+		long notFound = byUserNumber.getErrors("ResourceException");
+		long badMessage = updateUser.getErrors("BadMessageException");
+		long calls = byUserNumber.getLatency().getCount();
+		long updateCalls = updateUser.getLatency().getCount();
+
+		assertEquals(404, exchange(HttpMethod.GET, "/users/RM-404").getStatusCodeValue());
+		assertEquals(404, exchange(HttpMethod.GET, "/users/RM-404").getStatusCodeValue());
+		String missingUser = "/users/" + Long.MAX_VALUE + "/firstName/Metrics";
+		assertEquals(500, exchange(HttpMethod.PUT, missingUser).getStatusCodeValue());
+
+		awaitFinished(byUserNumber, calls + 2);
+		awaitFinished(updateUser, updateCalls + 1);
+		assertEquals(notFound + 2, byUserNumber.getErrors("ResourceException"));
+		assertEquals(badMessage + 1, updateUser.getErrors("BadMessageException"));
+		assertEquals(0, byUserNumber.getInFlight());
+	}
+
+	@Test
+	public void metricsAreScrapedAsPrometheusText() throws Exception {
+		RequestMetrics.Endpoint allTeams = requestMetrics.endpoint(TeamResource.class, "findAllTeams");
+		long calls = allTeams.getLatency().getCount();
+		exchange(HttpMethod.GET, "/teams/all");
+		awaitFinished(allTeams, calls + 1);
+
+		ResponseEntity<String> response = exchange(HttpMethod.GET, "/stats/metrics");
+		assertEquals(200, response.getStatusCodeValue());
+		assertTrue(response.getHeaders().getContentType().toString().startsWith("text/plain"));
+
+		String body = response.getBody();
+		String labels = "{resource=\"TeamResource\",method=\"findAllTeams\"";
+		assertTrue(body, body.contains("taskmanager_request_duration_seconds_bucket" + labels + ",le=\"+Inf\"}"));
+		assertTrue(body, body.contains("taskmanager_request_duration_seconds_count" + labels + "}"));
+		assertTrue(body,
+				body.contains("taskmanager_request_duration_quantile_seconds" + labels + ",quantile=\"0.99\"}"));
+		assertTrue(body, body.contains("taskmanager_requests_in_flight" + labels + "} 0"));
+		assertTrue(body, body.contains("# TYPE taskmanager_request_errors_total counter"));
+	}
+
+	private ResponseEntity<String> exchange(HttpMethod method, String path) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		return restTemplate.exchange(path, method, new HttpEntity<>(headers), String.class);
+	}
+
+	// the response reaches the client just before Jersey reports the request finished
+	private static void awaitFinished(RequestMetrics.Endpoint endpoint, long calls) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 2000;
+		while (endpoint.getLatency().getCount() < calls && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(calls, endpoint.getLatency().getCount());
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(expected + " ~ " + actual, actual >= expected && actual <= expected + expected / 8);
+	}
+}
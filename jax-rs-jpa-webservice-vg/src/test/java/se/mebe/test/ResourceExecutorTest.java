@@ -0,0 +1,140 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import se.mebe.async.ResourceExecutor;
+import se.mebe.model.ExecutorStats;
+import se.springdata.statistics.QueryCounter;
+
+public final class ResourceExecutorTest {
+
+	private final ResourceExecutor resourceExecutor = new ResourceExecutor(1, 1, 1000);
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		resourceExecutor.close();
+	}
+
+	@Test
+	public void fullQueueIsRejectedWithServiceUnavailable() throws Exception {
+		ExecutorService executor = resourceExecutor.getExecutorService();
+		CountDownLatch started = new CountDownLatch(1);
+		Future<?> running = executor.submit(() -> {
+			started.countDown();
+			release.await();
+			return null;
+		});
+		started.await();
+		Future<?> queued = executor.submit(() -> {
+			release.await();
+			return null;
+		});
+
+		try {
+			executor.submit(() -> {
+				release.await();
+				return null;
+			});
+			fail("The queue holds one task only");
+		} catch (ServiceUnavailableException e) {
+			assertEquals(503, e.getResponse().getStatus());
+		}
+
+		ExecutorStats stats = resourceExecutor.getStatistics();
+		assertEquals(1, stats.getActive());
+		assertEquals(1, stats.getQueued());
+		assertEquals(1, stats.getQueueCapacity());
+		assertEquals(1, stats.getRejected());
+
+		release.countDown();
+		running.get();
+		queued.get();
+		long deadline = System.currentTimeMillis() + 1000;
+		while (resourceExecutor.getStatistics().getCompleted() < 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, resourceExecutor.getStatistics().getCompleted());
+	}
+
+	@Test
+	public void requestThatWaitedOutTheTimeoutInTheQueueDoesNotRun() throws Exception {
+		ExecutorService executor = resourceExecutor.getExecutorService();
+		CountDownLatch started = new CountDownLatch(1);
+		Future<?> running = executor.submit(() -> {
+			started.countDown();
+			release.await();
+			return null;
+		});
+		started.await();
+		AsyncResponse response = mock(AsyncResponse.class);
+		ResourceExecutor.Call call = mock(ResourceExecutor.Call.class);
+		Future<?> queued = executor.submit(() -> resourceExecutor.complete(response, call));
+
+		Thread.sleep(1100);
+		release.countDown();
+		running.get();
+		queued.get();
+
+		verify(call, never()).call();
+		ArgumentCaptor<Response> answer = ArgumentCaptor.forClass(Response.class);
+		verify(response).resume(answer.capture());
+		assertEquals(503, answer.getValue().getStatus());
+		verify(response, never()).setTimeout(anyLong(), any(TimeUnit.class));
+		assertEquals(1, resourceExecutor.getStatistics().getTimedOut());
+	}
+
+	@Test
+	public void requestStillRunningWhenTheTimeoutFiresIsInterrupted() throws Exception {
+		ExecutorService executor = resourceExecutor.getExecutorService();
+		AsyncResponse response = mock(AsyncResponse.class);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		Future<?> request = executor.submit(() -> resourceExecutor.complete(response, () -> {
+			QueryCounter.start("GET /slow");
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return Response.ok().build();
+		}));
+		started.await();
+
+		ArgumentCaptor<TimeoutHandler> timeout = ArgumentCaptor.forClass(TimeoutHandler.class);
+		verify(response).setTimeoutHandler(timeout.capture());
+		timeout.getValue().handleTimeout(response);
+		assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+		request.get();
+
+		assertEquals(1, resourceExecutor.getStatistics().getTimedOut());
+		// the single thread runs the next task neither interrupted nor counting for the abandoned request
+		assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get());
+		assertNull(executor.submit(QueryCounter::current).get());
+	}
+}
@@ -0,0 +1,110 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.mebe.filter.AuthorizationRequestFilter;
+
+/**
+ * Replays the same reads over and over and checks that neither the responses
+ * nor the heap grow with the number of requests served. The default run is
+ * short enough for every build; a full soak is
+ * {@code mvn test -Dtest=ResourceSoakTest -Dsoak.requests=1000000}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class ResourceSoakTest {
+
+	private static final int REQUESTS = Integer.getInteger("soak.requests", 4000);
+	private static final int SAMPLES = 4;
+	private static final long MAX_GROWTH_BYTES = Long.getLong("soak.maxGrowthBytes", 32L * 1024 * 1024);
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private TeamFixtures fixtures;
+
+	private TeamFixtures.Fixture fixture;
+
+	@Before
+	public void setUp() throws Exception {
+		fixture = fixtures.get("Soak", "SK-01", 0);
+	}
+
+	@Test
+	public void responsesDoNotAccumulate() {
+		String[] paths = paths();
+		int[] lengths = new int[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			lengths[i] = get(paths[i]).length();
+		}
+		for (int round = 0; round < 50; round++) {
+			for (int i = 0; i < paths.length; i++) {
+				assertEquals(paths[i], lengths[i], get(paths[i]).length());
+			}
+		}
+	}
+
+	@Test
+	public void heapStaysFlat() {
+		String[] paths = paths();
+		int perSample = Math.max(REQUESTS / SAMPLES, paths.length);
+
+		replay(paths, perSample);
+		long baseline = usedHeap();
+		long highest = baseline;
+		for (int sample = 1; sample < SAMPLES; sample++) {
+			replay(paths, perSample);
+			highest = Math.max(highest, usedHeap());
+		}
+
+		long growth = highest - baseline;
+		assertTrue("heap grew by " + growth + " bytes over " + REQUESTS + " requests", growth < MAX_GROWTH_BYTES);
+	}
+
+	private String[] paths() {
+		return new String[] { "/users/SK-01", "/users/firstname/Soak", "/users/team/" + fixture.team.getId(),
+				"/items/user/" + fixture.user.getId() + "?limit=5" };
+	}
+
+	private void replay(String[] paths, int requests) {
+		for (int i = 0; i < requests; i++) {
+			get(paths[i % paths.length]);
+		}
+	}
+
+	private String get(String path) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		ResponseEntity<String> response = restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers),
+				String.class);
+		return response.getBody() == null ? "" : response.getBody();
+	}
+
+	private static long usedHeap() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,130 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.mebe.model.CacheStats;
+import se.springdata.model.Status;
+import se.springdata.model.Team;
+import se.springdata.model.Workitem;
+import se.springdata.repository.TeamRepository;
+import se.springdata.repository.UserRepository;
+import se.springdata.service.TeamService;
+import se.springdata.service.WorkitemService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class SecondLevelCacheTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private TeamRepository teamRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private WorkitemService workitemService;
+
+	@Autowired
+	private TeamFixtures fixtures;
+
+	@Test
+	public void repeatedTeamReadsAreServedFromTheCache() throws Exception {
+		long teamId = teamService.addTeam(new Team("CachedTeam", "active")).getId();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+
+		teamRepository.findOne(teamId);
+		teamRepository.findTeamStatusById(teamId);
+		statistics.clear();
+		assertEquals("CachedTeam", teamRepository.findOne(teamId).getTeamName());
+		assertEquals("active", teamRepository.findTeamStatusById(teamId));
+		assertEquals(0, statistics.getPrepareStatementCount());
+
+		teamRepository.disableTeam(teamId);
+		assertEquals("inactive", teamRepository.findTeamStatusById(teamId));
+		assertEquals("inactive", teamRepository.findOne(teamId).getTeamStatus());
+	}
+
+	@Test
+	public void lookupsStayCachedWhileWorkitemsAreAssigned() throws Exception {
+		TeamFixtures.Fixture fixture = fixtures.get("CachedWorkload", "CW-01", 0);
+		long userId = fixture.user.getId();
+		long teamId = fixture.team.getId();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		lookUp(userId, teamId);
+
+		statistics.clear();
+		for (int i = 0; i < WorkitemService.WORKITEM_LIMIT; i++) {
+			long workitemId = workitemService
+					.addWorkItem(new Workitem("Cached workload " + i, "Cached while assigned", Status.STARTED)).getId();
+			// bumps the workitem counter of the user
+			workitemService.assignsWorkitemToUser(userId, workitemId);
+			lookUp(userId, teamId);
+		}
+
+		// the counters live in their own table, so their bulk updates leave the
+		// user and team lookups cached: the team id lookup of every assignment
+		// and the four lookups after it hit
+		assertEquals(5 * WorkitemService.WORKITEM_LIMIT, statistics.getQueryCacheHitCount());
+		assertEquals(0, statistics.getQueryCacheMissCount());
+		assertEquals(WorkitemService.WORKITEM_LIMIT, statistics.getSecondLevelCacheHitCount());
+		assertEquals(0, statistics.getSecondLevelCacheMissCount());
+	}
+
+	private void lookUp(long userId, long teamId) {
+		assertEquals("active", userRepository.findUserStatusById(userId));
+		assertEquals(Long.valueOf(teamId), userRepository.findTeamIdByUserId(userId));
+		assertEquals("active", teamRepository.findTeamStatusById(teamId));
+		assertEquals("CachedWorkloadTeam", teamRepository.findTeamNameById(teamId));
+		assertEquals("CachedWorkloadTeam", teamRepository.findOne(teamId).getTeamName());
+	}
+
+	@Test
+	public void regionStatisticsAreExposed() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		ResponseEntity<CacheStats[]> response = restTemplate.exchange("/stats/cache", HttpMethod.GET,
+				new HttpEntity<>(headers), CacheStats[].class);
+
+		assertEquals(200, response.getStatusCodeValue());
+		boolean teamRegion = false;
+		for (CacheStats region : response.getBody()) {
+			if (region.getRegion().equals("team")) {
+				teamRegion = true;
+				assertEquals(1000, region.getMaxEntries());
+				assertEquals(600, region.getTimeToLiveSeconds());
+			}
+		}
+		assertTrue(teamRegion);
+	}
+}
@@ -0,0 +1,79 @@
+package se.mebe.test;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import se.springdata.exception.ServiceException;
+import se.springdata.model.Status;
+import se.springdata.model.Team;
+import se.springdata.model.User;
+import se.springdata.model.Workitem;
+import se.springdata.service.TeamService;
+import se.springdata.service.UserService;
+import se.springdata.service.WorkitemService;
+
+/**
+ * The data the endpoint tests read: an active team named {@code name + "Team"}
+ * with one member, first name {@code name}, who has started workitems titled
+ * {@code name + " " + i} assigned to them. A fixture is created the first
+ * time it is asked for and shared by every later test of the same
+ * application context:
+ *
+ * <pre>
+ * &#64;Autowired
+ * private TeamFixtures fixtures;
+ *
+ * TeamFixtures.Fixture fixture = fixtures.get("QueryBudget", "QB-01", 3);
+ * </pre>
+ */
+@Component
+public class TeamFixtures {
+
+	private final Map<String, Fixture> created = new HashMap<>();
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private WorkitemService workitemService;
+
+	public synchronized Fixture get(String name, String userNumber, int workitems) throws ServiceException {
+		Fixture fixture = created.get(name);
+		if (fixture == null) {
+			fixture = create(name, userNumber, workitems);
+			created.put(name, fixture);
+		}
+		return fixture;
+	}
+
+	private Fixture create(String name, String userNumber, int workitems) throws ServiceException {
+		Team team = teamService.addTeam(new Team(name + "Team", "active"));
+		User user = userService
+				.addUser(new User(name, "Fixture", name.toLowerCase(Locale.ROOT) + "member", "active", userNumber));
+		teamService.addUserToTeam(team.getId(), user.getId());
+		for (int i = 0; i < workitems; i++) {
+			Workitem workitem = workitemService
+					.addWorkItem(new Workitem(name + " " + i, name + " fixture " + i, Status.STARTED));
+			workitemService.assignsWorkitemToUser(user.getId(), workitem.getId());
+		}
+		return new Fixture(team, user);
+	}
+
+	public static final class Fixture {
+
+		public final Team team;
+		public final User user;
+
+		private Fixture(Team team, User user) {
+			this.team = team;
+			this.user = user;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import se.mebe.filter.CachingTokenVerifier;
+import se.mebe.filter.HmacJwtVerifier;
+import se.mebe.filter.SharedTokenVerifier;
+import se.mebe.filter.TokenVerifier;
+
+public final class TokenVerifierTest {
+
+	private static final byte[] SECRET = "a-secret-of-at-least-thirty-two-bytes".getBytes(StandardCharsets.UTF_8);
+	private static final String CACHE = "token-verifier-test";
+
+	private final TokenVerifier verifier = new HmacJwtVerifier(SECRET, new ObjectMapper());
+
+	@After
+	public void tearDown() {
+		CacheManager.getInstance().removeCache(CACHE);
+	}
+
+	@Test
+	public void sharedTokenMustMatchCompletely() {
+		TokenVerifier shared = new SharedTokenVerifier("DarkSwan");
+
+		assertEquals(Long.MAX_VALUE, shared.verify("DarkSwan"));
+		assertEquals(TokenVerifier.REJECTED, shared.verify("DarkSwa"));
+		assertEquals(TokenVerifier.REJECTED, shared.verify("DarkSwan2"));
+	}
+
+	@Test
+	public void sharedTokenMatchesInAnyCase() {
+		TokenVerifier shared = new SharedTokenVerifier("DarkSwan");
+
+		assertEquals(Long.MAX_VALUE, shared.verify("darkswan"));
+		assertEquals(Long.MAX_VALUE, shared.verify("DARKSWAN"));
+		assertEquals(TokenVerifier.REJECTED, shared.verify("DARKSWA"));
+	}
+
+	@Test
+	public void signedTokenIsAcceptedUntilItExpires() throws Exception {
+		long exp = System.currentTimeMillis() / 1000 + 60;
+
+		assertEquals(exp * 1000, verifier.verify(jwt("HS256", "{\"sub\":\"team\",\"exp\":" + exp + "}", SECRET)));
+		assertEquals(Long.MAX_VALUE, verifier.verify(jwt("HS256", "{\"sub\":\"team\"}", SECRET)));
+		assertEquals(TokenVerifier.REJECTED, verifier.verify(jwt("HS256", "{\"exp\":" + (exp - 120) + "}", SECRET)));
+		assertEquals(TokenVerifier.REJECTED, verifier.verify(jwt("HS256", "{\"nbf\":" + (exp + 60) + "}", SECRET)));
+	}
+
+	@Test
+	public void forgedTokensAreRejected() throws Exception {
+		String token = jwt("HS256", "{\"sub\":\"team\"}", SECRET);
+		String payload = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("{\"sub\":\"admin\"}".getBytes(StandardCharsets.UTF_8));
+		String[] parts = token.split("\\.");
+
+		assertEquals(TokenVerifier.REJECTED, verifier.verify(parts[0] + "." + payload + "." + parts[2]));
+		assertEquals(TokenVerifier.REJECTED, verifier.verify(jwt("HS256", "{\"sub\":\"team\"}", "other".getBytes())));
+		assertEquals(TokenVerifier.REJECTED, verifier.verify(jwt("none", "{\"sub\":\"team\"}", SECRET)));
+		assertEquals(TokenVerifier.REJECTED, verifier.verify(parts[0] + "." + parts[1] + "."));
+		assertEquals(TokenVerifier.REJECTED, verifier.verify("DarkSwan"));
+		assertEquals(TokenVerifier.REJECTED, verifier.verify("a.b.c.d"));
+	}
+
+	@Test
+	public void acceptedTokensAreVerifiedOnce() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		TokenVerifier counting = token -> {
+			calls.incrementAndGet();
+			return verifier.verify(token);
+		};
+		CacheManager cacheManager = CacheManager.getInstance();
+		cacheManager.addCache(new Cache(CACHE, 100, false, false, 300, 0));
+		Ehcache cache = cacheManager.getEhcache(CACHE);
+		TokenVerifier caching = new CachingTokenVerifier(counting, cache);
+
+		String token = jwt("HS256", "{\"exp\":" + (System.currentTimeMillis() / 1000 + 60) + "}", SECRET);
+		for (int i = 0; i < 5; i++) {
+			assertTrue(caching.verify(token) > System.currentTimeMillis());
+		}
+		assertEquals(1, calls.get());
+		assertEquals(1, cache.getSize());
+		assertTrue(cache.getKeys().get(0).toString().indexOf(token) < 0);
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(TokenVerifier.REJECTED, caching.verify("DarkSwan"));
+		}
+		assertEquals(6, calls.get());
+		assertEquals(1, cache.getSize());
+	}
+
+	private static String jwt(String alg, String claims, byte[] secret) throws Exception {
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		String header = "{\"alg\":\"" + alg + "\",\"typ\":\"JWT\"}";
+		String signed = encoder.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+				+ encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+		return signed + "." + encoder.encodeToString(mac.doFinal(signed.getBytes(StandardCharsets.US_ASCII)));
+	}
+}
@@ -0,0 +1,89 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.springdata.exception.ServiceException;
+import se.springdata.model.Status;
+import se.springdata.model.Team;
+import se.springdata.model.User;
+import se.springdata.model.Workitem;
+import se.springdata.service.TeamService;
+import se.springdata.service.UserService;
+import se.springdata.service.WorkitemService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class UniqueKeyTest {
+
+	private static final String TOO_LONG = new String(new char[300]).replace('\0', 'x');
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private WorkitemService workitemService;
+
+	@Test
+	public void onlyATakenUserNameIsReportedAsTaken() throws Exception {
+		long userId = userService.addUser(new User("Unique", "User", "uniqueuser01", "active", "UQ-01")).getId();
+		userService.addUser(new User("Unique", "User", "uniqueuser02", "active", "UQ-02"));
+
+		expectFailure("The update failed, username already exist!",
+				() -> userService.addUser(new User("Unique", "User", "uniqueuser01", "active", "UQ-03")));
+		expectFailure("Could not add User",
+				() -> userService.addUser(new User(TOO_LONG, "User", "uniqueuser03", "active", "UQ-03")));
+		expectFailure("The update failed, username already exist!",
+				() -> userService.updateUser(userId, "userName", "uniqueuser02"));
+		expectFailure("Could not update user name", () -> userService.updateUser(userId, "userName", TOO_LONG));
+	}
+
+	@Test
+	public void onlyATakenTeamNameIsReportedAsTaken() throws Exception {
+		long teamId = teamService.addTeam(new Team("UniqueTeamA", "active")).getId();
+		teamService.addTeam(new Team("UniqueTeamB", "active"));
+
+		expectFailure("The team already exist, and can't therefore be add!",
+				() -> teamService.addTeam(new Team("UniqueTeamA", "active")));
+		expectFailure("Could not add team", () -> teamService.addTeam(new Team(TOO_LONG, "active")));
+		expectFailure("Invalid update, the team name is already in use!",
+				() -> teamService.updateTeam("UniqueTeamB", teamId, null));
+		expectFailure("Could not update team", () -> teamService.updateTeam(TOO_LONG, teamId, null));
+	}
+
+	@Test
+	public void onlyATakenTitleIsReportedAsTaken() throws Exception {
+		workitemService.addWorkItem(new Workitem("Unique title", "Unique", Status.STARTED));
+
+		expectFailure("This work Item is exist !!",
+				() -> workitemService.addWorkItem(new Workitem("Unique title", "Unique", Status.STARTED)));
+		expectFailure("Could not add workitem",
+				() -> workitemService.addWorkItem(new Workitem("Unique other", TOO_LONG, Status.STARTED)));
+	}
+
+	private static void expectFailure(String message, Call call) {
+		try {
+			call.run();
+			fail("Expected: " + message);
+		} catch (ServiceException e) {
+			assertEquals(message, e.getMessage());
+		}
+	}
+
+	@FunctionalInterface
+	private interface Call {
+		void run() throws ServiceException;
+	}
+}
@@ -0,0 +1,112 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.springdata.cache.UserLookupCache;
+import se.springdata.model.Team;
+import se.springdata.model.User;
+import se.springdata.service.TeamService;
+import se.springdata.service.UserService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class UserLookupCacheTest {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private UserLookupCache userLookupCache;
+
+	private Statistics statistics;
+
+	@Before
+	public void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	@Test
+	public void repeatedLookupsAreServedFromTheCache() throws Exception {
+		userService.addUser(new User("Lookup", "Cache", "lookupcache01", "active", "LC-01"));
+
+		userService.findByUserNumber("LC-01");
+		userService.findByName("username", "lookupcache01");
+		statistics.clear();
+		assertEquals("lookupcache01", userService.findByUserNumber("LC-01").get(0).getUserName());
+		assertEquals("LC-01", userService.findByName("username", "lookupcache01").get(0).getUserNumber());
+		assertEquals(0, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void writesEvictTheCachedLookups() throws Exception {
+		assertTrue(userService.findByUserNumber("LC-02").isEmpty());
+		assertTrue(userService.findByName("username", "lookupcache02").isEmpty());
+		long userId = userService.addUser(new User("Lookup", "Cache", "lookupcache02", "active", "LC-02")).getId();
+		assertEquals(1, userService.findByUserNumber("LC-02").size());
+		assertEquals(1, userService.findByName("username", "lookupcache02").size());
+
+		userService.updateUser(userId, "userName", "lookupcache03");
+		assertTrue(userService.findByName("username", "lookupcache02").isEmpty());
+		assertEquals("lookupcache03", userService.findByUserNumber("LC-02").get(0).getUserName());
+
+		userService.setUserStatus(userId, "disable");
+		assertEquals("inactive", userService.findByName("username", "lookupcache03").get(0).getUserStatus());
+	}
+
+	@Test
+	public void joiningATeamEvictsTheCachedLookups() throws Exception {
+		long userId = userService.addUser(new User("Lookup", "Cache", "lookupcache05", "active", "LC-05")).getId();
+		long teamId = teamService.addTeam(new Team("LookupCacheTeam", "active")).getId();
+		long version = userService.findByUserNumber("LC-05").get(0).getVersion();
+		userService.findByName("username", "lookupcache05");
+
+		teamService.addUserToTeam(teamId, userId);
+		assertEquals(version + 1, userService.findByUserNumber("LC-05").get(0).getVersion().longValue());
+		assertEquals(version + 1, userService.findByName("username", "lookupcache05").get(0).getVersion().longValue());
+	}
+
+	@Test
+	public void aLookupLoadedBeforeAnEvictionIsNotCached() {
+		AtomicInteger loads = new AtomicInteger();
+		userLookupCache.byUserNumber("LC-04", () -> {
+			loads.incrementAndGet();
+			// the write this lookup raced commits and evicts before it returns
+			userLookupCache.evict("LC-04", null);
+			return Collections.emptyList();
+		});
+		userLookupCache.byUserNumber("LC-04", () -> {
+			loads.incrementAndGet();
+			return Collections.emptyList();
+		});
+		userLookupCache.byUserNumber("LC-04", () -> {
+			loads.incrementAndGet();
+			return Collections.emptyList();
+		});
+		assertEquals(2, loads.get());
+	}
+}
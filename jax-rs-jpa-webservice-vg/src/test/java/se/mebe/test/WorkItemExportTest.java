@@ -0,0 +1,124 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.mebe.model.WorkItem;
+import se.mebe.streaming.JsonArrayOutput;
+import se.springdata.exception.ServiceException;
+import se.springdata.model.Status;
+import se.springdata.model.Team;
+import se.springdata.model.User;
+import se.springdata.model.Workitem;
+import se.springdata.service.TeamService;
+import se.springdata.service.UserService;
+import se.springdata.service.WorkitemService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class WorkItemExportTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private WorkitemService workitemService;
+
+	@Test
+	public void exportStreamsEveryWorkItemOfTheTeam() throws Exception {
+		long teamId = teamService.addTeam(new Team("ExportTeam", "active")).getId();
+		long userId = userService.addUser(new User("Export", "Team", "exportteam01", "active", "EX-01")).getId();
+		teamService.addUserToTeam(teamId, userId);
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Workitem workitem = workitemService.addWorkItem(new Workitem("Export " + i, "Exported", Status.STARTED));
+			workitemService.assignsWorkitemToUser(userId, workitem.getId());
+			ids.add(workitem.getId());
+		}
+
+		WorkItem[] exported = export("/items/team/" + teamId + "/export").getBody();
+		assertEquals(3, exported.length);
+		for (int i = 0; i < exported.length; i++) {
+			assertEquals(ids.get(i).longValue(), exported[i].getId());
+			assertEquals("Export " + i, exported[i].getTitle());
+		}
+
+		assertEquals(0, export("/items/team/" + Long.MAX_VALUE + "/export").getBody().length);
+	}
+
+	@Test
+	public void exportThatFailsMidwayIsNotAWellFormedArray() throws Exception {
+		JsonArrayOutput<String, String> output = JsonArrayOutput.of(new ObjectMapper(), rows -> {
+			Arrays.asList("first", "second").forEach(rows);
+			throw new ServiceException("Connection lost");
+		}, row -> row);
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+		try {
+			output.write(written);
+			fail("The export did not fail");
+		} catch (IOException e) {
+			assertEquals("The export failed after 2 rows: Connection lost", e.getMessage());
+		}
+		assertEquals("[\"first\",\"second\"", written.toString("UTF-8"));
+	}
+
+	@Test
+	public void rowsAreNotFlushedOneByOne() throws Exception {
+		List<String> rows = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			rows.add("row " + i);
+		}
+		int[] flushes = new int[1];
+		ByteArrayOutputStream written = new ByteArrayOutputStream() {
+			@Override
+			public void flush() {
+				flushes[0]++;
+			}
+		};
+
+		JsonArrayOutput.<String, String> of(new ObjectMapper(), rows::forEach, row -> row).write(written);
+		// rows that fit in the buffer of the generator go out when it is closed
+		assertTrue("flushed " + flushes[0] + " times", flushes[0] <= 1);
+		assertEquals(100, new ObjectMapper().readValue(written.toByteArray(), String[].class).length);
+	}
+
+	private ResponseEntity<WorkItem[]> export(String path) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		ResponseEntity<WorkItem[]> response = restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers),
+				WorkItem[].class);
+		assertEquals(path, 200, response.getStatusCodeValue());
+		return response;
+	}
+}
@@ -0,0 +1,128 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.mebe.filter.AuthorizationRequestFilter;
+import se.mebe.model.StatusChange;
+import se.springdata.model.Status;
+import se.springdata.model.Workitem;
+import se.springdata.repository.WorkitemRepository;
+import se.springdata.service.WorkitemService;
+import se.springdata.transaction.ServiceTransaction;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class WorkItemStatusChangeTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private WorkitemService workitemService;
+
+	@Autowired
+	private WorkitemRepository workitemRepository;
+
+	@Autowired
+	private ServiceTransaction executor;
+
+	@Test
+	public void changesOnlyItemsNotInTheStatusWithOneUpdate() throws Exception {
+		long first = workitemService.addWorkItem(new Workitem("Bulk first", "Bulk change", Status.STARTED)).getId();
+		long second = workitemService.addWorkItem(new Workitem("Bulk second", "Bulk change", Status.STARTED)).getId();
+		long done = workitemService.addWorkItem(new Workitem("Bulk unstarted", "Bulk change", Status.UNSTARTED))
+				.getId();
+		long missing = Long.MAX_VALUE;
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		ResponseEntity<StatusChange> response = put("/items/state/UNSTARTED",
+				new Long[] { second, missing, first, done }, StatusChange.class);
+
+		assertEquals(200, response.getStatusCodeValue());
+		// the read, the update, and the workitems version of their teams
+		assertEquals(3, statistics.getPrepareStatementCount());
+		assertEquals(Status.UNSTARTED, response.getBody().getStatus());
+		assertEquals(Arrays.asList(second, first), response.getBody().getChanged());
+		assertEquals(Collections.singletonList(done), response.getBody().getUnchanged());
+		assertEquals(Collections.singletonList(missing), response.getBody().getMissing());
+		for (long id : new long[] { first, second, done }) {
+			assertEquals(Status.UNSTARTED, workitemRepository.findOne(id).getStatus());
+		}
+	}
+
+	@Test
+	public void theClassifyingReadLocksTheRows() throws Exception {
+		long id = workitemService.addWorkItem(new Workitem("Bulk locked", "Bulk change", Status.STARTED)).getId();
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService threads = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> reader = threads.submit(() -> executor.execute(() -> {
+				workitemRepository.lockStatusesIn(Collections.singleton(id));
+				locked.countDown();
+				try {
+					return release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+			locked.await();
+			Future<Integer> writer = threads.submit(() -> workitemService.setStatus(id, Status.DONE));
+
+			Thread.sleep(300);
+			assertFalse(writer.isDone());
+			release.countDown();
+			reader.get();
+			assertEquals(Integer.valueOf(1), writer.get());
+		} finally {
+			release.countDown();
+			threads.shutdown();
+		}
+	}
+
+	@Test
+	public void rejectsAnEmptyList() {
+		assertEquals(500, put("/items/state/DONE", new Long[0], String.class).getStatusCodeValue());
+	}
+
+	private <T> ResponseEntity<T> put(String path, Long[] ids, Class<T> type) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set("Authorization", AuthorizationRequestFilter.AUTH_TOKEN);
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		return restTemplate.exchange(path, HttpMethod.PUT, new HttpEntity<>(ids, headers), type);
+	}
+}
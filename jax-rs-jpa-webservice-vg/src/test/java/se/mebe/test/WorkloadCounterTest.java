@@ -0,0 +1,160 @@
+package se.mebe.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.springdata.exception.ServiceException;
+import se.springdata.model.Issue;
+import se.springdata.model.Status;
+import se.springdata.model.Team;
+import se.springdata.model.User;
+import se.springdata.model.Workitem;
+import se.springdata.repository.TeamCountersRepository;
+import se.springdata.repository.UserCountersRepository;
+import se.springdata.repository.UserRepository;
+import se.springdata.repository.WorkitemRepository;
+import se.springdata.service.IssueService;
+import se.springdata.service.TeamService;
+import se.springdata.service.UserService;
+import se.springdata.service.WorkitemService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public final class WorkloadCounterTest {
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private WorkitemService workitemService;
+
+	@Autowired
+	private IssueService issueService;
+
+	@Autowired
+	private TeamCountersRepository teamCounters;
+
+	@Autowired
+	private UserCountersRepository userCounters;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private WorkitemRepository workitemRepository;
+
+	@Test
+	public void userCounterFollowsAssignReassignAndDelete() throws Exception {
+		Team team = teamService.addTeam(new Team("CounterTeamA", "active"));
+		User first = addMember(team, "counterfirst", "CT-01");
+		User second = addMember(team, "countersecond", "CT-02");
+
+		Workitem[] workitems = new Workitem[WorkitemService.WORKITEM_LIMIT];
+		for (int i = 0; i < workitems.length; i++) {
+			workitems[i] = workitemService.addWorkItem(new Workitem("Counted " + i, "Counter", Status.STARTED));
+			workitemService.assignsWorkitemToUser(first.getId(), workitems[i].getId());
+		}
+		assertEquals(Integer.valueOf(5), userCounters.findWorkitemCountById(first.getId()));
+		assertTrue(workitemService.isAtLimit(first.getId()));
+
+		Workitem extra = workitemService.addWorkItem(new Workitem("Counted extra", "Counter", Status.STARTED));
+		try {
+			workitemService.assignsWorkitemToUser(first.getId(), extra.getId());
+			fail("The sixth workitem was assigned");
+		} catch (ServiceException e) {
+			assertEquals(Integer.valueOf(5), userCounters.findWorkitemCountById(first.getId()));
+		}
+
+		workitemService.assignsWorkitemToUser(second.getId(), workitems[0].getId());
+		assertEquals(Integer.valueOf(4), userCounters.findWorkitemCountById(first.getId()));
+		assertEquals(Integer.valueOf(1), userCounters.findWorkitemCountById(second.getId()));
+
+		workitemService.setStatus(workitems[1].getId(), Status.DONE);
+		Issue issue = issueService.addAndAssignIssue(new Issue("Counter", "Counter"), workitems[1].getId());
+		workitemService.deleteWorkitem(issue.getId(), workitems[1].getId());
+		assertEquals(Integer.valueOf(3), userCounters.findWorkitemCountById(first.getId()));
+		assertFalse(workitemService.isAtLimit(first.getId()));
+	}
+
+	@Test
+	public void disabledUsersTakeNoWorkitem() throws Exception {
+		Team team = teamService.addTeam(new Team("CounterTeamD", "active"));
+		User user = addMember(team, "counterdisabled", "CD-01");
+		Workitem workitem = workitemService.addWorkItem(new Workitem("Counted disabled", "Counter", Status.STARTED));
+		// the user keeps its team, so only the counter update sees the status
+		userRepository.disableUser(user.getId());
+
+		try {
+			workitemService.assignsWorkitemToUser(user.getId(), workitem.getId());
+			fail("A disabled user was assigned a workitem");
+		} catch (ServiceException e) {
+			assertEquals("The user is inactive and can therefore not be assigned a workitem !!!", e.getMessage());
+		}
+		assertEquals(Integer.valueOf(0), userCounters.findWorkitemCountById(user.getId()));
+		assertNull(workitemRepository.findUserIdByWorkitemId(workitem.getId()));
+	}
+
+	@Test
+	public void teamCounterStopsAtTheMemberLimit() throws Exception {
+		Team team = teamService.addTeam(new Team("CounterTeamB", "active"));
+		for (int i = 0; i < TeamService.MEMBER_LIMIT; i++) {
+			addMember(team, "countermember" + i, "CM-" + i);
+		}
+		assertEquals(Integer.valueOf(10), teamCounters.findMemberCountById(team.getId()));
+		assertTrue(teamService.isFull(team.getId()));
+
+		User late = userService.addUser(new User("Counter", "Late", "counterlate", "active", "CM-L"));
+		try {
+			teamService.addUserToTeam(team.getId(), late.getId());
+			fail("The eleventh member was added");
+		} catch (ServiceException e) {
+			assertEquals(Integer.valueOf(10), teamCounters.findMemberCountById(team.getId()));
+		}
+	}
+
+	@Test
+	public void rejectedJoinsReportWhatWasMissing() throws Exception {
+		Team team = teamService.addTeam(new Team("CounterTeamC", "active"));
+		User user = userService.addUser(new User("Counter", "Lost", "counterlost01", "active", "CL-01"));
+
+		assertRejected("The team requested doesn't exist, adding user to team failed!", Long.MAX_VALUE,
+				user.getId());
+		assertRejected("The user requested doesn't exist, adding user to team failed!", team.getId(),
+				Long.MAX_VALUE);
+		assertEquals(Integer.valueOf(0), teamCounters.findMemberCountById(team.getId()));
+
+		teamService.addUserToTeam(team.getId(), user.getId());
+		assertRejected("User is already a member of a team!", team.getId(), user.getId());
+		assertEquals(Integer.valueOf(1), teamCounters.findMemberCountById(team.getId()));
+	}
+
+	private void assertRejected(String message, long teamId, long userId) {
+		try {
+			teamService.addUserToTeam(teamId, userId);
+			fail("The user joined the team");
+		} catch (ServiceException e) {
+			assertEquals(message, e.getMessage());
+		}
+	}
+
+	private User addMember(Team team, String userName, String userNumber) throws ServiceException {
+		User user = userService.addUser(new User("Counter", "Member", userName, "active", userNumber));
+		teamService.addUserToTeam(team.getId(), user.getId());
+		return user;
+	}
+}
@@ -0,0 +1,72 @@
+package se.springdata.cache;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Versions of the collections the read endpoints list, used as entity tags
+ * for conditional GETs. Each version is read with a single query, so a
+ * request whose {@code If-None-Match} still matches reads no listed row.
+ * <p>
+ * The members and the workitems of a team have versions of their own in
+ * {@link se.springdata.model.TeamCounters}, bumped in the transaction of
+ * every write that changes one of their listed rows. The team list needs no
+ * version of its own: teams are never deleted and every update bumps the
+ * version of the team, so the number of teams and the sum of their versions
+ * change with every write to it. Every node reads the same versions from the
+ * database.
+ * <p>
+ * A reader reads the version and the rows in one read-only transaction, so
+ * both come from the same database, and the version before the rows, so the
+ * version it sends is never newer than those rows: at worst an unchanged
+ * collection is sent once more.
+ */
+@Component
+public class CollectionVersions {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/** Hands the version of all teams to {@code reader}. */
+	@Transactional(readOnly = true)
+	public <T, X extends Exception> T readTeams(Reader<T, X> reader) throws X {
+		Object[] teams = entityManager
+				.createQuery("select count(t), coalesce(sum(t.version), 0) from Team t", Object[].class)
+				.getSingleResult();
+		return reader.read("teams-" + teams[0] + "-" + teams[1]);
+	}
+
+	/** Hands the version of the members of the team to {@code reader}. */
+	@Transactional(readOnly = true)
+	public <T, X extends Exception> T readMembers(long teamId, Reader<T, X> reader) throws X {
+		return reader.read("users-" + teamVersion("membersVersion", teamId));
+	}
+
+	/** Hands the version of the workitems of the team to {@code reader}. */
+	@Transactional(readOnly = true)
+	public <T, X extends Exception> T readWorkitems(long teamId, Reader<T, X> reader) throws X {
+		return reader.read("workitems-" + teamVersion("workitemsVersion", teamId));
+	}
+
+	// a team without counters has nothing to list, so any version will do
+	private long teamVersion(String version, long teamId) {
+		List<Long> versions = entityManager
+				.createQuery("select c." + version + " from TeamCounters c where c.teamId = :teamId", Long.class)
+				.setParameter("teamId", teamId).getResultList();
+		return versions.isEmpty() ? 0L : versions.get(0);
+	}
+
+	/**
+	 * Reads the rows of a collection, inside the read-only transaction that
+	 * read its {@code version}.
+	 */
+	@FunctionalInterface
+	public static interface Reader<T, X extends Exception> {
+		T read(String version) throws X;
+	}
+}
@@ -0,0 +1,118 @@
+package se.springdata.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import se.springdata.view.UserView;
+
+/**
+ * Read-through cache of the user lookups by user number and by username, kept
+ * in the bounded {@code user-numbers} and {@code user-names} regions of
+ * {@code ehcache.xml}. Empty results are cached as well, so repeated lookups
+ * of a missing user do not reach the database either.
+ * <p>
+ * {@link se.springdata.service.UserService} evicts the keys of a user after
+ * every committed write to it. A lookup that loaded before such an eviction
+ * must not put its result back afterwards, so every key hashes to a
+ * generation counter that an eviction bumps. A lookup only keeps its result
+ * cached when the generation is the same after the put as before the load;
+ * keys sharing a counter at worst miss the cache once more. That only holds
+ * when the loader reads the primary: a replica behind the write would hand
+ * back the result the eviction removed. The cache is
+ * local to the node, so the region time to live bounds how long another node
+ * may serve a stale lookup.
+ */
+@Component
+public class UserLookupCache {
+
+	public static final String USER_NUMBERS = "user-numbers";
+	public static final String USER_NAMES = "user-names";
+
+	private static final int GENERATIONS = 1024;
+
+	private final Region userNumbers;
+	private final Region userNames;
+
+	@Autowired
+	public UserLookupCache(CacheManager cacheManager) {
+		this.userNumbers = new Region(cacheManager.addCacheIfAbsent(USER_NUMBERS));
+		this.userNames = new Region(cacheManager.addCacheIfAbsent(USER_NAMES));
+	}
+
+	public List<UserView> byUserNumber(String userNumber, Loader loader) {
+		return userNumbers.readThrough(userNumber, loader);
+	}
+
+	public List<UserView> byUserName(String userName, Loader loader) {
+		return userNames.readThrough(userName, loader);
+	}
+
+	public void evict(UserView user) {
+		if (user != null) {
+			evict(user.getUserNumber(), user.getUserName());
+		}
+	}
+
+	public void evict(String userNumber, String userName) {
+		if (userNumber != null) {
+			userNumbers.evict(userNumber);
+		}
+		if (userName != null) {
+			userNames.evict(userName);
+		}
+	}
+
+	private static final class Region {
+
+		private final Ehcache cache;
+		private final AtomicLongArray generations = new AtomicLongArray(GENERATIONS);
+
+		Region(Ehcache cache) {
+			this.cache = cache;
+		}
+
+		@SuppressWarnings("unchecked")
+		List<UserView> readThrough(String key, Loader loader) {
+			if (key == null) {
+				return loader.load();
+			}
+			Element element = cache.get(key);
+			if (element != null) {
+				return (List<UserView>) element.getObjectValue();
+			}
+			int slot = slot(key);
+			long generation = generations.get(slot);
+			List<UserView> users = Collections.unmodifiableList(loader.load());
+			if (generations.get(slot) == generation) {
+				element = new Element(key, users);
+				cache.put(element);
+				// an eviction between the check and the put removed nothing
+				if (generations.get(slot) != generation) {
+					cache.removeElement(element);
+				}
+			}
+			return users;
+		}
+
+		void evict(String key) {
+			generations.incrementAndGet(slot(key));
+			cache.remove(key);
+		}
+
+		private static int slot(String key) {
+			return Math.floorMod(key.hashCode(), GENERATIONS);
+		}
+	}
+
+	@FunctionalInterface
+	public static interface Loader {
+		List<UserView> load();
+	}
+}
@@ -1,11 +1,19 @@
 package se.springdata.config;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 
+import org.hibernate.cache.ehcache.SingletonEhCacheRegionFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -13,25 +21,114 @@ import org.springframework.orm.jpa.vendor.Database;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import se.springdata.datasource.ReadWriteRoutingDataSource;
+import se.springdata.datasource.ReplicaCacheJpaDialect;
+import se.springdata.model.PooledIdGenerator;
+import se.springdata.statistics.CountingDataSource;
+import se.springdata.statistics.PoolMetrics;
+
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
+import net.sf.ehcache.CacheManager;
+
 @Configuration
 @EnableJpaRepositories("se.springdata.repository")
 @EnableTransactionManagement
 public class Config {
 
-	// Data Source
+	private static final String HIKARI = "spring.datasource.hikari.";
+	private static final String REPLICAS = "taskmanager.datasource.replicas";
+
+	private final Environment environment;
+
+	public Config(Environment environment) {
+		this.environment = environment;
+	}
+
+	// Connection pool, sized through spring.datasource.hikari.*
+	@Bean
+	HikariConfig hikariConfig() {
+		return poolConfig("taskmanager", environment.getProperty("spring.datasource.url",
+				"jdbc:mysql://localhost:3306/jpaspringdata?useSSL=false"),
+				environment.getProperty("spring.datasource.username", "root"),
+				environment.getProperty("spring.datasource.password", "benyamen"));
+	}
+
+	// Pool metrics, recorded by Hikari itself
+	@Bean
+	PoolMetrics poolMetrics() {
+		return new PoolMetrics(hikariConfig());
+	}
+
+	// Data Source; with taskmanager.datasource.replicas set, read-only
+	// transactions are answered by those databases instead
 	@Bean
 	DataSource dataSource() {
+		HikariConfig config = hikariConfig();
+		config.setMetricsTrackerFactory(poolMetrics());
+		HikariDataSource primary = new HikariDataSource(config);
+
+		String[] urls = environment.getProperty(REPLICAS, String[].class, new String[0]);
+		if (urls.length == 0) {
+			return primary;
+		}
+		List<DataSource> replicas = new ArrayList<>(urls.length);
+		for (int i = 0; i < urls.length; i++) {
+			replicas.add(new HikariDataSource(replicaConfig(i, urls[i].trim(), config)));
+		}
+		return new ReadWriteRoutingDataSource(primary, replicas,
+				environment.getProperty(REPLICAS + "-check-millis", Long.class, 5_000L));
+	}
+
+	private HikariConfig poolConfig(String name, String url, String username, String password) {
 
 		HikariConfig config = new HikariConfig();
-		config.setDriverClassName("com.mysql.jdbc.Driver");
-		config.setJdbcUrl("jdbc:mysql://localhost:3306/jpaspringdata?useSSL=false");
-		config.setUsername("root");
-		config.setPassword("benyamen");
+		config.setPoolName(name);
+		config.setDriverClassName(environment.getProperty("spring.datasource.driver-class-name", "com.mysql.jdbc.Driver"));
+		config.setJdbcUrl(url);
+		config.setUsername(username);
+		config.setPassword(password);
+
+		config.setMaximumPoolSize(environment.getProperty(HIKARI + "maximum-pool-size", Integer.class, 10));
+		config.setMinimumIdle(
+				environment.getProperty(HIKARI + "minimum-idle", Integer.class, config.getMaximumPoolSize()));
+		config.setConnectionTimeout(environment.getProperty(HIKARI + "connection-timeout", Long.class, 30_000L));
+		config.setLeakDetectionThreshold(environment.getProperty(HIKARI + "leak-detection-threshold", Long.class, 0L));
+		if (url.startsWith("jdbc:mysql:")) {
+			mysqlProperties(config);
+		}
+		return config;
+	}
+
+	// A replica that is down gives up quickly, so reads fall back to the
+	// primary, and may be down at startup; the health checks pick it up later
+	private HikariConfig replicaConfig(int index, String url, HikariConfig primary) {
+		HikariConfig config = poolConfig("taskmanager-replica-" + index, url,
+				environment.getProperty(REPLICAS + "-username", primary.getUsername()),
+				environment.getProperty(REPLICAS + "-password", primary.getPassword()));
+		config.setConnectionTimeout(environment.getProperty(REPLICAS + "-connection-timeout", Long.class, 1_000L));
+		config.setInitializationFailFast(false);
+		return config;
+	}
+
+	// Connector/J prepares every statement again, sends every batched row in a
+	// round trip of its own and reads whole result sets into memory, ignoring
+	// the fetch size, unless told otherwise
+	private void mysqlProperties(HikariConfig config) {
+		String[][] defaults = { { "cachePrepStmts", "true" }, { "prepStmtCacheSize", "250" },
+				{ "prepStmtCacheSqlLimit", "2048" }, { "useServerPrepStmts", "true" },
+				{ "rewriteBatchedStatements", "true" }, { "useCursorFetch", "true" } };
+		for (String[] property : defaults) {
+			config.addDataSourceProperty(property[0],
+					environment.getProperty(HIKARI + "data-source-properties." + property[0], property[1]));
+		}
+	}
 
-		return new HikariDataSource(config);
+	// Cache Manager, the same singleton the Hibernate second-level cache uses
+	@Bean
+	CacheManager cacheManager() {
+		return CacheManager.create(getClass().getResource(cacheConfig()));
 	}
 
 	// Transaction Manager
@@ -44,7 +141,7 @@ public class Config {
 	@Bean
 	JpaVendorAdapter jpaVendorAdapter() {
 		HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter();
-		adapter.setDatabase(Database.MYSQL);
+		adapter.setDatabase(environment.getProperty("spring.jpa.database", Database.class, Database.MYSQL));
 		adapter.setGenerateDdl(true);
 		return adapter;
 	}
@@ -54,10 +151,46 @@ public class Config {
 	LocalContainerEntityManagerFactoryBean entityManagerFactory() {
 
 		LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
-		factory.setDataSource(dataSource());
+		DataSource dataSource = dataSource();
+		if (dataSource instanceof ReadWriteRoutingDataSource) {
+			// the route is chosen on the first statement, once the transaction
+			// is known to be read-only, and what a replica returns is not cached
+			dataSource = new LazyConnectionDataSourceProxy(dataSource);
+			factory.setJpaDialect(new ReplicaCacheJpaDialect());
+		}
+		factory.setDataSource(new CountingDataSource(dataSource));
 		factory.setJpaVendorAdapter(jpaVendorAdapter());
 		factory.setPackagesToScan("se.springdata.model");
+		factory.setJpaPropertyMap(jpaProperties());
 
 		return factory;
 	}
+
+	// Hibernate sends inserts and updates in JDBC batches of this size, and
+	// reserves ids in blocks so those inserts need no round trip per row
+	private Map<String, Object> jpaProperties() {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put(PooledIdGenerator.ALLOCATION_SIZE, environment.getProperty("taskmanager.id.allocation-size",
+				String.valueOf(PooledIdGenerator.DEFAULT_ALLOCATION_SIZE)));
+		properties.put("hibernate.jdbc.batch_size",
+				environment.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size", "50"));
+		properties.put("hibernate.order_inserts", "true");
+		properties.put("hibernate.order_updates", "true");
+
+		// Teams and users are cached in the regions of ehcache.xml
+		String cacheEnabled = environment.getProperty("taskmanager.cache.enabled", "true");
+		properties.put("hibernate.cache.use_second_level_cache", cacheEnabled);
+		properties.put("hibernate.cache.use_query_cache", cacheEnabled);
+		properties.put("hibernate.cache.region.factory_class", SingletonEhCacheRegionFactory.class.getName());
+		properties.put("net.sf.ehcache.configurationResourceName", cacheConfig());
+		// second-level and query cache hits and misses, next to the counters
+		// Ehcache keeps per region for /stats/cache
+		properties.put("hibernate.generate_statistics",
+				environment.getProperty("taskmanager.cache.statistics", "true"));
+		return properties;
+	}
+
+	private String cacheConfig() {
+		return environment.getProperty("taskmanager.cache.config", "/ehcache.xml");
+	}
 }
@@ -0,0 +1,159 @@
+package se.springdata.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out replica connections to read-only transactions, round robin over
+ * the replicas that passed their last health check, and primary connections
+ * to everything else. A replica that cannot give a connection is skipped
+ * until a later check finds it healthy again; with none left, reads go to
+ * the primary.
+ * <p>
+ * Whether a transaction is read-only is only known once it has begun, so
+ * this must sit behind a {@link LazyConnectionDataSourceProxy}. Reads may
+ * lag the writes before them by as much as the replication does.
+ */
+public final class ReadWriteRoutingDataSource extends AbstractDataSource implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+	private static final int VALID_TIMEOUT_SECONDS = 2;
+
+	private final DataSource primary;
+	private final List<Replica> replicas = new ArrayList<>();
+	private final AtomicInteger next = new AtomicInteger();
+	private final ScheduledExecutorService health;
+
+	public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, long checkMillis) {
+		this.primary = primary;
+		for (int i = 0; i < replicas.size(); i++) {
+			this.replicas.add(new Replica(i, replicas.get(i)));
+		}
+		this.health = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "replica-health");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.health.scheduleWithFixedDelay(this::checkReplicas, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return route(DataSource::getConnection);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return route(dataSource -> dataSource.getConnection(username, password));
+	}
+
+	private Connection route(Connector connector) throws SQLException {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			int start = next.getAndIncrement();
+			for (int i = 0; i < replicas.size(); i++) {
+				Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+				if (replica.healthy) {
+					try {
+						return connector.connect(replica.dataSource);
+					} catch (SQLException e) {
+						replica.down(e);
+					}
+				}
+			}
+		}
+		return connector.connect(primary);
+	}
+
+	/**
+	 * Whether the replica at {@code index}, in configuration order, takes
+	 * reads at the moment.
+	 */
+	public boolean isHealthy(int index) {
+		return replicas.get(index).healthy;
+	}
+
+	/**
+	 * Checks every replica now instead of waiting for the next scheduled
+	 * check.
+	 */
+	public void checkReplicas() {
+		for (Replica replica : replicas) {
+			try (Connection connection = replica.dataSource.getConnection()) {
+				if (connection.isValid(VALID_TIMEOUT_SECONDS)) {
+					replica.up();
+				} else {
+					replica.down(null);
+				}
+			} catch (SQLException e) {
+				replica.down(e);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		health.shutdownNow();
+		for (Replica replica : replicas) {
+			closeQuietly(replica.dataSource);
+		}
+		closeQuietly(primary);
+	}
+
+	private static void closeQuietly(DataSource dataSource) {
+		if (dataSource instanceof Closeable) {
+			try {
+				((Closeable) dataSource).close();
+			} catch (IOException e) {
+				LOG.warn("Could not close {}", dataSource, e);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface Connector {
+		Connection connect(DataSource dataSource) throws SQLException;
+	}
+
+	private static final class Replica {
+
+		private final int index;
+		private final DataSource dataSource;
+		private volatile boolean healthy = true;
+
+		Replica(int index, DataSource dataSource) {
+			this.index = index;
+			this.dataSource = dataSource;
+		}
+
+		void up() {
+			if (!healthy) {
+				healthy = true;
+				LOG.info("Replica {} is back, reads go to it again", index);
+			}
+		}
+
+		void down(SQLException cause) {
+			if (healthy) {
+				healthy = false;
+				LOG.warn("Replica {} is unavailable, its reads go elsewhere: {}", index,
+						cause == null ? "connection not valid" : cause.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package se.springdata.datasource;
+
+import java.sql.SQLException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.CacheMode;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Keeps read-only transactions, which {@link ReadWriteRoutingDataSource}
+ * sends to a replica, from filling the second-level and query caches. A
+ * replica may still be behind the write that just evicted an entry, and
+ * would put the old row back for the whole time to live of the region. Such
+ * transactions still read the caches; every other transaction reads and
+ * fills them as usual.
+ */
+public final class ReplicaCacheJpaDialect extends HibernateJpaDialect {
+
+	private static final long serialVersionUID = 2907406471587853470L;
+
+	@Override
+	public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+			throws PersistenceException, SQLException, TransactionException {
+		Object transactionData = super.beginTransaction(entityManager, definition);
+		getSession(entityManager).setCacheMode(definition.isReadOnly() ? CacheMode.GET : CacheMode.NORMAL);
+		return transactionData;
+	}
+}
@@ -0,0 +1,15 @@
+package se.springdata.exception;
+
+/**
+ * Thrown inside a service transaction when a conditional update matched no
+ * row, so the transaction is rolled back. Services translate it into a
+ * {@link ServiceException} with the same message.
+ */
+public class RejectedUpdateException extends RuntimeException {
+
+	private static final long serialVersionUID = 3316587200145631094L;
+
+	public RejectedUpdateException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,21 @@
+package se.springdata.exception;
+
+/**
+ * Thrown when a conditional update finds the row at another version than the
+ * one the caller read, that is when someone else updated it meanwhile.
+ */
+public final class StaleVersionException extends ServiceException {
+
+	private static final long serialVersionUID = 4410269263176251553L;
+
+	private final long currentVersion;
+
+	public StaleVersionException(String message, long currentVersion) {
+		super(message);
+		this.currentVersion = currentVersion;
+	}
+
+	public long getCurrentVersion() {
+		return currentVersion;
+	}
+}
@@ -1,17 +1,34 @@
 package se.springdata.model;
 
+import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.GenericGenerator;
 
 @MappedSuperclass
 public abstract class AbstractEntity {
 
 	@Id
-	@GeneratedValue
+	@GeneratedValue(generator = "pooled")
+	@GenericGenerator(name = "pooled", strategy = "se.springdata.model.PooledIdGenerator")
 	protected Long id;
-	
+
+	@Version
+	@Column(name = "VERSION")
+	protected Long version;
+
 	public Long getId() {
 		return id;
 	}
+
+	/**
+	 * Incremented by every update, also by the bulk updates in the
+	 * repositories, so a client can send it back in {@code If-Match}.
+	 */
+	public Long getVersion() {
+		return version;
+	}
 }
\ No newline at end of file
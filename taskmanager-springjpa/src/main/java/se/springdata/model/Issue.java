@@ -8,14 +8,14 @@ import javax.persistence.JoinColumn;
 import javax.persistence.OneToOne;
 
 @Entity
-public final class Issue extends AbstractEntity {
+public class Issue extends AbstractEntity {
 
 	@Column(name = "DESCRIPTION")
 	private String issueReason;
 	@Column(name = "Answer")
 	private String answer;
 
-	@OneToOne(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+	@OneToOne(cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
 	@JoinColumn(name = "WORKITEM_ID")
 	private Workitem workitem;
 
@@ -40,10 +40,14 @@ public final class Issue extends AbstractEntity {
 		return id;
 	}
 
+	public void setWorkitem(Workitem workitem) {
+		this.workitem = workitem;
+	}
+
 	@Override
 	public String toString() {
-		return "Issue [id=" + id + ", issueReason=" + issueReason + ", answer=" + answer + ", workitem=" + workitem
-				+ "]";
+		return "Issue [id=" + id + ", issueReason=" + issueReason + ", answer=" + answer + ", workitemId="
+				+ (workitem == null ? null : workitem.getId()) + "]";
 	}
 
 }
\ No newline at end of file
@@ -2,14 +2,25 @@ package se.springdata.model;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-public final class Team extends AbstractEntity {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@Table(uniqueConstraints = @UniqueConstraint(name = Team.TEAM_NAME_KEY, columnNames = "TEAM_NAME"))
+public class Team extends AbstractEntity {
+
+	public static final String TEAM_NAME_KEY = "UK_TEAM_NAME";
 
-	@Column(unique = true, name = "TEAM_NAME")
+	@Column(name = "TEAM_NAME")
 	private String teamName;
 
 	@Column(name = "TEAM_STATUS")
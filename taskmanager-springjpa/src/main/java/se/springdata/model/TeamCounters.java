@@ -0,0 +1,90 @@
+package se.springdata.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Counters of a team that change with every join and with every write to its
+ * members or workitems. They are kept out of the cached {@link Team}, so the
+ * bulk updates that move them only touch this uncached table and leave the
+ * "team" region and its lookups alone.
+ */
+@Entity
+@Table(name = "TEAM_COUNTERS")
+public class TeamCounters implements Persistable<Long> {
+
+	@Id
+	@Column(name = "TEAM_ID")
+	private Long teamId;
+
+	@Column(name = "MEMBER_COUNT", nullable = false)
+	private int memberCount;
+
+	@Column(name = "MEMBERS_VERSION", nullable = false)
+	private long membersVersion;
+
+	@Column(name = "WORKITEMS_VERSION", nullable = false)
+	private long workitemsVersion;
+
+	// the id is the one of the owner, so it can't tell a new row apart
+	@Transient
+	private boolean inserted;
+
+	protected TeamCounters() {
+	}
+
+	public TeamCounters(long teamId) {
+		this.teamId = teamId;
+	}
+
+	@Override
+	public Long getId() {
+		return teamId;
+	}
+
+	/**
+	 * Lets {@code save} insert the counters of a new owner without reading
+	 * them first.
+	 */
+	@Override
+	public boolean isNew() {
+		return !inserted;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markInserted() {
+		inserted = true;
+	}
+
+	/**
+	 * Number of users in the team, kept up to date by
+	 * {@link se.springdata.service.TeamService}.
+	 */
+	public int getMemberCount() {
+		return memberCount;
+	}
+
+	/**
+	 * Bumped by every write to a member of the team, for
+	 * {@link se.springdata.cache.CollectionVersions}.
+	 */
+	public long getMembersVersion() {
+		return membersVersion;
+	}
+
+	/**
+	 * Bumped by every write to a workitem of the team, for
+	 * {@link se.springdata.cache.CollectionVersions}.
+	 */
+	public long getWorkitemsVersion() {
+		return workitemsVersion;
+	}
+}
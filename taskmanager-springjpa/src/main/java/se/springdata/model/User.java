@@ -3,21 +3,32 @@ package se.springdata.model;
 import java.util.ArrayList;
 import java.util.Collection;
 import javax.persistence.CascadeType;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-public final class User extends AbstractEntity {
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+@Table(uniqueConstraints = @UniqueConstraint(name = User.USER_NAME_KEY, columnNames = "USER_NAME"))
+public class User extends AbstractEntity {
+
+	public static final String USER_NAME_KEY = "UK_USER_NAME";
 
 	@Column(name = "FIRST_NAME")
 	private String firstName;
 	@Column(name = "LAST_NAME")
 	private String lastName;
-	@Column(name = "USER_NAME", unique = true)
+	@Column(name = "USER_NAME")
 	private String userName;
 	@Column(name = "USER_STATUS", nullable = false)
 	private String userStatus;
@@ -27,7 +38,7 @@ public final class User extends AbstractEntity {
 	@OneToMany(mappedBy = "user")
 	private Collection<Workitem> workitem = new ArrayList<Workitem>();
 
-	@ManyToOne(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+	@ManyToOne(cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
 	@JoinColumn(nullable = true, name = "TEAM_ID")
 	private Team team;
 
@@ -79,6 +90,6 @@ public final class User extends AbstractEntity {
 	@Override
 	public String toString() {
 		return " User [id=" + getId() + ", firstName=" + firstName + ", lastName=" + lastName + ", userName=" + userName
-				+ ", userStatus=" + userStatus + ", teamId=" + team.getId() + "]\n";
+				+ ", userStatus=" + userStatus + ", teamId=" + (team == null ? null : team.getId()) + "]\n";
 	}
 }
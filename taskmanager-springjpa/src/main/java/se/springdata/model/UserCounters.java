@@ -0,0 +1,67 @@
+package se.springdata.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Counters of a user that change with every assignment. They are kept out of
+ * the cached {@link User}, so the bulk updates that move them only touch this
+ * uncached table and leave the "user" region and its lookups alone.
+ */
+@Entity
+@Table(name = "USER_COUNTERS")
+public class UserCounters implements Persistable<Long> {
+
+	@Id
+	@Column(name = "USER_ID")
+	private Long userId;
+
+	@Column(name = "WORKITEM_COUNT", nullable = false)
+	private int workitemCount;
+
+	// the id is the one of the owner, so it can't tell a new row apart
+	@Transient
+	private boolean inserted;
+
+	protected UserCounters() {
+	}
+
+	public UserCounters(long userId) {
+		this.userId = userId;
+	}
+
+	@Override
+	public Long getId() {
+		return userId;
+	}
+
+	/**
+	 * Lets {@code save} insert the counters of a new owner without reading
+	 * them first.
+	 */
+	@Override
+	public boolean isNew() {
+		return !inserted;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markInserted() {
+		inserted = true;
+	}
+
+	/**
+	 * Number of workitems assigned to the user, kept up to date by
+	 * {@link se.springdata.service.WorkitemService}.
+	 */
+	public int getWorkitemCount() {
+		return workitemCount;
+	}
+}
@@ -8,10 +8,14 @@ import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
-import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 @Entity
-public final class Workitem extends AbstractEntity {
+@Table(uniqueConstraints = @UniqueConstraint(name = Workitem.TITLE_KEY, columnNames = "TITLE"))
+public class Workitem extends AbstractEntity {
+
+	public static final String TITLE_KEY = "UK_WORKITEM_TITLE";
 
 	@Column(name = "TITLE")
 	private String title;
@@ -22,17 +26,14 @@ public final class Workitem extends AbstractEntity {
 	@Column(nullable = false, name = "STATUS")
 	private Status status;
 
-	@ManyToOne(fetch = FetchType.EAGER)
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(nullable = true, name = "TEAM_ID")
 	private Team team;
 
-	@ManyToOne(cascade = CascadeType.PERSIST, fetch = FetchType.EAGER)
+	@ManyToOne(cascade = CascadeType.PERSIST, fetch = FetchType.LAZY)
 	@JoinColumn(nullable = true, name = "USER_ID")
 	private User user;
 
-	@OneToOne(mappedBy = "workitem", cascade = CascadeType.REMOVE)
-	private Issue issue;
-
 	protected Workitem() {
 	}
 
@@ -66,7 +67,8 @@ public final class Workitem extends AbstractEntity {
 	@Override
 	public String toString() {
 		return "Workitem [id=" + id + ", title=" + title + ", description=" + description + ", status=" + status
-				+ ", team=" + team + ", user=" + user + ", issue=" + issue + "]";
+				+ ", teamId=" + (team == null ? null : team.getId()) + ", userId="
+				+ (user == null ? null : user.getId()) + "]";
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package se.springdata.model;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.hibernate.annotations.GenericGenerator;
+
+/**
+ * A workitem added or deleted, written in the same transaction as the write
+ * itself, so that {@link se.springdata.search.WorkitemSearchIndex} on other
+ * nodes can catch up by reading the recent changes instead of every id.
+ */
+@Entity
+@Table(name = "WORKITEM_CHANGE", indexes = @Index(name = "IX_WORKITEM_CHANGE_CHANGED_AT", columnList = "CHANGED_AT"))
+public class WorkitemChange {
+
+	@Id
+	@GeneratedValue(generator = "pooled")
+	@GenericGenerator(name = "pooled", strategy = "se.springdata.model.PooledIdGenerator")
+	private Long id;
+
+	@Column(name = "WORKITEM_ID", nullable = false)
+	private long workitemId;
+
+	@Column(name = "DELETED", nullable = false)
+	private boolean deleted;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "CHANGED_AT", nullable = false)
+	private Date changedAt;
+
+	protected WorkitemChange() {
+	}
+
+	private WorkitemChange(long workitemId, boolean deleted) {
+		this.workitemId = workitemId;
+		this.deleted = deleted;
+		this.changedAt = new Date();
+	}
+
+	public static WorkitemChange added(long workitemId) {
+		return new WorkitemChange(workitemId, false);
+	}
+
+	public static WorkitemChange deleted(long workitemId) {
+		return new WorkitemChange(workitemId, true);
+	}
+
+	public long getWorkitemId() {
+		return workitemId;
+	}
+
+	public boolean isDeleted() {
+		return deleted;
+	}
+
+	public Date getChangedAt() {
+		return changedAt;
+	}
+}
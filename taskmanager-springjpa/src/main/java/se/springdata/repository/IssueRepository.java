@@ -1,38 +1,59 @@
 package se.springdata.repository;
 
 import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.transaction.annotation.Transactional;
 import se.springdata.model.Issue;
 import se.springdata.model.Workitem;
+import se.springdata.view.WorkitemView;
 
 public interface IssueRepository extends PagingAndSortingRepository<Issue, Long> {
 
 	@Transactional
 	@Modifying
-	@Query("update Issue i set workitem_id = ?1 where i.id = ?2")
-	Integer assignWorkitemToIssue(long workitemId, long issueId);
+	@Query("delete from Issue i where i.workitem.id = ?1")
+	Integer deleteIssuesOfWorkitem(long workitemId);
 
 	@Query("select w.status from Workitem w where w.id = ?1 ")
 	String findWorkitemStatusById(Long workitemId);
 
 	@Transactional
 	@Modifying
-	@Query("update Issue i set i.issueReason = ?1 where i.id = ?2")
+	@Query("update Issue i set i.issueReason = ?1, i.version = i.version + 1 where i.id = ?2")
 	Integer updateIssue(String newReson, long issueId);
 
 	@Transactional
 	@Modifying
-	@Query("update Issue i set i.answer = ?1 where i.id = ?2")
+	@Query("update Issue i set i.answer = ?1, i.version = i.version + 1 where i.id = ?2")
 	Integer updateIssueAnswer(String answer, long issueId);
 
+	@Transactional
+	@Modifying
+	@Query("update Issue i set i.answer = ?1, i.issueReason = ?2, i.version = i.version + 1 where i.id = ?3")
+	Integer updateAnswerAndReason(String answer, String newReason, long issueId);
+
+	@Transactional
+	@Modifying
+	@Query("update Issue i set i.answer = ?1, i.issueReason = ?2, i.version = i.version + 1 "
+			+ "where i.id = ?3 and i.version = ?4")
+	Integer updateAnswerAndReasonIfVersion(String answer, String newReason, long issueId, long version);
+
+	@Query("select i.version from Issue i where i.id = ?1")
+	Long findVersionById(long issueId);
+
 	@Query("select i.id from Issue i")
 	Collection<Long> findAllIssueId();
 
 	@Query("select i.workitem from Issue i")
 	Collection<Workitem> findAllWorkitemFromIssue();
+
+	@Query("select new se.springdata.view.WorkitemView(w.id, w.title, w.description, w.status, w.version) "
+			+ "from Issue i join i.workitem w")
+	List<WorkitemView> findWorkitemViewsWithIssue();
 	
 	@Query("select i.workitem.id from Issue i")
 	Workitem findWorkitemFromIssue();
@@ -0,0 +1,51 @@
+package se.springdata.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import se.springdata.model.TeamCounters;
+
+public interface TeamCountersRepository extends PagingAndSortingRepository<TeamCounters, Long> {
+
+	@Transactional
+	@Modifying
+	@Query("update TeamCounters c set c.memberCount = c.memberCount + ?2 WHERE c.teamId = ?1")
+	Integer addToMemberCount(long teamId, int delta);
+
+	@Transactional
+	@Modifying
+	@Query("update TeamCounters c set c.memberCount = c.memberCount + 1, c.membersVersion = c.membersVersion + 1 "
+			+ "WHERE c.teamId = ?1 and c.memberCount < ?2")
+	Integer reserveMember(long teamId, int limit);
+
+	@Transactional
+	@Modifying
+	@Query("update TeamCounters c set c.membersVersion = c.membersVersion + 1 "
+			+ "WHERE c.teamId = (select u.team.id from User u where u.id = ?1)")
+	Integer bumpMembersVersionOfUser(long userId);
+
+	@Transactional
+	@Modifying
+	@Query("update TeamCounters c set c.workitemsVersion = c.workitemsVersion + 1 "
+			+ "WHERE c.teamId in (select w.team.id from Workitem w where w.id in ?1)")
+	Integer bumpWorkitemsVersionOf(Collection<Long> workitemIds);
+
+	@Transactional
+	@Modifying
+	@Query("update TeamCounters c set c.workitemsVersion = c.workitemsVersion + 1 "
+			+ "WHERE c.teamId = ?1 or c.teamId = (select w.team.id from Workitem w where w.id = ?2)")
+	Integer bumpWorkitemsVersionOfMove(long teamId, long workitemId);
+
+	@Transactional
+	@Modifying
+	@Query("update TeamCounters c set c.workitemsVersion = c.workitemsVersion + 1 "
+			+ "WHERE c.teamId in (select w.team.id from Workitem w where w.user.id = ?1)")
+	Integer bumpWorkitemsVersionOfUser(long userId);
+
+	@Query("select c.memberCount from TeamCounters c where c.teamId = ?1")
+	Integer findMemberCountById(long teamId);
+}
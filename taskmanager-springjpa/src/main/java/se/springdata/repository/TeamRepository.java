@@ -2,51 +2,84 @@ package se.springdata.repository;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.transaction.annotation.Transactional;
 
 import se.springdata.model.Team;
+import se.springdata.view.TeamView;
 
 public interface TeamRepository extends PagingAndSortingRepository<Team, Long>{
 
 	@Transactional
 	@Modifying
-	@Query("update Team t set t.teamName = ?1 WHERE t.id = ?2")
+	@Query("update Team t set t.teamName = ?1, t.version = t.version + 1 WHERE t.id = ?2")
 	Integer updateTeam(String teamName, long teamId);
-	
+
+	@Transactional
+	@Modifying
+	@Query("update Team t set t.teamName = ?1, t.version = t.version + 1 WHERE t.id = ?2 and t.version = ?3")
+	Integer updateTeamIfVersion(String teamName, long teamId, long version);
+
 	@Transactional
 	@Modifying
-	@Query("update Team t set t.teamStatus = 'inactive' WHERE t.id = ?1")
+	@Query("update Team t set t.teamStatus = 'inactive', t.version = t.version + 1 WHERE t.id = ?1")
 	Integer disableTeam(long teamId);
 	
 	@Transactional
 	@Modifying
-	@Query("update Team t set t.teamStatus = 'active' WHERE t.id = ?1")
+	@Query("update Team t set t.teamStatus = 'active', t.version = t.version + 1 WHERE t.id = ?1")
 	Integer enableTeam(long teamId);
+
+	@Transactional
+	@Modifying
+	@Query("update Team t set t.teamStatus = ?2, t.version = t.version + 1 "
+			+ "WHERE t.id = ?1 and t.version = ?3 and t.teamStatus <> ?2")
+	Integer setTeamStatusIfVersion(long teamId, String teamStatus, long version);
 	
 	@Transactional
 	@Modifying
-	@Query("update User u set u.team.id = ?1 WHERE u.id = ?2")
+	@Query("update User u set u.team.id = ?1, u.version = u.version + 1 WHERE u.id = ?2")
 	Integer addUserToTeam(long teamId, long userId); 
 	
+	@Transactional
+	@Modifying
+	@Query("update User u set u.team.id = ?1, u.version = u.version + 1 WHERE u.id = ?2 and u.team is null")
+	Integer joinTeam(long teamId, long userId);
+
+	@Query("select t.version from Team t where t.id = ?1")
+	Long findVersionById(long teamId);
+
+	@QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+			@QueryHint(name = "org.hibernate.cacheRegion", value = "team-lookups") })
 	@Query("select t.teamStatus from Team t where t.id = ?1")
 	String findTeamStatusById(long teamId);
 	
 	@Query("select t.teamName from Team t where t.teamName = ?1") 
 	String findByTeamName(String teamName);
 	
-	@Query("select t.teamName from Team t where t.id = ?1") 
+	@Query("select t.teamName from Team t where t.teamName in ?1")
+	List<String> findTeamNamesIn(Collection<String> teamNames);
+
+	@QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+			@QueryHint(name = "org.hibernate.cacheRegion", value = "team-lookups") })
+	@Query("select t.teamName from Team t where t.id = ?1")
 	String findTeamNameById(long teamId);
 	
-	@Query("select t.teamName from Team t ") 
-	Collection<Team> findAllTeamName();
-	
 	@Query("select t from Team t")
 	Collection<Team> findAllTeams(); 
 
+	@Query("select new se.springdata.view.TeamView(t.id, t.teamName, t.teamStatus, t.version) "
+			+ "from Team t where t.id > ?1 order by t.id")
+	List<TeamView> findTeamPage(long afterId, Pageable page);
+
 	@Query("select u.team.id from User u where team_id = ?1")
 	ArrayList<Long> findAllUserForTeamById(long teamId);
 	
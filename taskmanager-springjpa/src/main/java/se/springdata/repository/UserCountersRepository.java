@@ -0,0 +1,25 @@
+package se.springdata.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import se.springdata.model.UserCounters;
+
+public interface UserCountersRepository extends PagingAndSortingRepository<UserCounters, Long> {
+
+	@Transactional
+	@Modifying
+	@Query("update UserCounters c set c.workitemCount = c.workitemCount + ?2 WHERE c.userId = ?1")
+	Integer addToWorkitemCount(long userId, int delta);
+
+	@Transactional
+	@Modifying
+	@Query("update UserCounters c set c.workitemCount = c.workitemCount + 1 WHERE c.userId = ?1 "
+			+ "and c.workitemCount < ?2 and exists (select u.id from User u where u.id = ?1 and u.userStatus = 'active')")
+	Integer reserveWorkitem(long userId, int limit);
+
+	@Query("select c.workitemCount from UserCounters c where c.userId = ?1")
+	Integer findWorkitemCountById(long userId);
+}
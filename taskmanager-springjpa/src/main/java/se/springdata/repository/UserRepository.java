@@ -1,41 +1,73 @@
 package se.springdata.repository;
 
 import java.util.Collection;
+import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.transaction.annotation.Transactional;
 
 import se.springdata.model.User;
+import se.springdata.view.UserView;
 
 public interface UserRepository extends PagingAndSortingRepository<User, Long> {
 
+	String USER_VIEW = "select new se.springdata.view.UserView(u.id, u.firstName, u.lastName, u.userName, "
+			+ "u.userStatus, u.userNumber, u.version) from User u ";
+
 	@Transactional
 	@Modifying
-	@Query("update User u set u.firstName = ?1 WHERE u.id = ?2")
+	@Query("update User u set u.firstName = ?1, u.version = u.version + 1 WHERE u.id = ?2")
 	Integer updateUserFirstName(String newValue, long userId);
 
 	@Transactional
 	@Modifying
-	@Query("update User u set u.lastName = ?1 WHERE u.id = ?2")
+	@Query("update User u set u.firstName = ?1, u.version = u.version + 1 WHERE u.id = ?2 and u.version = ?3")
+	Integer updateUserFirstNameIfVersion(String newValue, long userId, long version);
+
+	@Transactional
+	@Modifying
+	@Query("update User u set u.lastName = ?1, u.version = u.version + 1 WHERE u.id = ?2")
 	Integer updateUserLastName(String newValue, long userId);
 
 	@Transactional
 	@Modifying
-	@Query("update User u set u.userName = ?1 WHERE u.id = ?2")
+	@Query("update User u set u.lastName = ?1, u.version = u.version + 1 WHERE u.id = ?2 and u.version = ?3")
+	Integer updateUserLastNameIfVersion(String newValue, long userId, long version);
+
+	@Transactional
+	@Modifying
+	@Query("update User u set u.userName = ?1, u.version = u.version + 1 WHERE u.id = ?2")
 	Integer updateUserName(String newValue, long userId);
 
 	@Transactional
 	@Modifying
-	@Query("update User u set u.userStatus = 'inactive' WHERE u.id = ?1")
+	@Query("update User u set u.userName = ?1, u.version = u.version + 1 WHERE u.id = ?2 and u.version = ?3")
+	Integer updateUserNameIfVersion(String newValue, long userId, long version);
+
+	@Transactional
+	@Modifying
+	@Query("update User u set u.userStatus = 'inactive', u.version = u.version + 1 WHERE u.id = ?1")
 	Integer disableUser(long userId);
 
 	@Transactional
 	@Modifying
-	@Query("update User u set u.userStatus = 'active' WHERE u.id = ?1")
+	@Query("update User u set u.userStatus = 'active', u.version = u.version + 1 WHERE u.id = ?1")
 	Integer enableUser(long userId);
 
+	@Transactional
+	@Modifying
+	@Query("update User u set u.userStatus = ?2, u.version = u.version + 1 "
+			+ "WHERE u.id = ?1 and u.version = ?3 and u.userStatus <> ?2")
+	Integer setUserStatusIfVersion(long userId, String userStatus, long version);
+
+	@QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+			@QueryHint(name = "org.hibernate.cacheRegion", value = "user-lookups") })
 	@Query("select u.userStatus from User u where u.id = ?1")
 	String findUserStatusById(long userId);
 
@@ -45,15 +77,14 @@ public interface UserRepository extends PagingAndSortingRepository<User, Long> {
 	@Query("select u.userName from User u WHERE u.userName = ?1")
 	String findUserNameByUserName(String userName);
 
-	@Query("select u.userName from User u")
-	Collection<User> findAllUserName();
-	
-	@Query("select u.userName from User u")
-	Collection<String> findAllUserNamee();
+	@Query("select u.userName from User u WHERE u.userName in ?1")
+	List<String> findUserNamesIn(Collection<String> userNames);
 
 	@Query("select u.userNumber from User u")
 	Collection<String> findAllUserNumber();
 
+	@QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+			@QueryHint(name = "org.hibernate.cacheRegion", value = "user-lookups") })
 	@Query("select u.team.id from User u where u.id = ?1")
 	Long findTeamIdByUserId(long userId);
 
@@ -62,7 +93,7 @@ public interface UserRepository extends PagingAndSortingRepository<User, Long> {
 
 	@Transactional
 	@Modifying
-	@Query("update Workitem w set w.status = 'UNSTARTED' where user_id = ?1")
+	@Query("update Workitem w set w.status = 'UNSTARTED', w.version = w.version + 1 where user_id = ?1")
 	Integer setWorkitemToUnstarted(long userId);
 
 	Collection<User> findByFirstName(String name);
@@ -75,4 +106,25 @@ public interface UserRepository extends PagingAndSortingRepository<User, Long> {
 
 	@Query("select u from User u where team_id = ?1")
 	Collection<User> findAllUserByTeamId(long teamId);
+
+	@Query(USER_VIEW + "where u.team.id = ?1 and u.id > ?2 order by u.id")
+	List<UserView> findUserPageByTeamId(long teamId, long afterId, Pageable page);
+
+	@Query(USER_VIEW + "where u.id = ?1")
+	UserView findUserViewById(long userId);
+
+	@Query("select u.version from User u where u.id = ?1")
+	Long findVersionById(long userId);
+
+	@Query(USER_VIEW + "where u.userNumber = ?1")
+	List<UserView> findUserViewsByUserNumber(String number);
+
+	@Query(USER_VIEW + "where u.firstName = ?1")
+	List<UserView> findUserViewsByFirstName(String name);
+
+	@Query(USER_VIEW + "where u.lastName = ?1")
+	List<UserView> findUserViewsByLastName(String name);
+
+	@Query(USER_VIEW + "where u.userName = ?1")
+	List<UserView> findUserViewsByUserName(String name);
 }
\ No newline at end of file
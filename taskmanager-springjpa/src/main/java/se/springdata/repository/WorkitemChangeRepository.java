@@ -0,0 +1,22 @@
+package se.springdata.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import se.springdata.model.WorkitemChange;
+
+public interface WorkitemChangeRepository extends PagingAndSortingRepository<WorkitemChange, Long> {
+
+	@Query("select c.workitemId, c.deleted from WorkitemChange c where c.changedAt >= ?1")
+	List<Object[]> findChangesSince(Date since);
+
+	@Transactional
+	@Modifying
+	@Query("delete from WorkitemChange c where c.changedAt < ?1")
+	Integer deleteChangesBefore(Date before);
+}
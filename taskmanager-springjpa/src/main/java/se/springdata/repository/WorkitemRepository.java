@@ -1,43 +1,87 @@
 package se.springdata.repository;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
-import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import se.springdata.model.Status;
 import se.springdata.model.Workitem;
+import se.springdata.view.WorkitemView;
 
 public interface WorkitemRepository extends PagingAndSortingRepository<Workitem, Long> {
 
+	String WORKITEM_VIEW = "select new se.springdata.view.WorkitemView(w.id, w.title, w.description, w.status, "
+			+ "w.version) from Workitem w ";
+
+	String EXPORT_FETCH_SIZE = "500";
+
 	@Transactional
 	@Modifying
-	@Query("update Workitem w set w.status = 'UNSTARTED' WHERE w.id = ?1")
+	@Query("update Workitem w set w.status = 'UNSTARTED', w.version = w.version + 1 WHERE w.id = ?1")
 	Integer setTaskToUnstarted(long workitemId);
 
 	@Transactional
 	@Modifying
-	@Query("update Workitem w set w.status = 'STARTED' WHERE w.id = ?1")
+	@Query("update Workitem w set w.status = 'STARTED', w.version = w.version + 1 WHERE w.id = ?1")
 	Integer setTaskToStarted(long workitemId);
 
 	@Transactional
 	@Modifying
-	@Query("update Workitem w set w.status = 'DONE' WHERE w.id = ?1")
+	@Query("update Workitem w set w.status = 'DONE', w.version = w.version + 1 WHERE w.id = ?1")
 	Integer setTaskToDone(long workitemId);
 
 	@Transactional
 	@Modifying
-	@Query("update Workitem w set w.user.id = ?1 where w.id = ?2")
+	@Query("update Workitem w set w.status = ?1, w.version = w.version + 1 where w.id in ?2 and w.status <> ?1")
+	Integer setStatusWhereIdIn(Status status, Collection<Long> workitemIds);
+
+	@Transactional
+	@Modifying
+	@Query("update Workitem w set w.status = ?2, w.version = w.version + 1 "
+			+ "where w.id = ?1 and w.version = ?3 and w.status <> ?2")
+	Integer setStatusIfVersion(long workitemId, Status status, long version);
+
+	@Transactional
+	@Modifying
+	@Query("update Workitem w set w.user.id = ?1, w.version = w.version + 1 where w.id = ?2")
 	Integer assignWorkitemToUser(long userId, long workitemId);
 
 	@Transactional
 	@Modifying
-	@Query("update Workitem w set w.team.id = ?1 where w.id = ?2")
+	@Query("update Workitem w set w.user.id = ?1, w.version = w.version + 1 where w.id = ?2 and w.user is null")
+	Integer assignUnassignedWorkitem(long userId, long workitemId);
+
+	@Transactional
+	@Modifying
+	@Query("update Workitem w set w.user.id = ?1, w.version = w.version + 1 where w.id = ?2 and w.user.id = ?3")
+	Integer reassignWorkitem(long userId, long workitemId, long previousUserId);
+
+	@Transactional
+	@Modifying
+	@Query("update Workitem w set w.team.id = ?1, w.version = w.version + 1 where w.id = ?2")
 	Integer assignTeamToWorkitem(long teamId, long workitemId);
 
+	@Transactional
+	@Modifying
+	@Query("delete from Workitem w where w.id = ?1 and w.user.id = ?2")
+	Integer deleteAssignedWorkitem(long workitemId, long userId);
+
+	@Transactional
+	@Modifying
+	@Query("delete from Workitem w where w.id = ?1 and w.user is null")
+	Integer deleteUnassignedWorkitem(long workitemId);
+
 	@Query("select w from Workitem w where status = ?1")
 	Collection<Workitem> findAllByWorkitemStatus(Status status);
 
@@ -47,8 +91,36 @@ public interface WorkitemRepository extends PagingAndSortingRepository<Workitem,
 	@Query("select w from Workitem w where user_id = ?1")
 	Collection<Workitem> findAllWorkitemByUser(long userId);
 
-	@Query("select w from Workitem w where w.description like %:sys%")
-	Collection<Workitem> findAllByCertainDescription(@Param("sys") String searchValue);
+	@Query(WORKITEM_VIEW + "where w.status = ?1 and w.id > ?2 order by w.id")
+	List<WorkitemView> findWorkitemPageByStatus(Status status, long afterId, Pageable page);
+
+	@Query(WORKITEM_VIEW + "where w.team.id = ?1 and w.id > ?2 order by w.id")
+	List<WorkitemView> findWorkitemPageByTeam(long teamId, long afterId, Pageable page);
+
+	/**
+	 * All workitems of the team, read through a cursor {@link #EXPORT_FETCH_SIZE}
+	 * rows at a time; on MySQL that takes {@code useCursorFetch=true}, which the
+	 * pool sets. Must be consumed and closed inside a transaction.
+	 */
+	@QueryHints({ @QueryHint(name = "org.hibernate.fetchSize", value = EXPORT_FETCH_SIZE),
+			@QueryHint(name = "org.hibernate.readOnly", value = "true") })
+	@Query(WORKITEM_VIEW + "where w.team.id = ?1 order by w.id")
+	Stream<WorkitemView> streamWorkitemsByTeam(long teamId);
+
+	@Query(WORKITEM_VIEW + "where w.user.id = ?1 and w.id > ?2 order by w.id")
+	List<WorkitemView> findWorkitemPageByUser(long userId, long afterId, Pageable page);
+
+	@Query(WORKITEM_VIEW + "where w.id in ?1")
+	List<WorkitemView> findWorkitemViewsIn(Collection<Long> ids);
+
+	@Query("select w.id, w.title, w.description from Workitem w where w.id > ?1 order by w.id")
+	List<Object[]> findSearchablePage(long afterId, Pageable page);
+
+	@Query("select w.id, w.title, w.description from Workitem w where w.id in ?1")
+	List<Object[]> findSearchableIn(Collection<Long> ids);
+
+	@Query("select w.id from Workitem w where w.id > ?1 order by w.id")
+	List<Long> findIdPage(long afterId, Pageable page);
 
 	@Query("select w.id from Workitem w")
 	Collection<Long> findAllWorkitemsId();
@@ -59,6 +131,17 @@ public interface WorkitemRepository extends PagingAndSortingRepository<Workitem,
 	@Query("select w.status from Workitem w where w.id = ?1")
 	Collection<se.springdata.model.Status> findWorkitemStatusById(long id);
 
+	/**
+	 * Locks the rows until the transaction ends, in id order so that two
+	 * overlapping calls cannot deadlock.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select w.id, w.status from Workitem w where w.id in ?1 order by w.id")
+	List<Object[]> lockStatusesIn(Collection<Long> ids);
+
+	@Query("select w.user.id from Workitem w where w.id = ?1")
+	Long findUserIdByWorkitemId(long workitemId);
+
 	@Query("select w.user.id from Workitem w")
 	Collection<Long> findUserIdFromWorkitem();
 
@@ -68,8 +151,11 @@ public interface WorkitemRepository extends PagingAndSortingRepository<Workitem,
 	@Query("select w from Workitem w where w.id = ?1")
 	Collection<Workitem> findWorkitemById(long workitemId);
 
-	@Query("select w.title from Workitem w")
-	Collection<String> getWorkItemsTitle();
+	@Query("select w.version from Workitem w where w.id = ?1")
+	Long findVersionById(long workitemId);
+
+	@Query("select w.title from Workitem w where w.title in ?1")
+	List<String> findTitlesIn(Collection<String> titles);
 
 	Workitem findByDescription(String description);
 //	
@@ -0,0 +1,432 @@
+package se.springdata.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import se.springdata.model.Workitem;
+import se.springdata.model.WorkitemChange;
+import se.springdata.repository.WorkitemChangeRepository;
+import se.springdata.repository.WorkitemRepository;
+import se.springdata.transaction.ServiceTransaction;
+
+/**
+ * In-memory trigram index over the title and description of every workitem.
+ * The index is loaded at startup and kept current by
+ * {@link se.springdata.service.WorkitemService} on add and delete, so a search
+ * never has to scan the workitem table. Each trigram keeps the ids of its
+ * workitems as a sorted {@code long[]}, eight bytes an entry, and a query
+ * shorter than a trigram matches nothing rather than every document.
+ * <p>
+ * Writes made through other nodes are picked up by {@link #catchUp()} every
+ * {@code taskmanager.search.catch-up-millis} (30000 ms, 0 turns it off). It
+ * reads the {@link WorkitemChange}s recorded since the previous catch-up, so
+ * its cost follows the number of writes, not the size of the table. Comparing
+ * ids with the highest one indexed would not do: the nodes take ids in blocks
+ * of their own, so a new row can lie below the highest id indexed here.
+ * <p>
+ * {@link #fullCatchUp()} compares every id in the table with the indexed
+ * ones. It runs every {@code taskmanager.search.full-catch-up-millis}
+ * (86400000 ms, 0 leaves it to manual calls), and instead of a catch-up
+ * when the changes since the previous one may have been pruned already.
+ */
+@Component
+public class WorkitemSearchIndex {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WorkitemSearchIndex.class);
+	private static final int GRAM = 3;
+	public static final int MIN_QUERY_LENGTH = GRAM;
+	private static final int LOAD_PAGE_SIZE = 1000;
+
+	// re-read before the previous catch-up, for writes that committed late and
+	// for clocks that differ between the nodes
+	static final long CATCH_UP_OVERLAP_MILLIS = 60000L;
+	// how long a change is kept for the nodes that have not read it yet
+	static final long CHANGE_RETENTION_MILLIS = 3600000L;
+
+	private final WorkitemRepository workitemRepository;
+	private final WorkitemChangeRepository changeRepository;
+	private final ServiceTransaction executor;
+	private final long catchUpMillis;
+	private final long fullCatchUpMillis;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, Postings> postings = new HashMap<>();
+	private final Map<Long, Document> documents = new HashMap<>();
+	private volatile long lastCatchUp;
+	private volatile long lastFullCatchUp;
+	private ScheduledExecutorService scheduler;
+
+	@Autowired
+	public WorkitemSearchIndex(WorkitemRepository workitemRepository, WorkitemChangeRepository changeRepository,
+			ServiceTransaction executor, @Value("${taskmanager.search.catch-up-millis:30000}") long catchUpMillis,
+			@Value("${taskmanager.search.full-catch-up-millis:86400000}") long fullCatchUpMillis) {
+		this.workitemRepository = workitemRepository;
+		this.changeRepository = changeRepository;
+		this.executor = executor;
+		this.catchUpMillis = catchUpMillis;
+		this.fullCatchUpMillis = fullCatchUpMillis;
+	}
+
+	@PostConstruct
+	public synchronized void load() {
+		lastCatchUp = lastFullCatchUp = System.currentTimeMillis();
+		long afterId = 0L;
+		List<Object[]> rows;
+		do {
+			rows = workitemRepository.findSearchablePage(afterId, new PageRequest(0, LOAD_PAGE_SIZE));
+			for (Object[] row : rows) {
+				afterId = (Long) row[0];
+				add(afterId, (String) row[1], (String) row[2]);
+			}
+		} while (rows.size() == LOAD_PAGE_SIZE);
+		if (catchUpMillis > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread thread = new Thread(task, "search-catch-up");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.scheduleWithFixedDelay(this::catchUpQuietly, catchUpMillis, catchUpMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void close() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	/**
+	 * Indexes the workitems added through other nodes and drops the ones they
+	 * deleted, as recorded since the previous catch-up. Only the added rows
+	 * this node has not indexed yet are read. The changes are read on the
+	 * primary, since a replica may not have them yet, and the ones older than
+	 * {@value #CHANGE_RETENTION_MILLIS} ms are pruned.
+	 */
+	public synchronized void catchUp() {
+		long started = System.currentTimeMillis();
+		Set<Long> added = new LinkedHashSet<>();
+		Set<Long> deleted = new HashSet<>();
+		executor.execute(() -> {
+			for (Object[] row : changeRepository.findChangesSince(new Date(lastCatchUp - CATCH_UP_OVERLAP_MILLIS))) {
+				((Boolean) row[1] ? deleted : added).add((Long) row[0]);
+			}
+			// ids are never reused, so a deleted workitem stays deleted
+			added.removeAll(deleted);
+			lock.readLock().lock();
+			try {
+				added.removeAll(documents.keySet());
+			} finally {
+				lock.readLock().unlock();
+			}
+			index(new ArrayList<>(added));
+			changeRepository.deleteChangesBefore(new Date(started - CHANGE_RETENTION_MILLIS));
+			return null;
+		});
+		deleted.forEach(this::remove);
+		lastCatchUp = started;
+	}
+
+	/**
+	 * Compares every id in the table with the indexed ones, indexing the
+	 * missing workitems and dropping the ones that are gone. The ids are read
+	 * a page at a time on the primary. A workitem indexed here while the ids
+	 * are read is never dropped.
+	 */
+	public synchronized void fullCatchUp() {
+		long started = System.currentTimeMillis();
+		Set<Long> gone;
+		lock.readLock().lock();
+		try {
+			gone = new HashSet<>(documents.keySet());
+		} finally {
+			lock.readLock().unlock();
+		}
+		List<Long> added = new ArrayList<>();
+		executor.execute(() -> {
+			long afterId = 0L;
+			List<Long> ids;
+			do {
+				ids = workitemRepository.findIdPage(afterId, new PageRequest(0, LOAD_PAGE_SIZE));
+				for (Long id : ids) {
+					afterId = id;
+					if (!gone.remove(id)) {
+						added.add(id);
+					}
+				}
+			} while (ids.size() == LOAD_PAGE_SIZE);
+			index(added);
+			return null;
+		});
+		gone.forEach(this::remove);
+		lastCatchUp = lastFullCatchUp = started;
+	}
+
+	private void index(List<Long> ids) {
+		for (int from = 0; from < ids.size(); from += LOAD_PAGE_SIZE) {
+			for (Object[] row : workitemRepository
+					.findSearchableIn(ids.subList(from, Math.min(from + LOAD_PAGE_SIZE, ids.size())))) {
+				add((Long) row[0], (String) row[1], (String) row[2]);
+			}
+		}
+	}
+
+	private void catchUpQuietly() {
+		try {
+			long now = System.currentTimeMillis();
+			if (fullCatchUpMillis > 0 && now - lastFullCatchUp >= fullCatchUpMillis
+					|| now - lastCatchUp >= CHANGE_RETENTION_MILLIS - CATCH_UP_OVERLAP_MILLIS) {
+				fullCatchUp();
+			} else {
+				catchUp();
+			}
+		} catch (RuntimeException e) {
+			LOG.warn("Could not catch up with the workitems written elsewhere, trying again later", e);
+		}
+	}
+
+	public void add(Workitem workitem) {
+		add(workitem.getId(), workitem.getTitle(), workitem.getDescription());
+	}
+
+	public void remove(long workitemId) {
+		lock.writeLock().lock();
+		try {
+			unindex(workitemId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the ids of at most {@code limit} workitems whose title or
+	 * description contains {@code searchValue}, best match first. Title hits
+	 * rank above description hits, then earlier matches above later ones.
+	 * A {@code searchValue} shorter than {@value #MIN_QUERY_LENGTH} characters
+	 * matches nothing.
+	 */
+	public List<Long> search(String searchValue, int limit) {
+		String query = normalize(searchValue);
+		if (query.length() < MIN_QUERY_LENGTH || limit < 1) {
+			return Collections.emptyList();
+		}
+		PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, Hit.ORDER.reversed());
+		lock.readLock().lock();
+		try {
+			for (long id : candidates(query)) {
+				Hit hit = documents.get(id).match(id, query);
+				if (hit != null) {
+					best.add(hit);
+					if (best.size() > limit) {
+						best.poll();
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		List<Hit> ranked = new ArrayList<>(best);
+		ranked.sort(Hit.ORDER);
+		List<Long> ids = new ArrayList<>(ranked.size());
+		ranked.forEach(hit -> ids.add(hit.id));
+		return ids;
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return documents.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void add(long id, String title, String description) {
+		Document document = new Document(normalize(title), normalize(description));
+		lock.writeLock().lock();
+		try {
+			unindex(id);
+			documents.put(id, document);
+			for (String gram : document.grams()) {
+				postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void unindex(long id) {
+		Document document = documents.remove(id);
+		if (document != null) {
+			for (String gram : document.grams()) {
+				Postings ids = postings.get(gram);
+				if (ids != null && ids.remove(id) && ids.isEmpty()) {
+					postings.remove(gram);
+				}
+			}
+		}
+	}
+
+	// The ids of the shortest posting that are in all the others, found by
+	// binary search in those.
+	private long[] candidates(String query) {
+		Set<String> grams = gramsOf(query);
+		List<Postings> lists = new ArrayList<>(grams.size());
+		for (String gram : grams) {
+			Postings ids = postings.get(gram);
+			if (ids == null) {
+				return new long[0];
+			}
+			lists.add(ids);
+		}
+		lists.sort(Comparator.comparingInt(Postings::size));
+		Postings shortest = lists.get(0);
+		long[] result = new long[shortest.size()];
+		int found = 0;
+		next: for (int i = 0; i < shortest.size(); i++) {
+			long id = shortest.get(i);
+			for (int j = 1; j < lists.size(); j++) {
+				if (!lists.get(j).contains(id)) {
+					continue next;
+				}
+			}
+			result[found++] = id;
+		}
+		return Arrays.copyOf(result, found);
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.toLowerCase(Locale.ROOT);
+	}
+
+	private static Set<String> gramsOf(String text) {
+		Set<String> grams = new LinkedHashSet<>();
+		for (int i = 0; i + GRAM <= text.length(); i++) {
+			grams.add(text.substring(i, i + GRAM));
+		}
+		return grams;
+	}
+
+	/**
+	 * The ids of the workitems with one trigram, sorted in a growing
+	 * {@code long[]}. Ids mostly arrive in ascending order and are appended;
+	 * the others are inserted in place.
+	 */
+	private static final class Postings {
+
+		private long[] ids = new long[2];
+		private int size;
+
+		private boolean add(long id) {
+			int at = size == 0 || ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+			if (at >= 0) {
+				return false;
+			}
+			at = -(at + 1);
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+			}
+			System.arraycopy(ids, at, ids, at + 1, size - at);
+			ids[at] = id;
+			size++;
+			return true;
+		}
+
+		private boolean remove(long id) {
+			int at = Arrays.binarySearch(ids, 0, size, id);
+			if (at < 0) {
+				return false;
+			}
+			System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+			size--;
+			if (size < ids.length / 4) {
+				ids = Arrays.copyOf(ids, ids.length / 2);
+			}
+			return true;
+		}
+
+		private boolean contains(long id) {
+			return Arrays.binarySearch(ids, 0, size, id) >= 0;
+		}
+
+		private long get(int index) {
+			return ids[index];
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private boolean isEmpty() {
+			return size == 0;
+		}
+	}
+
+	private static final class Document {
+
+		private final String title;
+		private final String description;
+
+		private Document(String title, String description) {
+			this.title = title;
+			this.description = description;
+		}
+
+		private Set<String> grams() {
+			Set<String> grams = gramsOf(title);
+			grams.addAll(gramsOf(description));
+			return grams;
+		}
+
+		private Hit match(long id, String query) {
+			int inTitle = title.indexOf(query);
+			if (inTitle >= 0) {
+				return new Hit(id, 0, inTitle);
+			}
+			int inDescription = description.indexOf(query);
+			return inDescription >= 0 ? new Hit(id, 1, inDescription) : null;
+		}
+	}
+
+	private static final class Hit {
+
+		private static final Comparator<Hit> ORDER = Comparator.<Hit> comparingInt(hit -> hit.field)
+				.thenComparingInt(hit -> hit.position).thenComparingLong(hit -> hit.id);
+
+		private final long id;
+		private final int field;
+		private final int position;
+
+		private Hit(long id, int field, int position) {
+			this.id = id;
+			this.field = field;
+			this.position = position;
+		}
+	}
+}
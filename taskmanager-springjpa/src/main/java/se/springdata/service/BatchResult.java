@@ -0,0 +1,55 @@
+package se.springdata.service;
+
+/**
+ * Outcome of one element of a batch insert. Results are returned in the same
+ * order as the submitted elements.
+ */
+public final class BatchResult<T> {
+
+	public enum Outcome {
+		CREATED, DUPLICATE, INVALID
+	}
+
+	private final Outcome outcome;
+	private final T entity;
+	private final String message;
+
+	private BatchResult(Outcome outcome, T entity, String message) {
+		this.outcome = outcome;
+		this.entity = entity;
+		this.message = message;
+	}
+
+	public static <T> BatchResult<T> created(T entity) {
+		return new BatchResult<>(Outcome.CREATED, entity, null);
+	}
+
+	public static <T> BatchResult<T> duplicate(T entity, String message) {
+		return new BatchResult<>(Outcome.DUPLICATE, entity, message);
+	}
+
+	public static <T> BatchResult<T> invalid(T entity, String message) {
+		return new BatchResult<>(Outcome.INVALID, entity, message);
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	public boolean isCreated() {
+		return outcome == Outcome.CREATED;
+	}
+
+	public T getEntity() {
+		return entity;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult [outcome=" + outcome + ", entity=" + entity + ", message=" + message + "]";
+	}
+}
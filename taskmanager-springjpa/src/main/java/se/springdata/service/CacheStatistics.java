@@ -0,0 +1,64 @@
+package se.springdata.service;
+
+/**
+ * Hit and miss counts of one cache region since startup, with the size and
+ * expiry settings the region runs with.
+ */
+public final class CacheStatistics {
+
+	private final String region;
+	private final long hits;
+	private final long misses;
+	private final long size;
+	private final long maxEntries;
+	private final long timeToLiveSeconds;
+
+	public CacheStatistics(String region, long hits, long misses, long size, long maxEntries,
+			long timeToLiveSeconds) {
+		this.region = region;
+		this.hits = hits;
+		this.misses = misses;
+		this.size = size;
+		this.maxEntries = maxEntries;
+		this.timeToLiveSeconds = timeToLiveSeconds;
+	}
+
+	public String getRegion() {
+		return region;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Share of lookups answered from the cache, 0 when nothing was looked up
+	 * yet.
+	 */
+	public double getHitRatio() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getTimeToLiveSeconds() {
+		return timeToLiveSeconds;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStatistics [region=" + region + ", hits=" + hits + ", misses=" + misses + ", size=" + size
+				+ ", maxEntries=" + maxEntries + ", timeToLiveSeconds=" + timeToLiveSeconds + "]";
+	}
+}
@@ -0,0 +1,44 @@
+package se.springdata.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.CacheConfiguration;
+
+/**
+ * Reads the statistics of the cache regions configured in
+ * {@code ehcache.xml}: the Hibernate second-level cache and the
+ * {@link se.springdata.cache.UserLookupCache}.
+ */
+@Component
+public final class CacheStatisticsService {
+
+	private final CacheManager manager;
+
+	@Autowired
+	public CacheStatisticsService(CacheManager manager) {
+		this.manager = manager;
+	}
+
+	public List<CacheStatistics> getRegionStatistics() {
+		String[] names = manager.getCacheNames();
+		Arrays.sort(names);
+		List<CacheStatistics> regions = new ArrayList<>(names.length);
+		for (String name : names) {
+			Cache cache = manager.getCache(name);
+			if (cache != null) {
+				CacheConfiguration configuration = cache.getCacheConfiguration();
+				regions.add(new CacheStatistics(name, cache.getStatistics().cacheHitCount(),
+						cache.getStatistics().cacheMissCount(), cache.getSize(),
+						configuration.getMaxEntriesLocalHeap(), configuration.getTimeToLiveSeconds()));
+			}
+		}
+		return regions;
+	}
+}
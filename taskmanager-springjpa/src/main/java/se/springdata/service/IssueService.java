@@ -1,46 +1,62 @@
 package se.springdata.service;
 
-import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Component;
 
 import se.springdata.exception.ServiceException;
+import se.springdata.exception.StaleVersionException;
 import se.springdata.model.Issue;
 import se.springdata.model.Workitem;
 import se.springdata.repository.IssueRepository;
+import se.springdata.repository.TeamCountersRepository;
 import se.springdata.repository.WorkitemRepository;
 import se.springdata.transaction.ServiceTransaction;
+import se.springdata.view.WorkitemView;
 
 @Component
 public final class IssueService {
 
 	private final IssueRepository issueRepository;
 	private final WorkitemRepository workitemRepository;
+	private final TeamCountersRepository teamCounterRepository;
 	private final ServiceTransaction executor;
 
 	@Autowired
 	public IssueService(IssueRepository issueRepository, WorkitemRepository workitemRepository,
-			ServiceTransaction executor) {
+			TeamCountersRepository teamCounterRepository, ServiceTransaction executor) {
 		this.issueRepository = issueRepository;
 		this.workitemRepository = workitemRepository;
+		this.teamCounterRepository = teamCounterRepository;
 		this.executor = executor;
 	}
 
+	/**
+	 * Reads the status of the workitem once, then inserts the issue with its
+	 * workitem already set, so it is saved at the version its ETag reports.
+	 */
 	public Issue addAndAssignIssue(Issue issue, long workitemId) throws ServiceException {
 
-		if (!issueRepository.findWorkitemStatusById(workitemId).contains("DONE")) {
+		String status = issueRepository.findWorkitemStatusById(workitemId);
+		if (status == null) {
+			throw new ServiceException("This work item id dosnt exist !!");
+
+		} else if (!status.contains("DONE")) {
 			throw new ServiceException("This workitem can't be assigned an issue because it is not done yet!");
 		} else {
 
 			try {
-				return executor.execute(() -> {
-					Issue newIssue = issueRepository.save(issue);
-					issueRepository.assignWorkitemToIssue(workitemId, issue.getId());
+				Issue newIssue = executor.execute(() -> {
+					issue.setWorkitem(executor.reference(Workitem.class, workitemId));
+					Issue saved = issueRepository.save(issue);
 					workitemRepository.setTaskToUnstarted(workitemId);
-					return newIssue;
+					teamCounterRepository.bumpWorkitemsVersionOf(Collections.singleton(workitemId));
+					return saved;
 				});
+				return newIssue;
 			} catch (DataAccessException e) {
 				throw new ServiceException("Could not add Issue");
 			}
@@ -49,33 +65,50 @@ public final class IssueService {
 	}
 
 	public Integer updateIssue(long issueId, String answer, String newReason) throws ServiceException {
-		if (!issueRepository.findAllIssueId().contains(issueId)) {
+		return updateIssue(issueId, answer, newReason, null);
+	}
+
+	/**
+	 * Sets answer and reason with one update. With an
+	 * {@code expectedVersion} the update is conditional on it and the issue
+	 * is only read again when it matched no row.
+	 */
+	public Integer updateIssue(long issueId, String answer, String newReason, Long expectedVersion)
+			throws ServiceException {
+		if (expectedVersion == null && !issueRepository.exists(issueId)) {
 			throw new ServiceException(
 					"Update failed since no issue could be found corresponding to the issue id");
 		} else {
+			Integer updated;
 			try {
-				return executor.execute(() -> {
-					issueRepository.updateIssueAnswer(answer, issueId);
-					return issueRepository.updateIssue(newReason, issueId);
+				updated = executor.execute(() -> {
+					return expectedVersion == null ? issueRepository.updateAnswerAndReason(answer, newReason, issueId)
+							: issueRepository.updateAnswerAndReasonIfVersion(answer, newReason, issueId,
+									expectedVersion);
 				});
 			} catch (DataAccessException e) {
 				throw new ServiceException("Could not update Issue");
 			}
+			if (updated == 0 && expectedVersion != null) {
+				Long current = issueRepository.findVersionById(issueId);
+				if (current == null) {
+					throw new ServiceException(
+							"Update failed since no issue could be found corresponding to the issue id");
+				}
+				throw new StaleVersionException("The issue has been updated by someone else meanwhile!", current);
+			}
+			return updated;
 		}
 
 	}
 
-	public Collection<Workitem> getAllWorkItemByIssue() throws ServiceException {
-		if (issueRepository.findAllWorkitemFromIssue().isEmpty()) {
-			throw new ServiceException("issue hasn't been assigned to any task!");
-		} else {
-			try {
-				return executor.execute(() -> {
-					return issueRepository.findAllWorkitemFromIssue();
-				});
-			} catch (DataAccessException e) {
-				throw new ServiceException("Could not get all workitems");
-			}
+	public List<WorkitemView> getAllWorkItemByIssue() throws ServiceException {
+		try {
+			return executor.read(() -> {
+				return issueRepository.findWorkitemViewsWithIssue();
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not get all workitems");
 		}
 
 	}
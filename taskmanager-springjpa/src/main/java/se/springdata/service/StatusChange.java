@@ -0,0 +1,47 @@
+package se.springdata.service;
+
+import java.util.List;
+
+import se.springdata.model.Status;
+
+/**
+ * Outcome of moving a set of workitems to one status: the ids that were
+ * changed, the ids that already had the status and the ids that do not exist.
+ * Each list keeps the order in which the ids were submitted.
+ */
+public final class StatusChange {
+
+	private final Status status;
+	private final List<Long> changed;
+	private final List<Long> unchanged;
+	private final List<Long> missing;
+
+	public StatusChange(Status status, List<Long> changed, List<Long> unchanged, List<Long> missing) {
+		this.status = status;
+		this.changed = changed;
+		this.unchanged = unchanged;
+		this.missing = missing;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public List<Long> getChanged() {
+		return changed;
+	}
+
+	public List<Long> getUnchanged() {
+		return unchanged;
+	}
+
+	public List<Long> getMissing() {
+		return missing;
+	}
+
+	@Override
+	public String toString() {
+		return "StatusChange [status=" + status + ", changed=" + changed + ", unchanged=" + unchanged + ", missing="
+				+ missing + "]";
+	}
+}
@@ -1,60 +1,139 @@
 package se.springdata.service;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
+import se.springdata.cache.UserLookupCache;
+import se.springdata.exception.RejectedUpdateException;
 import se.springdata.exception.ServiceException;
+import se.springdata.exception.StaleVersionException;
 import se.springdata.model.Team;
+import se.springdata.model.TeamCounters;
+import se.springdata.repository.TeamCountersRepository;
 import se.springdata.repository.TeamRepository;
 import se.springdata.repository.UserRepository;
 import se.springdata.transaction.ServiceTransaction;
+import se.springdata.view.TeamView;
+import se.springdata.view.UserView;
 
 @Component
 public final class TeamService {
 
+	public static final int MEMBER_LIMIT = 10;
+
+	// why a join was rejected, for callers that answer each reason differently
+	public static final String NO_SUCH_TEAM = "The team requested doesn't exist, adding user to team failed!";
+	public static final String TEAM_FULL = "This team has 10 members, and can't therefore add any more user!";
+	public static final String NO_SUCH_USER = "The user requested doesn't exist, adding user to team failed!";
+	public static final String ALREADY_MEMBER = "User is already a member of a team!";
+
 	private final TeamRepository teamRepository;
+	private final TeamCountersRepository counterRepository;
 	private final UserRepository userRepository;
 	private final ServiceTransaction executor;
+	private final UserLookupCache lookupCache;
 
 	@Autowired
-	public TeamService(TeamRepository teamRepository, UserRepository userRepository, ServiceTransaction executor) {
+	public TeamService(TeamRepository teamRepository, TeamCountersRepository counterRepository,
+			UserRepository userRepository, ServiceTransaction executor, UserLookupCache lookupCache) {
 		this.teamRepository = teamRepository;
+		this.counterRepository = counterRepository;
 		this.userRepository = userRepository;
 		this.executor = executor;
+		this.lookupCache = lookupCache;
 	}
 
+	/**
+	 * Inserts the team and its counters without reading anything first; a
+	 * taken name is reported by the unique index on TEAM_NAME.
+	 */
 	public Team addTeam(Team team) throws ServiceException {
-		if (teamRepository.findAllTeamName().contains(team.getTeamName())) {
-			throw new ServiceException(
-					"The team already exist, and can't therefore be add!");
-		} else {
-			try {
-				return executor.execute(() -> {
-					return teamRepository.save(team);
-				});
-			} catch (DataAccessException e) {
-				throw new ServiceException("Could not add team");
-			}
+		try {
+			return executor.execute(() -> {
+				Team added = teamRepository.save(team);
+				counterRepository.save(new TeamCounters(added.getId()));
+				return added;
+			});
+		} catch (DataIntegrityViolationException e) {
+			throw new ServiceException(UniqueKeys.violated(e, Team.TEAM_NAME_KEY)
+					? "The team already exist, and can't therefore be add!" : "Could not add team");
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not add team");
+		}
+	}
 
+	/**
+	 * Inserts all teams in one transaction, flushed in JDBC-batch sized
+	 * chunks. Team names are checked per chunk with one query instead of per
+	 * team.
+	 */
+	public List<BatchResult<Team>> addTeams(List<Team> teams) throws ServiceException {
+		List<BatchResult<Team>> results = new ArrayList<>(teams.size());
+		try {
+			executor.execute(() -> {
+				for (List<Team> chunk : executor.chunks(teams)) {
+					Set<String> teamNames = new HashSet<>(chunk.size());
+					chunk.forEach(team -> teamNames.add(team.getTeamName()));
+					teamNames.remove(null);
+					Set<String> taken = new HashSet<>(
+							teamNames.isEmpty() ? teamNames : teamRepository.findTeamNamesIn(teamNames));
+					for (Team team : chunk) {
+						if (team.getTeamName() != null && !taken.add(team.getTeamName())) {
+							results.add(BatchResult.duplicate(team,
+									"The team already exist, and can't therefore be add!"));
+						} else {
+							Team added = teamRepository.save(team);
+							counterRepository.save(new TeamCounters(added.getId()));
+							results.add(BatchResult.created(added));
+						}
+					}
+					executor.flushAndClear();
+				}
+				return results;
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not add teams");
 		}
+		return results;
 	}
 
 	public Integer updateTeam(String teamName, long teamId) throws ServiceException {
+		return updateTeam(teamName, teamId, null);
+	}
+
+	/**
+	 * Renames the team. With an {@code expectedVersion} the rename is a single
+	 * conditional update, without reading the current name first, and fails
+	 * with a {@link StaleVersionException} if the team has been updated since
+	 * that version was read.
+	 */
+	public Integer updateTeam(String teamName, long teamId, Long expectedVersion) throws ServiceException {
 
-		if (teamRepository.findTeamNameById(teamId).equals(teamName)) {
+		if (expectedVersion == null && teamName.equals(teamRepository.findTeamNameById(teamId))) {
 			throw new ServiceException(
 					"Error the team you are trying to update is already using as team name!");
-		} else if (teamRepository.findAllTeamName().contains(teamName)) {
-			throw new ServiceException("Invalid update, the team name is already in use!");
-		
+
 		} else {
 			try {
-				return executor.execute(() -> {
-					return teamRepository.updateTeam(teamName, teamId);
+				Integer updated = executor.execute(() -> {
+					return expectedVersion == null ? teamRepository.updateTeam(teamName, teamId)
+							: teamRepository.updateTeamIfVersion(teamName, teamId, expectedVersion);
 				});
+				if (updated == 0 && expectedVersion != null) {
+					checkVersion(teamId, expectedVersion);
+				}
+				return updated;
+			} catch (DataIntegrityViolationException e) {
+				throw new ServiceException(UniqueKeys.violated(e, Team.TEAM_NAME_KEY)
+						? "Invalid update, the team name is already in use!" : "Could not update team");
 			} catch (DataAccessException e) {
 				throw new ServiceException("Could not update team");
 			}
@@ -63,6 +142,55 @@ public final class TeamService {
 	}
 
 	public Integer setTeamStatus(long teamId, String status) throws ServiceException {
+		return setTeamStatus(teamId, status, null);
+	}
+
+	/**
+	 * Enables or disables the team. With an {@code expectedVersion} this is a
+	 * single conditional update; only when it matches no row is the team read
+	 * to tell a stale version from a team that already has the status.
+	 */
+	public Integer setTeamStatus(long teamId, String status, Long expectedVersion) throws ServiceException {
+		return expectedVersion == null ? changeStatus(teamId, status) : changeStatus(teamId, status, expectedVersion);
+	}
+
+	private Integer changeStatus(long teamId, String status, long expectedVersion) throws ServiceException {
+		String teamStatus;
+		switch (status) {
+		case "disable":
+			teamStatus = "inactive";
+			break;
+		case "enable":
+			teamStatus = "active";
+			break;
+		default:
+			throw new ServiceException("Invalid update command: " + status);
+		}
+		try {
+			Integer updated = executor.execute(() -> {
+				return teamRepository.setTeamStatusIfVersion(teamId, teamStatus, expectedVersion);
+			});
+			if (updated == 0) {
+				checkVersion(teamId, expectedVersion);
+				throw new ServiceException(status.equals("disable") ? "Team is already disabled!"
+						: "Team is already enabled!");
+			}
+			return updated;
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not " + status + " team");
+		}
+	}
+
+	private void checkVersion(long teamId, long expectedVersion) throws ServiceException {
+		Long current = teamRepository.findVersionById(teamId);
+		if (current == null) {
+			throw new ServiceException("This team dosnt exist for update");
+		} else if (current != expectedVersion) {
+			throw new StaleVersionException("The team has been updated by someone else meanwhile!", current);
+		}
+	}
+
+	private Integer changeStatus(long teamId, String status) throws ServiceException {
 		switch (status) {
 		case "disable":
 			if (teamRepository.findTeamStatusById(teamId).equals("inactive")) {
@@ -103,10 +231,10 @@ public final class TeamService {
 		}
 	}
 
-	public Collection<Team> getAllTeams() throws ServiceException {
+	public List<TeamView> getAllTeams(long afterId, int limit) throws ServiceException {
 		try {
-			return executor.execute(() -> {
-				return teamRepository.findAllTeams();
+			return executor.read(() -> {
+				return teamRepository.findTeamPage(afterId, new PageRequest(0, limit));
 			});
 		} catch (DataAccessException e) {
 			throw new ServiceException("Could not get all team");
@@ -114,21 +242,40 @@ public final class TeamService {
 
 	}
 
+	/**
+	 * Joins with two conditional updates and no reads first: the member
+	 * counter only moves while the team has room, and the user only while it
+	 * has no team. An update that matches no row is read back once to tell
+	 * why. Joining bumps the version of the user, so its cached lookups are
+	 * evicted once the join has committed.
+	 */
 	public Integer addUserToTeam(long teamId, long userId) throws ServiceException {
-		if (userRepository.findTeamIdByUserId(userId) != null) {
-			
-			throw new ServiceException("User is already a member of a team!");
-		} else if (teamRepository.findAllUserForTeamById(teamId).size() == 10) {
-			throw new ServiceException("This team has 10 members, and can't therefore add any more user!");
-		} else {
-			try {
-				return executor.execute(() -> {
-					return teamRepository.addUserToTeam(teamId, userId);
-				});
-			} catch (DataAccessException e) {
-				throw new ServiceException("Could not add any user to team");
-			}
-
+		try {
+			UserView joined = executor.execute(() -> {
+				if (counterRepository.reserveMember(teamId, MEMBER_LIMIT) == 0) {
+					throw new RejectedUpdateException(
+							counterRepository.findMemberCountById(teamId) == null ? NO_SUCH_TEAM : TEAM_FULL);
+				}
+				if (teamRepository.joinTeam(teamId, userId) == 0) {
+					throw new RejectedUpdateException(!userRepository.exists(userId) ? NO_SUCH_USER : ALREADY_MEMBER);
+				}
+				return userRepository.findUserViewById(userId);
+			});
+			lookupCache.evict(joined);
+			return 1;
+		} catch (RejectedUpdateException e) {
+			throw new ServiceException(e.getMessage());
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not add any user to team");
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Reads the maintained member counter of the team; an unknown team is
+	 * never full.
+	 */
+	public boolean isFull(long teamId) {
+		Integer members = counterRepository.findMemberCountById(teamId);
+		return members != null && members >= MEMBER_LIMIT;
+	}
+}
@@ -0,0 +1,30 @@
+package se.springdata.service;
+
+import java.util.Locale;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Tells a taken name, reported by the named unique key, from the other
+ * integrity violations a write can run into, such as a missing value or a
+ * value too long for its column.
+ */
+final class UniqueKeys {
+
+	private UniqueKeys() {
+	}
+
+	// H2 reports the key as "UK_..._INDEX_n ON ..." and MySQL as the bare
+	// name, so the name is looked for in what the driver reported
+	static boolean violated(DataIntegrityViolationException e, String key) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConstraintViolationException) {
+				String constraint = ((ConstraintViolationException) cause).getConstraintName();
+				return constraint != null && constraint.toUpperCase(Locale.ROOT).contains(key);
+			}
+		}
+		String message = e.getMostSpecificCause().getMessage();
+		return message != null && message.toUpperCase(Locale.ROOT).contains(key);
+	}
+}
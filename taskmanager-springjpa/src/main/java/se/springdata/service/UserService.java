@@ -1,40 +1,66 @@
 package se.springdata.service;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
+import se.springdata.cache.UserLookupCache;
 import se.springdata.exception.ServiceException;
+import se.springdata.exception.StaleVersionException;
 import se.springdata.model.User;
+import se.springdata.model.UserCounters;
+import se.springdata.repository.TeamCountersRepository;
+import se.springdata.repository.UserCountersRepository;
 import se.springdata.repository.UserRepository;
 import se.springdata.transaction.ServiceTransaction;
+import se.springdata.view.UserView;
 
 @Component
 public final class UserService {
 
 	private final UserRepository userRepository;
+	private final UserCountersRepository counterRepository;
+	private final TeamCountersRepository teamCounterRepository;
 	private final ServiceTransaction executor;
+	private final UserLookupCache lookupCache;
 
 	@Autowired
-	public UserService(UserRepository userRepository, ServiceTransaction executor) {
+	public UserService(UserRepository userRepository, UserCountersRepository counterRepository,
+			TeamCountersRepository teamCounterRepository, ServiceTransaction executor, UserLookupCache lookupCache) {
 		this.userRepository = userRepository;
+		this.counterRepository = counterRepository;
+		this.teamCounterRepository = teamCounterRepository;
 		this.executor = executor;
+		this.lookupCache = lookupCache;
 	}
 
+	/**
+	 * Inserts the user and its counters without reading anything first; a
+	 * taken username is reported by the unique index on USER_NAME.
+	 */
 	public User addUser(User user) throws ServiceException {
 		if (user.getUserName().length() < 10) {
 			throw new ServiceException("Username is to short must have atleast 10 character!");
 
-		} else if (userRepository.findAllUserName().contains(user.getUserName())) {
-			throw new ServiceException("The update failed, username already exist!");
-
 		} else {
 			try {
-				return executor.execute(() -> {
-					return userRepository.save(user);
+				User saved = executor.execute(() -> {
+					User added = userRepository.save(user);
+					counterRepository.save(new UserCounters(added.getId()));
+					return added;
 				});
+				lookupCache.evict(saved.getUserNumber(), saved.getUserName());
+				return saved;
+			} catch (DataIntegrityViolationException e) {
+				throw new ServiceException(UniqueKeys.violated(e, User.USER_NAME_KEY)
+						? "The update failed, username already exist!" : "Could not add User");
 			} catch (DataAccessException e) {
 				throw new ServiceException("Could not add User");
 			}
@@ -42,13 +68,80 @@ public final class UserService {
 		}
 	}
 
+	/**
+	 * Inserts all users in one transaction, flushed in JDBC-batch sized
+	 * chunks. Usernames are checked per chunk with one query instead of per
+	 * user.
+	 */
+	public List<BatchResult<User>> addUsers(List<User> users) throws ServiceException {
+		List<BatchResult<User>> results = new ArrayList<>(users.size());
+		try {
+			executor.execute(() -> {
+				for (List<User> chunk : executor.chunks(users)) {
+					Set<String> userNames = new HashSet<>(chunk.size());
+					chunk.forEach(user -> userNames.add(user.getUserName()));
+					userNames.remove(null);
+					Set<String> taken = new HashSet<>(
+							userNames.isEmpty() ? userNames : userRepository.findUserNamesIn(userNames));
+					for (User user : chunk) {
+						if (user.getUserName() == null || user.getUserName().length() < 10) {
+							results.add(BatchResult.invalid(user,
+									"Username is to short must have atleast 10 character!"));
+						} else if (!taken.add(user.getUserName())) {
+							results.add(BatchResult.duplicate(user, "The update failed, username already exist!"));
+						} else {
+							User added = userRepository.save(user);
+							counterRepository.save(new UserCounters(added.getId()));
+							results.add(BatchResult.created(added));
+						}
+					}
+					executor.flushAndClear();
+				}
+				return results;
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not add users");
+		}
+		results.stream().filter(BatchResult::isCreated).forEach(
+				result -> lookupCache.evict(result.getEntity().getUserNumber(), result.getEntity().getUserName()));
+		return results;
+	}
+
 	public Integer updateUser(long userId, String column, String newValue)
 			throws se.springdata.exception.ServiceException {
+		return updateUser(userId, column, newValue, null);
+	}
+
+	/**
+	 * Evicts the cached lookups of the user once the update has committed,
+	 * with the keys read back in its transaction, and the old username of a
+	 * rename. With an {@code expectedVersion} the update only applies to that
+	 * version of the user, and a {@link StaleVersionException} reports a newer
+	 * one.
+	 */
+	public Integer updateUser(long userId, String column, String newValue, Long expectedVersion)
+			throws ServiceException {
+		List<UserView> changed = new ArrayList<>(2);
+		Integer updated = update(userId, column, newValue, expectedVersion, changed);
+		changed.forEach(lookupCache::evict);
+		if (updated == 0 && expectedVersion != null) {
+			Long current = userRepository.findVersionById(userId);
+			if (current != null) {
+				throw new StaleVersionException("The user has been updated by someone else meanwhile!", current);
+			}
+		}
+		return updated;
+	}
+
+	private Integer update(long userId, String column, String newValue, Long expectedVersion,
+			List<UserView> changed) throws ServiceException {
 		switch (column) {
 		case "firstName":
 			try {
 				return executor.execute(() -> {
-					return userRepository.updateUserFirstName(newValue, userId);
+					Integer updated = expectedVersion == null ? userRepository.updateUserFirstName(newValue, userId)
+							: userRepository.updateUserFirstNameIfVersion(newValue, userId, expectedVersion);
+					return changed(userId, updated, changed);
 				});
 			} catch (DataAccessException e) {
 				throw new ServiceException("Could not update first name");
@@ -57,7 +150,9 @@ public final class UserService {
 		case "lastName":
 			try {
 				return executor.execute(() -> {
-					return userRepository.updateUserLastName(newValue, userId);
+					Integer updated = expectedVersion == null ? userRepository.updateUserLastName(newValue, userId)
+							: userRepository.updateUserLastNameIfVersion(newValue, userId, expectedVersion);
+					return changed(userId, updated, changed);
 				});
 			} catch (DataAccessException e) {
 				throw new ServiceException("Could not update last name");
@@ -66,8 +161,17 @@ public final class UserService {
 		case "userName":
 			try {
 				return executor.execute(() -> {
-					return userRepository.updateUserName(newValue, userId);
+					UserView renamed = userRepository.findUserViewById(userId);
+					Integer updated = expectedVersion == null ? userRepository.updateUserName(newValue, userId)
+							: userRepository.updateUserNameIfVersion(newValue, userId, expectedVersion);
+					if (updated > 0) {
+						changed.add(renamed);
+					}
+					return changed(userId, updated, changed);
 				});
+			} catch (DataIntegrityViolationException e) {
+				throw new ServiceException(UniqueKeys.violated(e, User.USER_NAME_KEY)
+						? "The update failed, username already exist!" : "Could not update user name");
 			} catch (DataAccessException e) {
 				throw new ServiceException("Could not update user name");
 			}
@@ -77,7 +181,75 @@ public final class UserService {
 		}
 	}
 
+	// reads the keys of the user an update changed in its transaction, to be
+	// evicted once it has committed, and bumps the members version of its team
+	private Integer changed(long userId, Integer updated, List<UserView> changed) {
+		if (updated > 0) {
+			teamCounterRepository.bumpMembersVersionOfUser(userId);
+			changed.add(userRepository.findUserViewById(userId));
+		}
+		return updated;
+	}
+
 	public Integer setUserStatus(long userId, String status) throws ServiceException {
+		return setUserStatus(userId, status, null);
+	}
+
+	/**
+	 * Enables or disables the user. With an {@code expectedVersion} this is a
+	 * single conditional update; only when it matches no row is the user read
+	 * to tell a stale version from a user that already has the status.
+	 */
+	public Integer setUserStatus(long userId, String status, Long expectedVersion) throws ServiceException {
+		List<UserView> changed = new ArrayList<>(1);
+		try {
+			return expectedVersion == null ? changeStatus(userId, status, changed)
+					: changeStatus(userId, status, expectedVersion, changed);
+		} finally {
+			changed.forEach(lookupCache::evict);
+		}
+	}
+
+	private Integer changeStatus(long userId, String status, long expectedVersion, List<UserView> changed)
+			throws ServiceException {
+		String userStatus;
+		switch (status) {
+		case "disable":
+			userStatus = "inactive";
+			break;
+		case "enable":
+			userStatus = "active";
+			break;
+		default:
+			throw new ServiceException("Invalid update command: " + status);
+		}
+		try {
+			Integer updated = executor.execute(() -> {
+				Integer statusChanged = userRepository.setUserStatusIfVersion(userId, userStatus, expectedVersion);
+				if (statusChanged > 0 && userStatus.equals("inactive")) {
+					userRepository.setWorkitemToUnstarted(userId);
+					teamCounterRepository.bumpWorkitemsVersionOfUser(userId);
+					return changed(userId, statusChanged, changed);
+				}
+				return changed(userId, statusChanged, changed);
+			});
+			if (updated == 0) {
+				Long current = userRepository.findVersionById(userId);
+				if (current == null) {
+					throw new ServiceException("This user dosnt exist for update users values !!");
+				} else if (current != expectedVersion) {
+					throw new StaleVersionException("The user has been updated by someone else meanwhile!", current);
+				}
+				throw new ServiceException(status.equals("disable") ? "User is already disabled!"
+						: "User is already enabled!");
+			}
+			return updated;
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not " + status + " user");
+		}
+	}
+
+	private Integer changeStatus(long userId, String status, List<UserView> changed) throws ServiceException {
 		switch (status) {
 		case "disable":
 			if (userRepository.findUserStatusById(userId).equals("inactive")) {
@@ -89,7 +261,8 @@ public final class UserService {
 					try {
 						return executor.execute(() -> {
 							userRepository.setWorkitemToUnstarted(userId);
-							return userRepository.disableUser(userId);
+							teamCounterRepository.bumpWorkitemsVersionOfUser(userId);
+							return changed(userId, userRepository.disableUser(userId), changed);
 						});
 					} catch (DataAccessException e) {
 						throw new ServiceException("Could not disable user state");
@@ -106,7 +279,7 @@ public final class UserService {
 				} else {
 					try {
 						return executor.execute(() -> {
-							return userRepository.enableUser(userId);
+							return changed(userId, userRepository.enableUser(userId), changed);
 						});
 					} catch (DataAccessException e) {
 						throw new ServiceException("Could not enable user");
@@ -119,81 +292,61 @@ public final class UserService {
 		}
 	}
 
-	public Collection<User> findByUserNumber(String number) throws ServiceException {
-		if (userRepository.findByUserNumber(number).isEmpty()) {
-			throw new ServiceException("The user number could not be found!");
-		} else {
-			try {
-				return executor.execute(() -> {
-					return userRepository.findByUserNumber(number);
-				});
-			} catch (DataAccessException e) {
-				throw new ServiceException("Could not find by user number");
-			}
-
+	/**
+	 * Looks the user up with a single query, or none when the lookup is
+	 * cached; an empty collection means no user has that number.
+	 */
+	public List<UserView> findByUserNumber(String number) throws ServiceException {
+		try {
+			return lookupCache.byUserNumber(number, () -> executor.readPrimary(() -> {
+				return userRepository.findUserViewsByUserNumber(number);
+			}));
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not find by user number");
 		}
 	}
 
-	public Collection<User> findByName(String findNameTyp, String name) throws ServiceException {
+	public List<UserView> findByName(String findNameTyp, String name) throws ServiceException {
 		switch (findNameTyp) {
 		case "firstname":
-			Collection<User> firstName = userRepository.findByFirstName(name);
-			if (!firstName.contains(name) & (firstName.isEmpty())) {
-				throw new ServiceException("The first name can't be found!");
-			} else {
-				try {
-					return executor.execute(() -> {
-						return userRepository.findByFirstName(name);
-					});
-				} catch (DataAccessException e) {
-					throw new ServiceException("Could not find by first name");
-				}
-
+			try {
+				return executor.read(() -> {
+					return userRepository.findUserViewsByFirstName(name);
+				});
+			} catch (DataAccessException e) {
+				throw new ServiceException("Could not find by first name");
 			}
-		case "lastname":
-			Collection<User> lastName = userRepository.findByLastName(name);
-			if (!lastName.contains(name) & (lastName.isEmpty())) {
-				throw new ServiceException("The last name can't be found!");
-			} else {
-				try {
-					return executor.execute(() -> {
-						return userRepository.findByLastName(name);
-					});
-				} catch (DataAccessException e) {
-					throw new ServiceException("Could not find by last name");
-				}
 
+		case "lastname":
+			try {
+				return executor.read(() -> {
+					return userRepository.findUserViewsByLastName(name);
+				});
+			} catch (DataAccessException e) {
+				throw new ServiceException("Could not find by last name");
 			}
-		case "username":
-			Collection<User> userName = userRepository.findByUserName(name);
-			if (!userName.contains(name) & (userName.isEmpty())) {
-				throw new ServiceException("The username can't be found!");
-			} else {
-				try {
-					return executor.execute(() -> {
-						return userRepository.findByUserName(name);
-					});
-				} catch (DataAccessException e) {
-					throw new ServiceException("Could not find by user name");
-				}
 
+		case "username":
+			try {
+				return lookupCache.byUserName(name, () -> executor.readPrimary(() -> {
+					return userRepository.findUserViewsByUserName(name);
+				}));
+			} catch (DataAccessException e) {
+				throw new ServiceException("Could not find by user name");
 			}
+
 		default:
 			throw new ServiceException("Invalid search command: " + findNameTyp);
 		}
 	}
 
-	public Collection<User> getAllUserForATeam(long teamId) throws ServiceException {
-		if (userRepository.findAllUserByTeamId(teamId) == null) {
-			throw new ServiceException("The team that was requested don't have any members or doesn't exist!");
-		} else {
-			try {
-				return executor.execute(() -> {
-					return userRepository.findAllUserByTeamId(teamId);
-				});
-			} catch (DataAccessException e) {
-				throw new ServiceException("Could not get user by team");
-			}
+	public List<UserView> getAllUserForATeam(long teamId, long afterId, int limit) throws ServiceException {
+		try {
+			return executor.read(() -> {
+				return userRepository.findUserPageByTeamId(teamId, afterId, new PageRequest(0, limit));
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not get user by team");
 		}
 	}
-}
\ No newline at end of file
+}
@@ -1,98 +1,260 @@
 package se.springdata.service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
+import se.springdata.exception.RejectedUpdateException;
 import se.springdata.exception.ServiceException;
+import se.springdata.exception.StaleVersionException;
 import se.springdata.model.Status;
 import se.springdata.model.Workitem;
+import se.springdata.model.WorkitemChange;
 import se.springdata.repository.IssueRepository;
-//import se.springdata.repository.IssueRepository;
+import se.springdata.repository.TeamCountersRepository;
+import se.springdata.repository.UserCountersRepository;
 import se.springdata.repository.UserRepository;
+import se.springdata.repository.WorkitemChangeRepository;
 import se.springdata.repository.WorkitemRepository;
+import se.springdata.search.WorkitemSearchIndex;
 import se.springdata.transaction.ServiceTransaction;
+import se.springdata.view.WorkitemView;
 
 @Component
 public final class WorkitemService {
 
+	public static final int WORKITEM_LIMIT = 5;
+
 	private final WorkitemRepository workitemRepository;
 	private final UserRepository userRepository;
+	private final UserCountersRepository counterRepository;
+	private final TeamCountersRepository teamCounterRepository;
 	private final IssueRepository issueRepository;
+	private final WorkitemChangeRepository changeRepository;
+	private final WorkitemSearchIndex searchIndex;
 	private final ServiceTransaction executor;
 
 	@Autowired
 	public WorkitemService(WorkitemRepository workitemRepository, UserRepository userRepository,
-			IssueRepository issueRepository, ServiceTransaction executor) {
+			UserCountersRepository counterRepository, TeamCountersRepository teamCounterRepository,
+			IssueRepository issueRepository, WorkitemChangeRepository changeRepository, WorkitemSearchIndex searchIndex,
+			ServiceTransaction executor) {
 		this.workitemRepository = workitemRepository;
 		this.userRepository = userRepository;
+		this.counterRepository = counterRepository;
+		this.teamCounterRepository = teamCounterRepository;
 		this.issueRepository = issueRepository;
+		this.changeRepository = changeRepository;
+		this.searchIndex = searchIndex;
 		this.executor = executor;
 	}
 
+	/**
+	 * Inserts the workitem without reading anything first; a taken title is
+	 * reported by the unique index on TITLE. The insert is recorded as a
+	 * {@link WorkitemChange} for the search indexes of the other nodes.
+	 */
 	public Workitem addWorkItem(Workitem workitem) throws ServiceException {
-		if (workitemRepository.getWorkItemsTitle().contains(workitem.getTitle())) {
-			throw new ServiceException("This work Item is exist !!");
-		}
 		try {
-			return executor.execute(() -> {
-				return workitemRepository.save(workitem);
+			Workitem saved = executor.execute(() -> {
+				Workitem added = workitemRepository.save(workitem);
+				changeRepository.save(WorkitemChange.added(added.getId()));
+				return added;
 			});
+			searchIndex.add(saved);
+			return saved;
+		} catch (DataIntegrityViolationException e) {
+			throw new ServiceException(UniqueKeys.violated(e, Workitem.TITLE_KEY)
+					? "This work Item is exist !!" : "Could not add workitem");
 		} catch (DataAccessException e) {
 			throw new ServiceException("Could not add workitem");
 		}
 	}
 
-	public Integer setStatus(long workitemId, Status status) throws se.springdata.exception.ServiceException {
+	/**
+	 * Inserts all workitems in one transaction, flushed in JDBC-batch sized
+	 * chunks. Titles that already exist, in the database or earlier in the
+	 * same batch, are reported as duplicates instead of failing the batch.
+	 */
+	public List<BatchResult<Workitem>> addWorkItems(List<Workitem> workitems) throws ServiceException {
+		List<BatchResult<Workitem>> results = new ArrayList<>(workitems.size());
+		try {
+			executor.execute(() -> {
+				for (List<Workitem> chunk : executor.chunks(workitems)) {
+					Set<String> titles = new HashSet<>(chunk.size());
+					chunk.forEach(workitem -> titles.add(workitem.getTitle()));
+					titles.remove(null);
+					Set<String> taken = new HashSet<>(
+							titles.isEmpty() ? titles : workitemRepository.findTitlesIn(titles));
+					for (Workitem workitem : chunk) {
+						if (workitem.getTitle() != null && !taken.add(workitem.getTitle())) {
+							results.add(BatchResult.duplicate(workitem, "This work Item is exist !!"));
+						} else {
+							Workitem added = workitemRepository.save(workitem);
+							changeRepository.save(WorkitemChange.added(added.getId()));
+							results.add(BatchResult.created(added));
+						}
+					}
+					executor.flushAndClear();
+				}
+				return results;
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not add workitems");
+		}
+		results.stream().filter(BatchResult::isCreated).forEach(result -> searchIndex.add(result.getEntity()));
+		return results;
+	}
 
+	public Integer setStatus(long workitemId, Status status) throws se.springdata.exception.ServiceException {
+		if (status == null) {
+			throw new ServiceException("Invalid update command: " + status);
+		}
 		try {
 			return executor.execute(() -> {
 				switch (status) {
 				case UNSTARTED:
-					return workitemRepository.setTaskToUnstarted(workitemId);
+					return changed(workitemId, workitemRepository.setTaskToUnstarted(workitemId));
 				case STARTED:
-					return workitemRepository.setTaskToStarted(workitemId);
-				case DONE:
-					return workitemRepository.setTaskToDone(workitemId);
+					return changed(workitemId, workitemRepository.setTaskToStarted(workitemId));
 				default:
-					try {
-						throw new ServiceException("Invalid update command: " + status);
-					} catch (ServiceException e) {
+					return changed(workitemId, workitemRepository.setTaskToDone(workitemId));
+				}
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not update any one of workitems property");
+		}
 
-						e.printStackTrace();
-					}
+	}
 
-				}
-				return 1;
+	// bumps the workitems version of the team of a workitem an update changed
+	private Integer changed(long workitemId, Integer updated) {
+		if (updated > 0) {
+			teamCounterRepository.bumpWorkitemsVersionOf(Collections.singleton(workitemId));
+		}
+		return updated;
+	}
+
+	/**
+	 * Moves the workitem to {@code status} with a single conditional update
+	 * on {@code expectedVersion}; only when it matches no row is the workitem
+	 * read to tell a stale version from a workitem that already has the
+	 * status.
+	 */
+	public Integer setStatus(long workitemId, Status status, long expectedVersion) throws ServiceException {
+		try {
+			Integer updated = executor.execute(() -> {
+				return changed(workitemId, workitemRepository.setStatusIfVersion(workitemId, status, expectedVersion));
 			});
+			if (updated == 0) {
+				Long current = workitemRepository.findVersionById(workitemId);
+				if (current == null) {
+					throw new ServiceException("You are trying with not existing workitem");
+				} else if (current != expectedVersion) {
+					throw new StaleVersionException("The workitem has been updated by someone else meanwhile!",
+							current);
+				}
+				throw new ServiceException("You are trying to update to same information");
+			}
+			return updated;
 		} catch (DataAccessException e) {
 			throw new ServiceException("Could not update any one of workitems property");
 		}
+	}
 
+	/**
+	 * Moves all given workitems to {@code status} with one update, skipping the
+	 * ones that already have it. The ids are classified by a single locking
+	 * read in the same transaction, so no other write changes them in between.
+	 */
+	public StatusChange setStatus(List<Long> workitemIds, Status status) throws ServiceException {
+		Set<Long> ids = new LinkedHashSet<>(workitemIds);
+		ids.remove(null);
+		Map<Long, Status> current = new HashMap<>(ids.size() * 2);
+		try {
+			executor.execute(() -> {
+				if (!ids.isEmpty()) {
+					workitemRepository.lockStatusesIn(ids).forEach(row -> current.put((Long) row[0], (Status) row[1]));
+					workitemRepository.setStatusWhereIdIn(status, ids);
+					List<Long> updated = new ArrayList<>(current.size());
+					current.forEach((id, previous) -> {
+						if (previous != status) {
+							updated.add(id);
+						}
+					});
+					if (!updated.isEmpty()) {
+						teamCounterRepository.bumpWorkitemsVersionOf(updated);
+					}
+				}
+				return current;
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not update the status of the workitems");
+		}
+		List<Long> changed = new ArrayList<>();
+		List<Long> unchanged = new ArrayList<>();
+		List<Long> missing = new ArrayList<>();
+		for (Long id : ids) {
+			if (!current.containsKey(id)) {
+				missing.add(id);
+			} else if (current.get(id) == status) {
+				unchanged.add(id);
+			} else {
+				changed.add(id);
+			}
+		}
+		return new StatusChange(status, changed, unchanged, missing);
 	}
 
+	/**
+	 * Reads the team of the user from its cached lookup and leaves the
+	 * status, the limit and the workitem to the conditional updates that move
+	 * it, so a user disabled meanwhile is never assigned; one that matches no
+	 * row is read back once to tell why.
+	 */
 	public Integer assignsWorkitemToUser(long userId, long workitemId) throws ServiceException {
-		if (userRepository.findUserStatusById(userId).equals("inactive")) {
-			throw new ServiceException("The user is inactive and can therefore not be assigned a workitem !!!");
-
-		} else if (workitemRepository.findAllWorkitemByUser(userId).size() == 5) {
-			throw new ServiceException("The user can't be assigned any more task, since 5 is the limit!");
+		Long teamId = userRepository.findTeamIdByUserId(userId);
+		if (teamId == null) {
+			String userStatus = userRepository.findUserStatusById(userId);
+			if (userStatus == null) {
+				throw new ServiceException("The user requested doesn't exist, assigning task to user failed!");
 
-		} else if (userRepository.findTeamIdByUserId(userId) == null) {
+			} else if (userStatus.equals("inactive")) {
+				throw new ServiceException("The user is inactive and can therefore not be assigned a workitem !!!");
+			}
 			throw new ServiceException("The user must be belong to a team, inorder to be assigned a task");
 
-		} else if (workitemRepository.findWorkitemById(workitemId).isEmpty()) {
-			throw new ServiceException("The task requested doesn't exist, assigning task to user failed!");
-
 		} else {
 			try {
-				return executor.execute(() -> {
-					Long teamIdOfUser = userRepository.findTeamIdByUserId(userId);
-					workitemRepository.assignTeamToWorkitem(teamIdOfUser, workitemId);
-					return workitemRepository.assignWorkitemToUser(userId, workitemId);
+				Integer assigned = executor.execute(() -> {
+					Long previousUserId = workitemRepository.findUserIdByWorkitemId(workitemId);
+					if (previousUserId == null || previousUserId != userId) {
+						moveWorkitem(workitemId, previousUserId, userId);
+					} else if (!"active".equals(userRepository.findUserStatusById(userId))) {
+						throw new RejectedUpdateException(
+								"The user is inactive and can therefore not be assigned a workitem !!!");
+					}
+					// the team the workitem leaves and the one it joins, before it moves
+					teamCounterRepository.bumpWorkitemsVersionOfMove(teamId, workitemId);
+					return workitemRepository.assignTeamToWorkitem(teamId, workitemId);
 				});
+				return assigned;
+			} catch (RejectedUpdateException e) {
+				throw new ServiceException(e.getMessage());
 			} catch (DataAccessException e) {
 				throw new ServiceException("Could not assign any user to workitem");
 			}
@@ -100,70 +262,157 @@ public final class WorkitemService {
 		}
 	}
 
-	public Collection<Workitem> getAllWorkitemsByStatus(Status status) throws ServiceException {
-		if (!workitemRepository.findWorkitemStatusByStatus(status).contains(status)) {
-			throw new ServiceException("There is no workitem with the status " + status + " in progress");
-		} else {
-			return workitemRepository.findAllByWorkitemStatus(status);
+	/**
+	 * Takes a slot on the counter of the new user, only while it is active,
+	 * and moves the workitem with conditional updates, so the status and the
+	 * limit hold across concurrent transactions and application nodes: the
+	 * counter update locks the counter row of the user and checks its status
+	 * in the same statement, and the workitem only moves if it still belongs
+	 * to {@code previousUserId}.
+	 */
+	private void moveWorkitem(long workitemId, Long previousUserId, long userId) {
+		if (counterRepository.reserveWorkitem(userId, WORKITEM_LIMIT) == 0) {
+			String userStatus = userRepository.findUserStatusById(userId);
+			throw new RejectedUpdateException(userStatus == null
+					? "The user requested doesn't exist, assigning task to user failed!"
+					: !userStatus.equals("active")
+							? "The user is inactive and can therefore not be assigned a workitem !!!"
+							: "The user can't be assigned any more task, since 5 is the limit!");
+		}
+		int moved = previousUserId == null ? workitemRepository.assignUnassignedWorkitem(userId, workitemId)
+				: workitemRepository.reassignWorkitem(userId, workitemId, previousUserId);
+		if (moved == 0) {
+			throw new RejectedUpdateException(workitemRepository.exists(workitemId)
+					? "The workitem was assigned by someone else meanwhile, try again!"
+					: "The task requested doesn't exist, assigning task to user failed!");
+		}
+		if (previousUserId != null) {
+			counterRepository.addToWorkitemCount(previousUserId, -1);
 		}
 	}
 
-	public Collection<Workitem> getAllWorkitemsByTeam(long teamId) throws ServiceException {
-		if (!workitemRepository.findTeamIdFromWorkitem().contains(teamId)) {
-			throw new ServiceException("The team you requested doesn't exist!");
-		} else {
-			try {
-				return executor.execute(() -> {
-					return workitemRepository.findAllWorkitemByTeam(teamId);
-				});
-			} catch (DataAccessException e) {
-				throw new ServiceException("Could not get any items by team");
-			}
+	/**
+	 * Reads the maintained workitem counter of the user; an unknown user is
+	 * never at the limit.
+	 */
+	public boolean isAtLimit(long userId) {
+		Integer workitems = counterRepository.findWorkitemCountById(userId);
+		return workitems != null && workitems >= WORKITEM_LIMIT;
+	}
 
+	/**
+	 * One page of workitems with the given status; an empty page means there
+	 * is nothing (more) to show, the caller decides whether that is a 404.
+	 */
+	public List<WorkitemView> getAllWorkitemsByStatus(Status status, long afterId, int limit) throws ServiceException {
+		try {
+			return executor.read(() -> {
+				return workitemRepository.findWorkitemPageByStatus(status, afterId, new PageRequest(0, limit));
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not get any items by status");
 		}
-
 	}
 
-	public Collection<Workitem> getAllWorkitemsByUser(long userId) throws ServiceException {
-		if (!workitemRepository.findUserIdFromWorkitem().contains(userId)) {
-			throw new ServiceException("The requested user isn't assigned any task, or doesn't exist in the system!");
-		} else {
-			try {
-				return executor.execute(() -> {
-					return workitemRepository.findAllWorkitemByUser(userId);
-				});
-			} catch (DataAccessException e) {
-				throw new ServiceException("Could not get any items by team");
-			}
-
+	public List<WorkitemView> getAllWorkitemsByTeam(long teamId, long afterId, int limit) throws ServiceException {
+		try {
+			return executor.read(() -> {
+				return workitemRepository.findWorkitemPageByTeam(teamId, afterId, new PageRequest(0, limit));
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not get any items by team");
 		}
-
 	}
 
-	public Collection<Workitem> searchByDescription(String searchValue) throws ServiceException {
-		if (workitemRepository.findAllByCertainDescription(searchValue).isEmpty()) {
-			throw new ServiceException("Search came up empty, can't find a task with the description " + searchValue);
-		} else {
-			try {
-				return executor.execute(() -> {
-					return workitemRepository.findAllByCertainDescription(searchValue);
-				});
-			} catch (DataAccessException e) {
-				throw new ServiceException("Could not get any items by team");
-			}
+	/**
+	 * Hands every workitem of the team to {@code row} as it is read, inside
+	 * one transaction, so an export of any size never holds more than one
+	 * fetch of rows in memory.
+	 */
+	public void exportWorkitemsByTeam(long teamId, Consumer<WorkitemView> row) throws ServiceException {
+		try {
+			executor.read(() -> {
+				try (Stream<WorkitemView> workitems = workitemRepository.streamWorkitemsByTeam(teamId)) {
+					workitems.forEach(row);
+				}
+				return teamId;
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not export items by team");
+		}
+	}
 
+	public List<WorkitemView> getAllWorkitemsByUser(long userId, long afterId, int limit) throws ServiceException {
+		try {
+			return executor.read(() -> {
+				return workitemRepository.findWorkitemPageByUser(userId, afterId, new PageRequest(0, limit));
+			});
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not get any items by user");
 		}
+	}
 
+	/**
+	 * Ranked search over title and description, answered from the in-memory
+	 * {@link WorkitemSearchIndex}; only the matching rows are read from the
+	 * database. Returns an empty collection when nothing matches.
+	 */
+	public List<WorkitemView> searchByDescription(String searchValue, int limit) throws ServiceException {
+		List<Long> ranked = searchIndex.search(searchValue, limit);
+		if (ranked.isEmpty()) {
+			return new ArrayList<>();
+		}
+		try {
+			Map<Long, WorkitemView> found = new HashMap<>();
+			executor.read(() -> {
+				workitemRepository.findWorkitemViewsIn(ranked)
+						.forEach(workitem -> found.put(workitem.getId(), workitem));
+				return found;
+			});
+			List<WorkitemView> workitems = new ArrayList<>(found.size());
+			ranked.forEach(id -> {
+				if (found.containsKey(id)) {
+					workitems.add(found.get(id));
+				}
+			});
+			return workitems;
+		} catch (DataAccessException e) {
+			throw new ServiceException("Could not get any items by description");
+		}
 	}
 
 	public void deleteWorkitem(long issueId, long workitemId) throws ServiceException {
 
-		if (!workitemRepository.findAllWorkitemsId().contains(workitemId)) {
+		if (!workitemRepository.exists(workitemId)) {
 			throw new ServiceException(
 					"The workitem couldn't be found, therefore your request to delete will be declined!");
 		} else {
-			issueRepository.delete(issueId);
-			workitemRepository.delete(workitemId);
+			try {
+				executor.execute(() -> {
+					Long userId = workitemRepository.findUserIdByWorkitemId(workitemId);
+					issueRepository.delete(issueId);
+					issueRepository.deleteIssuesOfWorkitem(workitemId);
+					teamCounterRepository.bumpWorkitemsVersionOf(Collections.singleton(workitemId));
+					// only deletes the workitem while it is still assigned to the user whose
+					// counter is decremented
+					int deleted = userId == null ? workitemRepository.deleteUnassignedWorkitem(workitemId)
+							: workitemRepository.deleteAssignedWorkitem(workitemId, userId);
+					if (deleted == 0) {
+						throw new RejectedUpdateException(
+								"The workitem was changed by someone else meanwhile, try again!");
+					}
+					if (userId != null) {
+						counterRepository.addToWorkitemCount(userId, -1);
+					}
+					changeRepository.save(WorkitemChange.deleted(workitemId));
+					return userId;
+				});
+			} catch (RejectedUpdateException e) {
+				throw new ServiceException(e.getMessage());
+			} catch (DataAccessException e) {
+				throw new ServiceException("Could not delete workitem");
+			}
+			searchIndex.remove(workitemId);
 		}
 	}
 
@@ -0,0 +1,71 @@
+package se.springdata.statistics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Hands out connections that report every statement they prepare, and every
+ * statement executed through a plain {@link Statement}, to
+ * {@link QueryCounter}.
+ */
+public class CountingDataSource extends DelegatingDataSource {
+
+	public CountingDataSource(DataSource target) {
+		super(target);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return counting(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return counting(super.getConnection(username, password));
+	}
+
+	private static Connection counting(Connection connection) {
+		return proxy(Connection.class, connection, (method, result) -> {
+			switch (method.getName()) {
+			case "prepareStatement":
+			case "prepareCall":
+				QueryCounter.statementPrepared();
+				return result;
+			case "createStatement":
+				return proxy(Statement.class, (Statement) result, (executed, ignored) -> {
+					if (executed.getName().startsWith("execute")) {
+						QueryCounter.statementPrepared();
+					}
+					return ignored;
+				});
+			default:
+				return result;
+			}
+		});
+	}
+
+	private static <T> T proxy(Class<T> type, T target, Counter counter) {
+		InvocationHandler handler = (proxy, method, args) -> {
+			try {
+				return counter.invoked(method, method.invoke(target, args));
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		};
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+	}
+
+	@FunctionalInterface
+	private static interface Counter {
+		Object invoked(Method method, Object result);
+	}
+}
@@ -0,0 +1,29 @@
+package se.springdata.statistics;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports every entity Hibernate loads and every lazy collection it
+ * initializes to {@link QueryCounter}, the other half of the N+1 picture next
+ * to the statements of {@link CountingDataSource}.
+ */
+@Component
+public class LoadCountingListeners {
+
+	@Autowired
+	public LoadCountingListeners(EntityManagerFactory entityManagerFactory) {
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> QueryCounter.entityLoaded());
+		registry.appendListeners(EventType.INIT_COLLECTION,
+				(InitializeCollectionEventListener) event -> QueryCounter.collectionInitialized());
+	}
+}
@@ -0,0 +1,70 @@
+package se.springdata.statistics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.metrics.MetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Collects what the Hikari pool reports about itself: the connections in use,
+ * idle and waited for, and how long borrowing a connection takes. Register it
+ * with {@link HikariConfig#setMetricsTrackerFactory} before the pool starts.
+ */
+public final class PoolMetrics implements MetricsTrackerFactory {
+
+	private final LongAdder acquisitions = new LongAdder();
+	private final LongAdder acquireNanos = new LongAdder();
+	private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+	private final LongAdder timeouts = new LongAdder();
+
+	private final HikariConfig config;
+	private volatile PoolStats stats;
+
+	public PoolMetrics(HikariConfig config) {
+		this.config = config;
+	}
+
+	@Override
+	public MetricsTracker create(String poolName, PoolStats poolStats) {
+		this.stats = poolStats;
+		return new MetricsTracker() {
+			@Override
+			public void recordConnectionAcquiredNanos(long elapsedNanos) {
+				acquisitions.increment();
+				acquireNanos.add(elapsedNanos);
+				maxAcquireNanos.accumulate(elapsedNanos);
+			}
+
+			@Override
+			public void recordConnectionTimeout() {
+				timeouts.increment();
+			}
+		};
+	}
+
+	/**
+	 * The connection counts are refreshed by Hikari at most once a second; the
+	 * acquire times and timeouts are totals since startup.
+	 */
+	public PoolStatistics getStatistics() {
+		long acquired = acquisitions.sum();
+		long meanAcquireNanos = acquired == 0 ? 0 : acquireNanos.sum() / acquired;
+		PoolStats current = stats;
+		if (current == null) {
+			return new PoolStatistics(config.getPoolName(), config.getMaximumPoolSize(), config.getMinimumIdle(), 0, 0,
+					0, 0, acquired, micros(meanAcquireNanos), micros(maxAcquireNanos.get()), timeouts.sum());
+		}
+		return new PoolStatistics(config.getPoolName(), config.getMaximumPoolSize(), config.getMinimumIdle(),
+				current.getTotalConnections(), current.getActiveConnections(), current.getIdleConnections(),
+				current.getPendingThreads(), acquired, micros(meanAcquireNanos), micros(maxAcquireNanos.get()),
+				timeouts.sum());
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
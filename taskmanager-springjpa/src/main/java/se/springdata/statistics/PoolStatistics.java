@@ -0,0 +1,91 @@
+package se.springdata.statistics;
+
+/**
+ * A snapshot of the connection pool: its configured size, the connections it
+ * holds now, and how long requests waited for one since startup.
+ */
+public final class PoolStatistics {
+
+	private final String pool;
+	private final int maximumPoolSize;
+	private final int minimumIdle;
+	private final int total;
+	private final int active;
+	private final int idle;
+	private final int pendingThreads;
+	private final long acquisitions;
+	private final long meanAcquireMicros;
+	private final long maxAcquireMicros;
+	private final long timeouts;
+
+	public PoolStatistics(String pool, int maximumPoolSize, int minimumIdle, int total, int active, int idle,
+			int pendingThreads, long acquisitions, long meanAcquireMicros, long maxAcquireMicros, long timeouts) {
+		this.pool = pool;
+		this.maximumPoolSize = maximumPoolSize;
+		this.minimumIdle = minimumIdle;
+		this.total = total;
+		this.active = active;
+		this.idle = idle;
+		this.pendingThreads = pendingThreads;
+		this.acquisitions = acquisitions;
+		this.meanAcquireMicros = meanAcquireMicros;
+		this.maxAcquireMicros = maxAcquireMicros;
+		this.timeouts = timeouts;
+	}
+
+	public String getPool() {
+		return pool;
+	}
+
+	public int getMaximumPoolSize() {
+		return maximumPoolSize;
+	}
+
+	public int getMinimumIdle() {
+		return minimumIdle;
+	}
+
+	public int getTotal() {
+		return total;
+	}
+
+	public int getActive() {
+		return active;
+	}
+
+	public int getIdle() {
+		return idle;
+	}
+
+	/**
+	 * Threads blocked waiting for a connection; anything above zero for long
+	 * means the pool is smaller than the load needs.
+	 */
+	public int getPendingThreads() {
+		return pendingThreads;
+	}
+
+	public long getAcquisitions() {
+		return acquisitions;
+	}
+
+	public long getMeanAcquireMicros() {
+		return meanAcquireMicros;
+	}
+
+	public long getMaxAcquireMicros() {
+		return maxAcquireMicros;
+	}
+
+	public long getTimeouts() {
+		return timeouts;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolStatistics [pool=" + pool + ", maximumPoolSize=" + maximumPoolSize + ", minimumIdle="
+				+ minimumIdle + ", total=" + total + ", active=" + active + ", idle=" + idle + ", pendingThreads="
+				+ pendingThreads + ", acquisitions=" + acquisitions + ", meanAcquireMicros=" + meanAcquireMicros
+				+ ", maxAcquireMicros=" + maxAcquireMicros + ", timeouts=" + timeouts + "]";
+	}
+}
@@ -0,0 +1,53 @@
+package se.springdata.statistics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The JDBC statements, entity loads and collection initializations of one
+ * unit of work, usually one HTTP request, as counted by {@link QueryCounter}.
+ */
+public final class QueryCount {
+
+	private final String name;
+	private final AtomicInteger statements = new AtomicInteger();
+	private final AtomicInteger entities = new AtomicInteger();
+	private final AtomicInteger collections = new AtomicInteger();
+
+	QueryCount(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getStatements() {
+		return statements.get();
+	}
+
+	public int getEntities() {
+		return entities.get();
+	}
+
+	public int getCollections() {
+		return collections.get();
+	}
+
+	void statement() {
+		statements.incrementAndGet();
+	}
+
+	void entity() {
+		entities.incrementAndGet();
+	}
+
+	void collection() {
+		collections.incrementAndGet();
+	}
+
+	@Override
+	public String toString() {
+		return "QueryCount [name=" + name + ", statements=" + statements + ", entities=" + entities + ", collections="
+				+ collections + "]";
+	}
+}
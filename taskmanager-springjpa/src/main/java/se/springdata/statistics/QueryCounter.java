@@ -0,0 +1,93 @@
+package se.springdata.statistics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Attributes the statements and loads of the current thread to the
+ * {@link QueryCount} started on it. Unlike the Hibernate {@code Statistics},
+ * which add up the work of every session, this tells concurrent requests
+ * apart. Work done outside {@link #start(String)} and
+ * {@link #finish(QueryCount)} is not counted.
+ */
+public final class QueryCounter {
+
+	private static final ThreadLocal<QueryCount> CURRENT = new ThreadLocal<>();
+	private static final List<Observer> OBSERVERS = new CopyOnWriteArrayList<>();
+
+	private QueryCounter() {
+	}
+
+	public static QueryCount start(String name) {
+		QueryCount count = new QueryCount(name);
+		CURRENT.set(count);
+		OBSERVERS.forEach(observer -> observer.started(count));
+		return count;
+	}
+
+	/**
+	 * Makes {@code count} the one the current thread adds to, for work that
+	 * continues on another thread than the one it was started on.
+	 */
+	public static void resume(QueryCount count) {
+		CURRENT.set(count);
+	}
+
+	/** Stops counting on this thread and hands {@code count} to the observers. */
+	public static void finish(QueryCount count) {
+		if (CURRENT.get() == count) {
+			CURRENT.remove();
+		}
+		OBSERVERS.forEach(observer -> observer.finished(count));
+	}
+
+	/**
+	 * Stops counting on this thread without finishing the count, which is
+	 * left to whoever finishes the request. A pooled thread calls this once
+	 * its task is done, so no count outlives the task on it.
+	 */
+	public static void detach() {
+		CURRENT.remove();
+	}
+
+	public static QueryCount current() {
+		return CURRENT.get();
+	}
+
+	public static void addObserver(Observer observer) {
+		OBSERVERS.add(observer);
+	}
+
+	public static void removeObserver(Observer observer) {
+		OBSERVERS.remove(observer);
+	}
+
+	static void statementPrepared() {
+		QueryCount count = CURRENT.get();
+		if (count != null) {
+			count.statement();
+		}
+	}
+
+	static void entityLoaded() {
+		QueryCount count = CURRENT.get();
+		if (count != null) {
+			count.entity();
+		}
+	}
+
+	static void collectionInitialized() {
+		QueryCount count = CURRENT.get();
+		if (count != null) {
+			count.collection();
+		}
+	}
+
+	/** Told about every count, for budgets checked outside the request. */
+	public static interface Observer {
+
+		void started(QueryCount count);
+
+		void finished(QueryCount count);
+	}
+}
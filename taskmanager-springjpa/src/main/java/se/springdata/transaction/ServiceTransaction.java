@@ -1,17 +1,80 @@
 package se.springdata.transaction;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.transaction.Transactional;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class ServiceTransaction {
 
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+	private int batchSize;
+
 	@Transactional
 	public <T> T execute(Action<T> action) {
 		return action.execute();
 	}
 
+	/**
+	 * Runs {@code action} in a read-only transaction, which is answered by a
+	 * replica when there are any. Inside {@link #execute(Action)} it joins
+	 * that transaction and reads from the primary.
+	 */
+	@org.springframework.transaction.annotation.Transactional(readOnly = true)
+	public <T> T read(Action<T> action) {
+		return action.execute();
+	}
+
+	/**
+	 * Runs {@code action} in a transaction on the primary, for reads whose
+	 * result is cached: a replica may not have the write yet that evicted
+	 * the entry.
+	 */
+	@Transactional
+	public <T> T readPrimary(Action<T> action) {
+		return action.execute();
+	}
+
+	/**
+	 * Splits {@code items} into chunks of the JDBC batch size, so that a
+	 * caller can flush each chunk as one JDBC batch.
+	 */
+	public <E> List<List<E>> chunks(List<E> items) {
+		List<List<E>> chunks = new ArrayList<>((items.size() + batchSize - 1) / batchSize);
+		for (int from = 0; from < items.size(); from += batchSize) {
+			chunks.add(items.subList(from, Math.min(from + batchSize, items.size())));
+		}
+		return chunks;
+	}
+
+	/**
+	 * Sends the pending inserts of the current transaction and detaches them,
+	 * keeping the persistence context small during a batch. Must be called
+	 * from inside {@link #execute(Action)}.
+	 */
+	public void flushAndClear() {
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	/**
+	 * A reference to the entity with {@code id} that can be set on another
+	 * entity without reading it. Must be called from inside
+	 * {@link #execute(Action)}.
+	 */
+	public <E> E reference(Class<E> type, Object id) {
+		return entityManager.getReference(type, id);
+	}
+
 	@FunctionalInterface
 	public static interface Action<T> {
 		T execute();
@@ -0,0 +1,41 @@
+package se.springdata.view;
+
+/**
+ * Id, name and status of a team, projected like {@link WorkitemView}.
+ */
+public final class TeamView {
+
+	private final Long id;
+	private final String teamName;
+	private final String teamStatus;
+	private final Long version;
+
+	public TeamView(Long id, String teamName, String teamStatus, Long version) {
+		this.id = id;
+		this.teamName = teamName;
+		this.teamStatus = teamStatus;
+		this.version = version;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getTeamName() {
+		return teamName;
+	}
+
+	public String getTeamStatus() {
+		return teamStatus;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return "TeamView [id=" + id + ", teamName=" + teamName + ", teamStatus=" + teamStatus + ", version="
+				+ version + "]";
+	}
+}
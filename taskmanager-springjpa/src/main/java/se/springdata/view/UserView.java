@@ -0,0 +1,60 @@
+package se.springdata.view;
+
+/**
+ * The user columns the read endpoints return; see {@link WorkitemView}.
+ */
+public final class UserView {
+
+	private final Long id;
+	private final String firstName;
+	private final String lastName;
+	private final String userName;
+	private final String userStatus;
+	private final String userNumber;
+	private final Long version;
+
+	public UserView(Long id, String firstName, String lastName, String userName, String userStatus,
+			String userNumber, Long version) {
+		this.id = id;
+		this.firstName = firstName;
+		this.lastName = lastName;
+		this.userName = userName;
+		this.userStatus = userStatus;
+		this.userNumber = userNumber;
+		this.version = version;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getFirstName() {
+		return firstName;
+	}
+
+	public String getLastName() {
+		return lastName;
+	}
+
+	public String getUserName() {
+		return userName;
+	}
+
+	public String getUserStatus() {
+		return userStatus;
+	}
+
+	public String getUserNumber() {
+		return userNumber;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return "UserView [id=" + id + ", firstName=" + firstName + ", lastName=" + lastName + ", userName=" + userName
+				+ ", userStatus=" + userStatus + ", userNumber=" + userNumber + ", version=" + version + "]";
+	}
+}
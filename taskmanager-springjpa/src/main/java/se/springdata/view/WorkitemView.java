@@ -0,0 +1,50 @@
+package se.springdata.view;
+
+import se.springdata.model.Status;
+
+/**
+ * Read-only columns of a workitem, filled by a constructor expression in the
+ * query. It is not an entity, so the persistence context never tracks it.
+ */
+public final class WorkitemView {
+
+	private final Long id;
+	private final String title;
+	private final String description;
+	private final Status status;
+	private final Long version;
+
+	public WorkitemView(Long id, String title, String description, Status status, Long version) {
+		this.id = id;
+		this.title = title;
+		this.description = description;
+		this.status = status;
+		this.version = version;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return "WorkitemView [id=" + id + ", title=" + title + ", description=" + description + ", status=" + status
+				+ "]";
+	}
+}
@@ -0,0 +1,7 @@
+-- Run once on MySQL after the VERSION columns have been added, with the
+-- application stopped. Rows written before optimistic locking have no
+-- version yet; they start at 0 like every new row.
+UPDATE team SET version = 0 WHERE version IS NULL;
+UPDATE user SET version = 0 WHERE version IS NULL;
+UPDATE workitem SET version = 0 WHERE version IS NULL;
+UPDATE issue SET version = 0 WHERE version IS NULL;
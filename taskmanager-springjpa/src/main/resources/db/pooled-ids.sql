@@ -0,0 +1,10 @@
+-- Run once on MySQL before deploying pooled id generation, with the
+-- application stopped. Ids keep coming from the shared hibernate_sequence
+-- table; this only makes sure the next block starts above every id that is
+-- already in use.
+UPDATE hibernate_sequence SET next_val = GREATEST(next_val,
+	(SELECT COALESCE(MAX(id), 0) + 1 FROM (
+		SELECT id FROM team UNION ALL
+		SELECT id FROM user UNION ALL
+		SELECT id FROM workitem UNION ALL
+		SELECT id FROM issue) ids));
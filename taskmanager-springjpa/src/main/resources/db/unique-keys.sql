@@ -0,0 +1,36 @@
+-- Run once on MySQL 5.7 or later before deploying the named unique keys,
+-- with the application stopped. The services tell a taken name from other
+-- integrity violations by the name of the key, and addWorkItem no longer
+-- reads before it inserts, so every key must exist under its name; the
+-- quiet schema update would not report one it could not create.
+
+-- USER_NAME and TEAM_NAME were unique before, under a name Hibernate
+-- generated. That index is looked up and replaced by the named key, so a
+-- violation never reports the old name.
+SET @old = (SELECT INDEX_NAME FROM information_schema.STATISTICS
+	WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'user' AND COLUMN_NAME = 'user_name'
+	AND NON_UNIQUE = 0 AND INDEX_NAME <> 'UK_USER_NAME' LIMIT 1);
+SET @sql = IF(@old IS NULL, 'DO 0', CONCAT('ALTER TABLE user DROP INDEX `', @old, '`'));
+PREPARE statement FROM @sql;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+ALTER TABLE user ADD CONSTRAINT UK_USER_NAME UNIQUE (user_name);
+
+SET @old = (SELECT INDEX_NAME FROM information_schema.STATISTICS
+	WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'team' AND COLUMN_NAME = 'team_name'
+	AND NON_UNIQUE = 0 AND INDEX_NAME <> 'UK_TEAM_NAME' LIMIT 1);
+SET @sql = IF(@old IS NULL, 'DO 0', CONCAT('ALTER TABLE team DROP INDEX `', @old, '`'));
+PREPARE statement FROM @sql;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+ALTER TABLE team ADD CONSTRAINT UK_TEAM_NAME UNIQUE (team_name);
+
+-- TITLE was never unique, so it may hold duplicates. All but the oldest
+-- workitem of each title get their id appended to the title, which the
+-- unique key then accepts.
+UPDATE workitem w
+	JOIN (SELECT title, MIN(id) AS first_id FROM workitem WHERE title IS NOT NULL
+		GROUP BY title HAVING COUNT(*) > 1) duplicate
+	ON w.title = duplicate.title AND w.id <> duplicate.first_id
+	SET w.title = CONCAT(LEFT(w.title, 230), ' (', w.id, ')'), w.version = w.version + 1;
+ALTER TABLE workitem ADD CONSTRAINT UK_WORKITEM_TITLE UNIQUE (title);
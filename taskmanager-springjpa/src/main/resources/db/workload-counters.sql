@@ -0,0 +1,38 @@
+-- Run once on MySQL before deploying the workload counters, with the
+-- application stopped. The counters live in their own tables, outside the
+-- cached user and team rows; this creates them, fills them from the current
+-- assignments, and drops the counter columns of an earlier deployment. From
+-- then on the services keep them up to date.
+CREATE TABLE IF NOT EXISTS user_counters (
+	user_id BIGINT NOT NULL,
+	workitem_count INTEGER NOT NULL,
+	PRIMARY KEY (user_id));
+-- team_counters also holds the versions of the member and workitem lists of
+-- the team, the entity tags of their conditional GETs.
+CREATE TABLE IF NOT EXISTS team_counters (
+	team_id BIGINT NOT NULL,
+	member_count INTEGER NOT NULL,
+	members_version BIGINT NOT NULL DEFAULT 0,
+	workitems_version BIGINT NOT NULL DEFAULT 0,
+	PRIMARY KEY (team_id));
+
+INSERT INTO user_counters (user_id, workitem_count)
+	SELECT u.id, (SELECT COUNT(*) FROM workitem w WHERE w.user_id = u.id) FROM user u
+	ON DUPLICATE KEY UPDATE workitem_count = VALUES(workitem_count);
+INSERT INTO team_counters (team_id, member_count)
+	SELECT t.id, (SELECT COUNT(*) FROM user u WHERE u.team_id = t.id) FROM team t
+	ON DUPLICATE KEY UPDATE member_count = VALUES(member_count);
+
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+	AND TABLE_NAME = 'user' AND COLUMN_NAME = 'workitem_count') = 0, 'DO 0',
+	'ALTER TABLE user DROP COLUMN workitem_count');
+PREPARE statement FROM @sql;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+	AND TABLE_NAME = 'team' AND COLUMN_NAME = 'member_count') = 0, 'DO 0',
+	'ALTER TABLE team DROP COLUMN member_count');
+PREPARE statement FROM @sql;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
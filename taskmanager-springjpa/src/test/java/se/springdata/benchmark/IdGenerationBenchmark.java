@@ -0,0 +1,68 @@
+package se.springdata.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import se.springdata.TaskmanagerSpringjpaApplication;
+import se.springdata.model.Team;
+import se.springdata.service.TeamService;
+
+/**
+ * Compares batch insert throughput on embedded H2 with one id per sequence
+ * call against ids reserved in blocks. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=se.springdata.benchmark.IdGenerationBenchmark}.
+ */
+public final class IdGenerationBenchmark {
+
+	private static final int ROWS = 5000;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws Exception {
+		for (int allocationSize : new int[] { 1, 50 }) {
+			run(allocationSize);
+		}
+	}
+
+	private static void run(int allocationSize) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+				TaskmanagerSpringjpaApplication.class).profiles("h2")
+						.properties("taskmanager.id.allocation-size=" + allocationSize,
+								"spring.datasource.url=jdbc:h2:mem:ids" + allocationSize + ";MODE=MySQL")
+						.run()) {
+			TeamService service = context.getBean(TeamService.class);
+			Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class)
+					.getStatistics();
+			statistics.setStatisticsEnabled(true);
+
+			service.addTeams(teams("warmup", ROWS));
+			long best = Long.MAX_VALUE;
+			long statements = 0;
+			for (int round = 0; round < ROUNDS; round++) {
+				List<Team> teams = teams("round" + round, ROWS);
+				statistics.clear();
+				long start = System.nanoTime();
+				service.addTeams(teams);
+				best = Math.min(best, System.nanoTime() - start);
+				statements = statistics.getPrepareStatementCount();
+			}
+			System.out.printf("allocation size %2d: %5d rows in %4d ms (%6.0f rows/s), %5d statements%n",
+					allocationSize, ROWS, best / 1_000_000, ROWS * 1e9 / best, statements);
+		}
+	}
+
+	private static List<Team> teams(String prefix, int count) {
+		List<Team> teams = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			teams.add(new Team(prefix + "-" + i, "active"));
+		}
+		return teams;
+	}
+}
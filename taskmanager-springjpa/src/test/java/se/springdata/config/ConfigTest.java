@@ -0,0 +1,79 @@
+package se.springdata.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.util.Properties;
+
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import se.springdata.statistics.PoolMetrics;
+import se.springdata.statistics.PoolStatistics;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+public final class ConfigTest {
+
+	@Test
+	public void poolIsSizedFromProperties() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("spring.datasource.hikari.maximum-pool-size", "64")
+				.withProperty("spring.datasource.hikari.minimum-idle", "8")
+				.withProperty("spring.datasource.hikari.connection-timeout", "2500")
+				.withProperty("spring.datasource.hikari.leak-detection-threshold", "60000");
+		HikariConfig config = new Config(environment).hikariConfig();
+
+		assertEquals(64, config.getMaximumPoolSize());
+		assertEquals(8, config.getMinimumIdle());
+		assertEquals(2500, config.getConnectionTimeout());
+		assertEquals(60000, config.getLeakDetectionThreshold());
+	}
+
+	@Test
+	public void mysqlDriverIsTunedByDefault() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("spring.datasource.hikari.data-source-properties.prepStmtCacheSize", "500");
+		Properties properties = new Config(environment).hikariConfig().getDataSourceProperties();
+
+		assertEquals("true", properties.getProperty("cachePrepStmts"));
+		assertEquals("500", properties.getProperty("prepStmtCacheSize"));
+		assertEquals("true", properties.getProperty("useServerPrepStmts"));
+		assertEquals("true", properties.getProperty("rewriteBatchedStatements"));
+		assertEquals("true", properties.getProperty("useCursorFetch"));
+	}
+
+	@Test
+	public void otherDriversGetNoMysqlProperties() {
+		MockEnvironment environment = new MockEnvironment().withProperty("spring.datasource.url", "jdbc:h2:mem:cfg");
+		HikariConfig config = new Config(environment).hikariConfig();
+
+		assertEquals(10, config.getMaximumPoolSize());
+		assertTrue(config.getDataSourceProperties().isEmpty());
+	}
+
+	@Test
+	public void poolMetricsSeeBorrowedConnections() throws Exception {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("spring.datasource.driver-class-name", "org.h2.Driver")
+				.withProperty("spring.datasource.url", "jdbc:h2:mem:pool-metrics")
+				.withProperty("spring.datasource.username", "sa").withProperty("spring.datasource.password", "")
+				.withProperty("spring.datasource.hikari.maximum-pool-size", "3");
+		HikariConfig config = new Config(environment).hikariConfig();
+		PoolMetrics metrics = new PoolMetrics(config);
+		config.setMetricsTrackerFactory(metrics);
+
+		try (HikariDataSource dataSource = new HikariDataSource(config)) {
+			try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+				PoolStatistics statistics = metrics.getStatistics();
+				assertEquals("taskmanager", statistics.getPool());
+				assertEquals(3, statistics.getMaximumPoolSize());
+				assertEquals(2, statistics.getAcquisitions());
+				assertTrue(statistics.getMaxAcquireMicros() >= statistics.getMeanAcquireMicros());
+				assertEquals(0, statistics.getTimeouts());
+			}
+		}
+	}
+}
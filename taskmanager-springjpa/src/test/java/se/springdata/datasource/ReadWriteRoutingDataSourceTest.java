@@ -0,0 +1,128 @@
+package se.springdata.datasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class ReadWriteRoutingDataSourceTest {
+
+	private final SwitchableDataSource first = new SwitchableDataSource(h2("routing-replica-1"));
+	private final SwitchableDataSource second = new SwitchableDataSource(h2("routing-replica-2"));
+	private ReadWriteRoutingDataSource routing;
+
+	@Before
+	public void setUp() {
+		routing = new ReadWriteRoutingDataSource(h2("routing-primary"), Arrays.asList(first, second), 60_000);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		routing.close();
+	}
+
+	@Test
+	public void writesGoToThePrimary() throws Exception {
+		assertEquals("routing-primary", database());
+		assertEquals("routing-primary", database());
+	}
+
+	@Test
+	public void readsAreSpreadOverTheReplicas() throws Exception {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		String read = database();
+		assertTrue(read, read.startsWith("routing-replica-"));
+		assertNotEquals(read, database());
+	}
+
+	@Test
+	public void readsFallBackToThePrimaryAndReturnAfterACheck() throws Exception {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		first.down = true;
+		second.down = true;
+
+		assertEquals("routing-primary", database());
+		assertFalse(routing.isHealthy(0));
+		assertFalse(routing.isHealthy(1));
+
+		second.down = false;
+		assertEquals("routing-primary", database());
+		routing.checkReplicas();
+		assertFalse(routing.isHealthy(0));
+		assertTrue(routing.isHealthy(1));
+		assertEquals("routing-replica-2", database());
+		assertEquals("routing-replica-2", database());
+	}
+
+	@Test
+	public void connectionsWithCredentialsAreRoutedAlike() throws Exception {
+		try (Connection connection = routing.getConnection("writer", "")) {
+			assertEquals("jdbc:h2:mem:routing-primary", connection.getMetaData().getURL());
+			assertEquals("WRITER", connection.getMetaData().getUserName());
+		}
+
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		first.down = true;
+		try (Connection connection = routing.getConnection("reader", "")) {
+			assertEquals("jdbc:h2:mem:routing-replica-2", connection.getMetaData().getURL());
+			assertEquals("READER", connection.getMetaData().getUserName());
+		}
+		assertFalse(routing.isHealthy(0));
+	}
+
+	private String database() throws SQLException {
+		try (Connection connection = routing.getConnection()) {
+			String url = connection.getMetaData().getURL();
+			return url.substring("jdbc:h2:mem:".length());
+		}
+	}
+
+	private static DataSource h2(String name) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + name);
+		return dataSource;
+	}
+
+	// stands in for a replica that stops answering, the way a pool whose
+	// connection timeout ran out reports it
+	private static final class SwitchableDataSource extends DelegatingDataSource {
+
+		private volatile boolean down;
+
+		SwitchableDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			if (down) {
+				throw new SQLTransientConnectionException("Connection is not available, request timed out");
+			}
+			return super.getConnection();
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			if (down) {
+				throw new SQLTransientConnectionException("Connection is not available, request timed out");
+			}
+			return super.getConnection(username, password);
+		}
+	}
+}
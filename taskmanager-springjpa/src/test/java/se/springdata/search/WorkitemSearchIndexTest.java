@@ -0,0 +1,105 @@
+package se.springdata.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+
+import se.springdata.repository.WorkitemChangeRepository;
+import se.springdata.repository.WorkitemRepository;
+import se.springdata.transaction.ServiceTransaction;
+
+public final class WorkitemSearchIndexTest {
+
+	private WorkitemRepository repository;
+	private WorkitemChangeRepository changes;
+	private WorkitemSearchIndex index;
+
+	@Before
+	public void setUp() {
+		repository = mock(WorkitemRepository.class);
+		when(repository.findSearchablePage(anyLong(), any(Pageable.class))).thenReturn(Arrays.asList(
+				new Object[] { 1L, "Baking", "Making a birthday cake" },
+				new Object[] { 2L, "Cooking", "Making dinner for the web team" },
+				new Object[] { 3L, "Web service", "Publish the JAX-RS web service" }));
+		changes = mock(WorkitemChangeRepository.class);
+		index = new WorkitemSearchIndex(repository, changes, new ServiceTransaction(), 0, 0);
+		index.load();
+	}
+
+	@Test
+	public void findsSubstringsInTitleAndDescription() {
+		assertEquals(Arrays.asList(1L, 2L), index.search("making", 10));
+		assertEquals(Collections.singletonList(2L), index.search("dinner", 10));
+	}
+
+	@Test
+	public void ranksTitleHitsBeforeDescriptionHits() {
+		assertEquals(Arrays.asList(3L, 2L), index.search("Web", 10));
+	}
+
+	@Test
+	public void returnsAtMostLimitHits() {
+		assertEquals(Collections.singletonList(3L), index.search("web", 1));
+	}
+
+	@Test
+	public void trigramsMustAppearInOrder() {
+		assertTrue(index.search("cake birthday", 10).isEmpty());
+	}
+
+	@Test
+	public void queriesShorterThanATrigramMatchNothing() {
+		assertTrue(index.search("ma", 10).isEmpty());
+		assertTrue(index.search("", 10).isEmpty());
+	}
+
+	@Test
+	public void followsAddAndRemove() {
+		index.remove(1L);
+		assertEquals(Collections.singletonList(2L), index.search("making", 10));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void catchesUpWithTheRecordedChanges() {
+		// another node deleted 1, added 0 below the ids indexed here, and added
+		// and deleted 5; 2 was added here and is indexed already
+		when(changes.findChangesSince(any(Date.class))).thenReturn(Arrays.asList(
+				new Object[] { 1L, true }, new Object[] { 0L, false }, new Object[] { 2L, false },
+				new Object[] { 5L, false }, new Object[] { 5L, true }));
+		when(repository.findSearchableIn(Collections.singletonList(0L))).thenReturn(Collections.singletonList(
+				new Object[] { 0L, "Baking bread", "Making sourdough" }));
+
+		index.catchUp();
+		assertEquals(Arrays.asList(0L, 2L), index.search("making", 10));
+		assertEquals(3, index.size());
+		verify(repository, never()).findIdPage(anyLong(), any(Pageable.class));
+		verify(changes).deleteChangesBefore(any(Date.class));
+	}
+
+	@Test
+	public void fullCatchUpComparesEveryId() {
+		// another node deleted 1 and added 0, below the ids indexed here, and 4
+		when(repository.findIdPage(anyLong(), any(Pageable.class))).thenReturn(Arrays.asList(0L, 2L, 3L, 4L));
+		when(repository.findSearchableIn(Arrays.asList(0L, 4L))).thenReturn(Arrays.asList(
+				new Object[] { 0L, "Baking bread", "Making sourdough" },
+				new Object[] { 4L, "Cleaning", "Making the kitchen shine" }));
+
+		index.fullCatchUp();
+		assertEquals(Arrays.asList(0L, 2L, 4L), index.search("making", 10));
+		assertEquals(4, index.size());
+	}
+}
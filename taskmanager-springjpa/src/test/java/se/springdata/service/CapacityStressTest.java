@@ -0,0 +1,200 @@
+package se.springdata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.springdata.exception.ServiceException;
+import se.springdata.model.Status;
+import se.springdata.model.Team;
+import se.springdata.model.User;
+import se.springdata.model.Workitem;
+import se.springdata.repository.TeamCountersRepository;
+import se.springdata.repository.UserCountersRepository;
+import se.springdata.repository.UserRepository;
+import se.springdata.repository.WorkitemRepository;
+
+/**
+ * Runs team joins and workitem assignments from many threads at once against
+ * embedded H2 and checks that the member and workitem limits still hold, and
+ * that the maintained counters match the real rows afterwards.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stress;MODE=MySQL;LOCK_TIMEOUT=10000")
+@ActiveProfiles("h2")
+public final class CapacityStressTest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CapacityStressTest.class);
+	private static final int THREADS = 16;
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private WorkitemService workitemService;
+
+	@Autowired
+	private TeamCountersRepository teamCounters;
+
+	@Autowired
+	private UserCountersRepository userCounters;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private WorkitemRepository workitemRepository;
+
+	private ExecutorService pool;
+
+	@Before
+	public void setUp() {
+		pool = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	public void teamsNeverExceedTheMemberLimit() throws Exception {
+		List<Team> teams = created(teamService.addTeams(teams("stressteam", 4)));
+		List<User> users = created(userService.addUsers(users("stressjoin", 30 * teams.size())));
+
+		List<Callable<Void>> joins = new ArrayList<>(users.size());
+		for (int i = 0; i < users.size(); i++) {
+			long teamId = teams.get(i % teams.size()).getId();
+			long userId = users.get(i).getId();
+			joins.add(() -> {
+				teamService.addUserToTeam(teamId, userId);
+				return null;
+			});
+		}
+		int joined = run("team joins", joins);
+
+		assertEquals(TeamService.MEMBER_LIMIT * teams.size(), joined);
+		for (Team team : teams) {
+			assertEquals(Integer.valueOf(TeamService.MEMBER_LIMIT), teamCounters.findMemberCountById(team.getId()));
+			assertEquals(TeamService.MEMBER_LIMIT, userRepository.findAllUserByTeamId(team.getId()).size());
+		}
+	}
+
+	@Test
+	public void usersNeverExceedTheWorkitemLimit() throws Exception {
+		Team team = teamService.addTeam(new Team("stressassign", "active"));
+		List<User> users = created(userService.addUsers(users("stressassign", 8)));
+		for (User user : users) {
+			teamService.addUserToTeam(team.getId(), user.getId());
+		}
+		List<Workitem> workitems = created(workitemService.addWorkItems(workitems("stress", 80)));
+
+		// every workitem is claimed by two users at once, so reassignments race too
+		List<Callable<Void>> assignments = new ArrayList<>(workitems.size() * 2);
+		for (int round = 0; round < 2; round++) {
+			for (int i = 0; i < workitems.size(); i++) {
+				long userId = users.get((i + round) % users.size()).getId();
+				long workitemId = workitems.get(i).getId();
+				assignments.add(() -> {
+					workitemService.assignsWorkitemToUser(userId, workitemId);
+					return null;
+				});
+			}
+		}
+		run("assignments", assignments);
+
+		// how full the users end up depends on the interleaving, the limit does not
+		for (User user : users) {
+			int actual = workitemRepository.findAllWorkitemByUser(user.getId()).size();
+			assertTrue(actual <= WorkitemService.WORKITEM_LIMIT);
+			assertEquals(Integer.valueOf(actual), userCounters.findWorkitemCountById(user.getId()));
+		}
+	}
+
+	/**
+	 * Starts all tasks at the same moment and returns how many of them went
+	 * through; rejected ones are expected, anything else fails the test.
+	 */
+	private int run(String name, List<Callable<Void>> tasks) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>(tasks.size());
+		for (Callable<Void> task : tasks) {
+			results.add(pool.submit(() -> {
+				start.await();
+				try {
+					task.call();
+					return true;
+				} catch (ServiceException e) {
+					return false;
+				}
+			}));
+		}
+		long begin = System.nanoTime();
+		start.countDown();
+		int succeeded = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get(1, TimeUnit.MINUTES)) {
+				succeeded++;
+			}
+		}
+		long elapsed = System.nanoTime() - begin;
+		LOG.info("{}: {} attempts, {} succeeded on {} threads in {} ms ({} attempts/s)", name, tasks.size(),
+				succeeded, THREADS, elapsed / 1_000_000, Math.round(tasks.size() * 1e9 / elapsed));
+		return succeeded;
+	}
+
+	private static <T> List<T> created(List<BatchResult<T>> results) {
+		List<T> entities = new ArrayList<>(results.size());
+		results.forEach(result -> {
+			assertTrue(result.getMessage(), result.isCreated());
+			entities.add(result.getEntity());
+		});
+		return entities;
+	}
+
+	private static List<Team> teams(String prefix, int count) {
+		List<Team> teams = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			teams.add(new Team(prefix + i, "active"));
+		}
+		return teams;
+	}
+
+	private static List<User> users(String prefix, int count) {
+		List<User> users = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			users.add(new User("Stress", "Test", prefix + i, "active", prefix.toUpperCase() + "-" + i));
+		}
+		return users;
+	}
+
+	private static List<Workitem> workitems(String prefix, int count) {
+		List<Workitem> workitems = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			workitems.add(new Workitem(prefix + " " + i, "Stress test workitem", Status.UNSTARTED));
+		}
+		return workitems;
+	}
+}
@@ -0,0 +1,136 @@
+package se.springdata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import se.springdata.cache.CollectionVersions;
+import se.springdata.model.Team;
+import se.springdata.model.User;
+import se.springdata.repository.TeamRepository;
+import se.springdata.repository.UserRepository;
+import se.springdata.transaction.ServiceTransaction;
+
+/**
+ * Runs the services against two embedded databases, a primary and a replica
+ * that is a copy of the primary taken before the last write, and checks
+ * which of them answers.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = { "spring.datasource.url=" + ReplicaReadTest.PRIMARY,
+		"taskmanager.datasource.replicas=" + ReplicaReadTest.REPLICA })
+@ActiveProfiles("h2")
+public final class ReplicaReadTest {
+
+	static final String PRIMARY = "jdbc:h2:mem:rw-primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+	static final String REPLICA = "jdbc:h2:mem:rw-replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	private static boolean replicated;
+	private static long lateTeamId;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TeamService teamService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TeamRepository teamRepository;
+
+	@Autowired
+	private ServiceTransaction executor;
+
+	@Autowired
+	private CollectionVersions versions;
+
+	@Before
+	public void setUp() throws Exception {
+		if (!replicated) {
+			userService.addUser(new User("Replica", "Early", "replicaread01", "active", "RR-01"));
+			replicate();
+			userService.addUser(new User("Replica", "Late", "replicaread02", "active", "RR-02"));
+			lateTeamId = teamService.addTeam(new Team("ReplicaLate", "active")).getId();
+			replicated = true;
+		}
+	}
+
+	@Test
+	public void readOnlyTransactionsAreAnsweredByTheReplica() throws Exception {
+		assertEquals(1, userService.findByName("firstname", "Replica").size());
+		assertEquals(1, executor.read(() -> userRepository.findUserViewsByFirstName("Replica")).size());
+	}
+
+	@Test
+	public void readsInsideWritesSeeThePrimary() {
+		assertEquals(2, executor.execute(() -> userRepository.findUserViewsByFirstName("Replica")).size());
+		assertEquals(2, executor.execute(() -> {
+			return executor.read(() -> userRepository.findUserViewsByFirstName("Replica"));
+		}).size());
+	}
+
+	@Test
+	public void collectionVersionsAreReadWithTheRows() {
+		CollectionVersions.Reader<String, RuntimeException> page = version -> version + ":"
+				+ teamRepository.findTeamPage(0L, new PageRequest(0, 10)).size();
+
+		String fromReplica = versions.readTeams(page);
+		String fromPrimary = executor.execute(() -> versions.readTeams(page));
+
+		// no team at all
+		assertEquals("teams-0-0:0", fromReplica);
+		assertTrue(fromPrimary, fromPrimary.startsWith("teams-") && fromPrimary.endsWith(":1"));
+	}
+
+	@Test
+	public void cachedUserLookupsReadThePrimary() throws Exception {
+		assertEquals(1, userService.findByUserNumber("RR-02").size());
+		assertEquals(1, userService.findByName("username", "replicaread02").size());
+	}
+
+	@Test
+	public void replicaReadsAreNotCached() {
+		assertNull(executor.read(() -> teamRepository.findTeamStatusById(lateTeamId)));
+		// outside a transaction the lookup reads the primary, unless the
+		// replica's answer was cached
+		assertEquals("active", teamRepository.findTeamStatusById(lateTeamId));
+	}
+
+	// what replication would do, all at once
+	private static void replicate() throws SQLException {
+		List<String> script = new ArrayList<>();
+		try (Connection primary = DriverManager.getConnection(PRIMARY, "sa", "");
+				Statement statement = primary.createStatement();
+				ResultSet rows = statement.executeQuery("SCRIPT")) {
+			while (rows.next()) {
+				script.add(rows.getString(1));
+			}
+		}
+		try (Connection replica = DriverManager.getConnection(REPLICA, "sa", "");
+				Statement statement = replica.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+			for (String sql : script) {
+				statement.execute(sql);
+			}
+		}
+	}
+}